@@ -0,0 +1,61 @@
+package org.beverageproducer.benchmarks;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.OffHeapBasketStore;
+import org.beverageproducer.models.Product;
+import org.beverageproducer.models.ProductCatalog;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//pricing open baskets of the off-heap store, clients are visited at random so most baskets are not in the cache
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BasketStoreBenchmark {
+    @Param({"1000", "1000000"})
+    private int baskets;
+
+    private OffHeapBasketStore store;
+    private Client terms;
+    private Random random;
+
+    @Setup
+    public void setUp() throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException, InvalidCountOfItemsException {
+        random = new Random(42);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            products.add(new Product((char) ('A' + i), BigDecimal.valueOf(1 + random.nextInt(999), 2),
+                    MarkupType.PERCENT, BigDecimal.valueOf(1 + random.nextInt(150))));
+        }
+        store = new OffHeapBasketStore(new ProductCatalog(products));
+        for (int clientId = 0; clientId < baskets; clientId++) {
+            for (int line = 0; line < 4; line++) {
+                store.setQuantity(clientId, random.nextInt(products.size()), 1 + random.nextInt(100));
+            }
+        }
+        terms = new Client(0, 5, 3, 7);
+    }
+
+    @Benchmark
+    public long priceRandomBasket() throws NegativeCountOfItemsException {
+        int clientId = random.nextInt(baskets);
+        return terms.priceWithAdditionalDiscountCents(store.sumOfOrdersCents(clientId), store.getSumOfQuantities(clientId));
+    }
+
+    @Benchmark
+    public int editRandomLine() throws InvalidCountOfItemsException {
+        int clientId = random.nextInt(baskets);
+        store.setQuantity(clientId, random.nextInt(64), 1 + random.nextInt(100));
+        return store.getLineCount(clientId);
+    }
+}
@@ -0,0 +1,93 @@
+package org.beverageproducer.benchmarks;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//products are named by a single char, so a basket can't have more than 65536 distinct lines
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ClientBenchmark {
+    @Param({"4", "1000", "65536"})
+    private int lines;
+
+    private Client client;
+    private Product[] products;
+    private int edits;
+
+    @Setup
+    public void setUp() throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException, InvalidCountOfItemsException {
+        Random random = new Random(42);
+        client = new Client(1, 5, 3, 7);
+        products = new Product[lines];
+        for (int i = 0; i < lines; i++) {
+            Product product = new Product((char) i, BigDecimal.valueOf(1 + random.nextInt(999), 2),
+                    i % 2 == 0 ? MarkupType.PERCENT : MarkupType.PRICE_PER_UNIT, BigDecimal.valueOf(1 + random.nextInt(150)));
+            if (i % 3 == 1) {
+                product.addPercentPromotion(1 + random.nextInt(50));
+            } else if (i % 3 == 2) {
+                product.addFreeItemsPromotion(1 + random.nextInt(4), 1 + random.nextInt(2));
+            }
+            products[i] = product;
+            client.addOrderedProduct(product, 1 + random.nextInt(100));
+        }
+    }
+
+    //served from the cached quote of the unchanged basket
+    @Benchmark
+    public BigDecimal sumOfOrders() throws NegativeCountOfItemsException {
+        return client.sumOfOrders();
+    }
+
+    @Benchmark
+    public BigDecimal priceWithAdditionalDiscount() throws NegativeCountOfItemsException {
+        return client.priceWithAdditionalDiscount();
+    }
+
+    //resetting the discount drops the cached quote, the line totals are kept so only the discounts are applied again
+    @Benchmark
+    public BigDecimal repriceWithAdditionalDiscount() throws NegativeCountOfItemsException, InvalidPercentException {
+        client.setBasicClientDiscountPercent(5);
+        return client.priceWithAdditionalDiscount();
+    }
+
+    //one line edit is applied to the running totals by delta, independent of the basket size
+    @Benchmark
+    public BigDecimal editLineAndReprice() throws NegativeCountOfItemsException, InvalidCountOfItemsException {
+        int edit = edits++;
+        client.addOrderedProduct(products[edit % products.length], 1 + edit % 100);
+        return client.priceWithAdditionalDiscount();
+    }
+
+    //a product change only prices its own line again, the other lines are checked by their product version
+    @Benchmark
+    public BigDecimal repriceAfterProductChange() throws NegativeCountOfItemsException, InvalidMarkupException {
+        products[0].setMarkup(products[0].getMarkup());
+        return client.priceWithAdditionalDiscount();
+    }
+
+    //every product changed, so every line is priced again, in parallel from ParallelLinePricing.THRESHOLD lines
+    //includes the product changes themselves, which are cheap next to pricing the lines
+    @Benchmark
+    public BigDecimal repriceAfterEveryProductChanged() throws NegativeCountOfItemsException, InvalidMarkupException {
+        for (Product product : products) {
+            product.setMarkup(product.getMarkup());
+        }
+        return client.priceWithAdditionalDiscount();
+    }
+
+    @Benchmark
+    public long priceWithAdditionalDiscountCents() throws NegativeCountOfItemsException {
+        return client.priceWithAdditionalDiscountCents();
+    }
+}
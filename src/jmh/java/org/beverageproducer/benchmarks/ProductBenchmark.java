@@ -0,0 +1,51 @@
+package org.beverageproducer.benchmarks;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.enums.PromotionType;
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.models.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProductBenchmark {
+    @Param({"NONE", "PERCENT", "GET_FREE_ITEMS"})
+    private PromotionType promotionType;
+
+    @Param({"1", "7", "10000"})
+    private int quantity;
+
+    private Product product;
+
+    @Setup
+    public void setUp() throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException, InvalidCountOfItemsException {
+        product = new Product('D', BigDecimal.valueOf(0.60), MarkupType.PERCENT, BigDecimal.valueOf(80));
+        if (promotionType == PromotionType.PERCENT) {
+            product.addPercentPromotion(30);
+        } else if (promotionType == PromotionType.GET_FREE_ITEMS) {
+            product.addFreeItemsPromotion(2, 1);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calculatedPrice() throws NegativeCountOfItemsException {
+        return product.calculatedPrice(quantity);
+    }
+
+    @Benchmark
+    public BigDecimal calculatedPricePerItem() throws NegativeCountOfItemsException {
+        return product.calculatedPricePerItem(quantity);
+    }
+
+    @Benchmark
+    public long calculatedPriceMicros() throws NegativeCountOfItemsException {
+        return product.calculatedPriceMicros(quantity);
+    }
+}
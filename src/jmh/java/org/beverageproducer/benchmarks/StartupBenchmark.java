@@ -0,0 +1,90 @@
+package org.beverageproducer.benchmarks;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.Product;
+import org.beverageproducer.service.Controller;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//time from an empty Controller to the first quote, once per fresh JVM
+//the catalog is either built object by object through the validating constructors or loaded from a catalog image
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+    @Param({"4", "50000"})
+    private int products;
+
+    private char[] names;
+    private BigDecimal[] unitCosts;
+    private BigDecimal[] markups;
+    private Path image;
+
+    @Setup
+    public void setUp() throws IOException, InvalidMarkupException, InvalidUnitCostException, InvalidPercentException, InvalidCountOfItemsException {
+        Random random = new Random(42);
+        names = new char[products];
+        unitCosts = new BigDecimal[products];
+        markups = new BigDecimal[products];
+        for (int i = 0; i < products; i++) {
+            names[i] = (char) ('A' + i);
+            unitCosts[i] = BigDecimal.valueOf(1 + random.nextInt(999), 2);
+            markups[i] = BigDecimal.valueOf(1 + random.nextInt(150));
+        }
+        image = Files.createTempFile("catalog", ".img");
+        build().writeCatalogImage(image);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(image);
+    }
+
+    @Benchmark
+    public BigDecimal constructedCatalogToFirstQuote()
+            throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException, InvalidCountOfItemsException, NegativeCountOfItemsException {
+        return firstQuote(build());
+    }
+
+    @Benchmark
+    public BigDecimal catalogImageToFirstQuote() throws IOException, InvalidCountOfItemsException, NegativeCountOfItemsException {
+        Controller controller = new Controller();
+        controller.loadClientsAndProducts(image);
+        return firstQuote(controller);
+    }
+
+    private Controller build() throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException, InvalidCountOfItemsException {
+        Controller controller = new Controller();
+        for (int i = 0; i < products; i++) {
+            Product product = new Product(names[i], unitCosts[i], i % 2 == 0 ? MarkupType.PERCENT : MarkupType.PRICE_PER_UNIT, markups[i]);
+            if (i % 3 == 1) {
+                product.addPercentPromotion(30);
+            } else if (i % 3 == 2) {
+                product.addFreeItemsPromotion(2, 1);
+            }
+            controller.getProducts().put(names[i], product);
+        }
+        for (int id = 1; id <= 5; id++) {
+            controller.getClients().put(id, new Client(id, id, id - 1, id + 1));
+        }
+        return controller;
+    }
+
+    private BigDecimal firstQuote(Controller controller) throws InvalidCountOfItemsException, NegativeCountOfItemsException {
+        Client client = controller.getClients().get(1);
+        client.addOrderedProduct(controller.getProducts().get(names[0]), 10000);
+        client.addOrderedProduct(controller.getProducts().get(names[products - 1]), 15000);
+        return client.priceWithAdditionalDiscount();
+    }
+}
@@ -1,12 +1,48 @@
 package org.beverageproducer;
 
+import org.beverageproducer.cluster.ConsistentHashRing;
+import org.beverageproducer.cluster.LocalCluster;
+import org.beverageproducer.cluster.ShardCoordinator;
 import org.beverageproducer.exceptions.*;
+import org.beverageproducer.io.DiscountTiersFile;
+import org.beverageproducer.io.OrderReader;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.server.PricingServer;
+import org.beverageproducer.service.BatchPricingService;
 import org.beverageproducer.service.Controller;
+import org.beverageproducer.service.OrderPipeline;
+import org.beverageproducer.service.QuoteCache;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Scanner;
 
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 1 && args[0].equals("image")) {
+            writeCatalogImage(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("serve")) {
+            serve(args);
+            return;
+        }
+        if (args.length > 2 && args[0].equals("shard")) {
+            serveShard(args);
+            return;
+        }
+        if (args.length > 1 && args[0].equals("cluster")) {
+            serveCluster(args);
+            return;
+        }
+        if (args.length > 0) {
+            priceOrderFile(args);
+            return;
+        }
         Controller controller = new Controller();
         Scanner scanner = new Scanner(System.in);
         int clientID;
@@ -30,4 +66,113 @@ public class Main {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+
+    //usage: Main image catalog.img [clients], writes the sample catalog as a catalog image
+    //clients after the 5 sample clients repeat their terms, enough of them spread a load test over the shards of a cluster
+    private static void writeCatalogImage(String[] args) {
+        try {
+            Controller controller = new Controller();
+            controller.createClientsAndProducts();
+            int clients = args.length > 2 ? Integer.parseInt(args[2]) : controller.getClients().size();
+            for (int id = controller.getClients().size() + 1; id <= clients; id++) {
+                Client terms = controller.getClients().get((id - 1) % 5 + 1);
+                Client client = new Client(id, terms.getBasicClientDiscountPercent(), 0, 0);
+                client.setDiscountTiers(terms.getDiscountTiers());
+                controller.getClients().put(id, client);
+            }
+            controller.writeCatalogImage(Path.of(args[1]));
+        } catch (InvalidMarkupException | InvalidPercentException | InvalidUnitCostException |
+                 InvalidCountOfItemsException | IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //-Dbeverageproducer.catalogImage=catalog.img loads a catalog image instead of building the sample catalog
+    private static Controller createController()
+            throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException, InvalidCountOfItemsException, IOException {
+        Controller controller = new Controller();
+        String catalogImage = System.getProperty("beverageproducer.catalogImage");
+        if (catalogImage != null) {
+            controller.loadClientsAndProducts(Path.of(catalogImage));
+        } else controller.createClientsAndProducts();
+        return controller;
+    }
+
+    //usage: Main serve [port], runs a PricingServer on the sample catalog until the JVM is stopped
+    private static void serve(String[] args) {
+        try {
+            Controller controller = createController();
+            startServer(controller, args.length > 1 ? Integer.parseInt(args[1]) : 8080);
+        } catch (InvalidMarkupException | InvalidPercentException | InvalidUnitCostException |
+                 InvalidCountOfItemsException | IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //usage: Main shard <shard> <shards> [port], runs a PricingServer that keeps only the clients of its shard
+    //this is a worker of a ShardCoordinator, every worker has the whole catalog
+    private static void serveShard(String[] args) {
+        try {
+            Controller controller = createController();
+            int shard = Integer.parseInt(args[1]);
+            ConsistentHashRing ring = new ConsistentHashRing(Integer.parseInt(args[2]));
+            if (shard < 0 || shard >= ring.getShardCount()) {
+                throw new IllegalArgumentException("Shard " + shard + " of " + ring.getShardCount());
+            }
+            controller.getClients().keySet().removeIf(clientId -> ring.shardOf(clientId) != shard);
+            startServer(controller, args.length > 3 ? Integer.parseInt(args[3]) : 0);
+        } catch (InvalidMarkupException | InvalidPercentException | InvalidUnitCostException |
+                 InvalidCountOfItemsException | IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //usage: Main cluster <workers> [port], starts the workers as local JVMs and a ShardCoordinator in front of them
+    //the workers are stopped with this JVM
+    private static void serveCluster(String[] args) {
+        try {
+            LocalCluster cluster = LocalCluster.start(Integer.parseInt(args[1]), List.of());
+            Runtime.getRuntime().addShutdownHook(new Thread(cluster::close));
+            int port = args.length > 2 ? Integer.parseInt(args[2]) : 8080;
+            ShardCoordinator coordinator = new ShardCoordinator(cluster.getWorkerUris(), new InetSocketAddress(port));
+            coordinator.start();
+            System.out.println("Shard coordinator of " + cluster.getWorkerUris().size()
+                    + " workers listening on port " + coordinator.getPort());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //-Dbeverageproducer.quoteCacheSize=100000 answers repeated quotes from a QuoteCache of that many entries
+    private static void startServer(Controller controller, int port) throws IOException {
+        int quoteCacheSize = Integer.getInteger("beverageproducer.quoteCacheSize", 0);
+        QuoteCache quoteCache = quoteCacheSize > 0 ? new QuoteCache(quoteCacheSize) : null;
+        PricingServer server = new PricingServer(new BatchPricingService(controller, quoteCache), new InetSocketAddress(port));
+        server.start();
+        System.out.println("Pricing server listening on port " + server.getPort());
+    }
+
+    //usage: Main orders.csv|orders.jsonl [invoices.txt], invoices go to stdout without an output file
+    //-Dbeverageproducer.discountTiers=tiers.properties overrides the discount tiers of the clients
+    private static void priceOrderFile(String[] args) {
+        try {
+            Controller controller = createController();
+            String discountTiers = System.getProperty("beverageproducer.discountTiers");
+            if (discountTiers != null) {
+                controller.setDiscountTiers(DiscountTiersFile.read(Path.of(discountTiers)));
+            }
+            OrderPipeline pipeline = new OrderPipeline(new BatchPricingService(controller));
+            if (args.length > 1) {
+                pipeline.run(Path.of(args[0]), Path.of(args[1]));
+            } else {
+                //stdout itself stays open, nothing is buffered in front of the channel
+                try (OrderReader reader = OrderReader.open(Path.of(args[0]))) {
+                    pipeline.run(reader, new FileOutputStream(FileDescriptor.out).getChannel());
+                }
+            }
+        } catch (InvalidMarkupException | InvalidPercentException | InvalidUnitCostException |
+                 InvalidCountOfItemsException | IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.beverageproducer.cluster;
+
+import java.util.Arrays;
+
+//assigns client ids to shards 0..shardCount-1 by consistent hashing
+//every shard owns virtualNodes points on a ring of 64-bit hashes, a client belongs to the shard of the first point
+//at or after the hash of its id, wrapping around
+//the points of a shard only depend on its index, so going from n to n+1 shards only moves the clients that the new
+//shard takes over, about 1/(n+1) of them, and the coordinator and every worker compute the same assignment
+public final class ConsistentHashRing {
+    //keeps the largest shard within a few percent of the average
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+    //clients and ring points are hashed differently so client ids don't land exactly on shard points
+    private static final long CLIENT_SEED = 0x9E3779B97F4A7C15L;
+
+    private final int shardCount;
+    //sorted, owners is parallel to points
+    private final long[] points;
+    private final int[] owners;
+
+    public ConsistentHashRing(int shardCount) {
+        this(shardCount, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashRing(int shardCount, int virtualNodes) {
+        if (shardCount < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("A ring needs at least one shard and one virtual node per shard");
+        }
+        this.shardCount = shardCount;
+        //shard and owner are packed so one sort orders both, a collision of two hashes is broken by the shard index
+        long[][] packed = new long[shardCount * virtualNodes][];
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                packed[shard * virtualNodes + replica] = new long[]{mix(((long) shard << 32) | replica), shard};
+            }
+        }
+        Arrays.sort(packed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        points = new long[packed.length];
+        owners = new int[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            points[i] = packed[i][0];
+            owners[i] = (int) packed[i][1];
+        }
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    //O(log(shards * virtual nodes))
+    public int shardOf(int clientId) {
+        long hash = mix(CLIENT_SEED ^ clientId);
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    //finalizer of MurmurHash3, spreads consecutive ids over the whole ring
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "ConsistentHashRing{" +
+                "shardCount=" + shardCount +
+                ", virtualNodes=" + points.length / shardCount +
+                '}';
+    }
+}
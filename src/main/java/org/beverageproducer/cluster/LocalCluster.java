@@ -0,0 +1,97 @@
+package org.beverageproducer.cluster;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+//starts the workers of a cluster as JVMs on this machine, they listen on free loopback ports
+//every worker runs "Main shard <shard> <shards> 0" on the class path of this JVM and gets its beverageproducer.*
+//system properties, so all of them load the same catalog and keep the clients of their shard
+public class LocalCluster implements AutoCloseable {
+    //printed by Main when a worker is ready
+    static final String READY_LINE = "Pricing server listening on port ";
+
+    private final List<Process> workers;
+    private final List<URI> workerUris;
+
+    private LocalCluster(List<Process> workers, List<URI> workerUris) {
+        this.workers = workers;
+        this.workerUris = workerUris;
+    }
+
+    //returns when every worker accepts requests, jvmOptions are passed to each worker, for example -Xmx512m
+    public static LocalCluster start(int shards, List<String> jvmOptions) throws IOException {
+        if (shards < 1) {
+            throw new IllegalArgumentException("A cluster needs at least one worker");
+        }
+        List<Process> workers = new ArrayList<>();
+        List<URI> workerUris = new ArrayList<>();
+        try {
+            for (int shard = 0; shard < shards; shard++) {
+                workers.add(startWorker(shard, shards, jvmOptions));
+            }
+            //the workers start in parallel, only now wait for each of them
+            for (int shard = 0; shard < shards; shard++) {
+                workerUris.add(URI.create("http://127.0.0.1:" + awaitPort(workers.get(shard), shard)));
+            }
+        } catch (IOException | RuntimeException e) {
+            workers.forEach(Process::destroy);
+            throw e;
+        }
+        return new LocalCluster(List.copyOf(workers), List.copyOf(workerUris));
+    }
+
+    //base URI of the worker of each shard
+    public List<URI> getWorkerUris() {
+        return workerUris;
+    }
+
+    @Override
+    public void close() {
+        workers.forEach(Process::destroy);
+        for (Process worker : workers) {
+            try {
+                worker.waitFor();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static Process startWorker(int shard, int shards, List<String> jvmOptions) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        for (Map.Entry<Object, Object> property : System.getProperties().entrySet()) {
+            if (property.getKey().toString().startsWith("beverageproducer.")) {
+                command.add("-D" + property.getKey() + "=" + property.getValue());
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("org.beverageproducer.Main");
+        command.add("shard");
+        command.add(String.valueOf(shard));
+        command.add(String.valueOf(shards));
+        command.add("0");
+        return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    }
+
+    private static int awaitPort(Process worker, int shard) throws IOException {
+        BufferedReader output = new BufferedReader(new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = output.readLine()) != null) {
+            if (line.startsWith(READY_LINE)) {
+                return Integer.parseInt(line.substring(READY_LINE.length()).trim());
+            }
+        }
+        throw new IOException("Worker of shard " + shard + " exited before it was ready");
+    }
+}
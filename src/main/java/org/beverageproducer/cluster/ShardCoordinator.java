@@ -0,0 +1,244 @@
+package org.beverageproducer.cluster;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.beverageproducer.io.Json;
+import org.beverageproducer.server.PricingServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+//front of a cluster of PricingServer workers, each holding the clients of one shard of a ConsistentHashRing
+//and a copy of the whole product catalog
+//POST /quote       is routed to the worker of the clientId of the request, its response is passed through
+//POST /promotions  is sent to every worker so their catalogs stay the same
+//                  -> {"catalogVersion":2,"catalogVersions":[2,2,2]}, the version of shard 0 and of every shard
+//                  the update carries an "updateId", the caller's or a new one, workers apply an id only once,
+//                  so a shard that can't be reached or fails with 5xx is retried without applying it twice
+//                  a shard still failing after the retries leaves the catalogs different, the answer is then
+//                  502 {"error":...,"updateId":...,"failedShards":[1]} and the caller has to send the update
+//                  again with that updateId, the shards that already applied it only answer again
+//                  a request every shard rejects is answered with the rejection of shard 0
+//workers are called asynchronously, a request holds no coordinator thread while its worker prices it
+public class ShardCoordinator {
+    private static final int BACKLOG = 8192;
+    static final int PROMOTION_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 100;
+
+    static {
+        //same reason as in PricingServer, the coordinator is usually the first server of its JVM
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ConsistentHashRing ring;
+    //worker base URIs by shard
+    private final URI[] quoteUris;
+    private final URI[] promotionUris;
+    private final HttpClient client;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    //workers.get(shard) is the base URI of the worker of that shard, for example http://127.0.0.1:8081
+    public ShardCoordinator(List<URI> workers, InetSocketAddress address) throws IOException {
+        if (workers.isEmpty()) {
+            throw new IllegalArgumentException("A cluster needs at least one worker");
+        }
+        this.ring = new ConsistentHashRing(workers.size());
+        this.quoteUris = new URI[workers.size()];
+        this.promotionUris = new URI[workers.size()];
+        for (int shard = 0; shard < workers.size(); shard++) {
+            quoteUris[shard] = workers.get(shard).resolve("/quote");
+            promotionUris[shard] = workers.get(shard).resolve("/promotions");
+        }
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        this.server = HttpServer.create(address, BACKLOG);
+        //handlers only parse the request and hand it to the client, one thread per core is enough
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        server.setExecutor(executor);
+        server.createContext("/quote", exchange -> handle(exchange, this::quote));
+        server.createContext("/promotions", exchange -> handle(exchange, this::updatePromotion));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public ConsistentHashRing getRing() {
+        return ring;
+    }
+
+    //a client id that isn't an int is rejected here instead of being routed by a truncated value
+    private CompletableFuture<Reply> quote(String body) {
+        Object clientId = Json.parseObject(body).get("clientId");
+        if (!(clientId instanceof BigDecimal)) {
+            throw new IllegalArgumentException("Expected clientId as a number");
+        }
+        int id;
+        try {
+            id = ((BigDecimal) clientId).intValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Expected clientId as an int");
+        }
+        return forward(quoteUris[ring.shardOf(id)], body)
+                .thenApply(response -> new Reply(response.statusCode(), response.body()));
+    }
+
+    private CompletableFuture<Reply> updatePromotion(String body) {
+        Object callerUpdateId = Json.parseObject(body).get("updateId");
+        if (callerUpdateId != null && !(callerUpdateId instanceof String)) {
+            throw new IllegalArgumentException("Expected updateId as a string");
+        }
+        String updateId = callerUpdateId != null ? (String) callerUpdateId : UUID.randomUUID().toString();
+        String update = callerUpdateId != null ? body : withUpdateId(body, updateId);
+        List<CompletableFuture<Reply>> replies = new ArrayList<>(promotionUris.length);
+        for (int shard = 0; shard < promotionUris.length; shard++) {
+            replies.add(updatePromotion(shard, update, 1));
+        }
+        return CompletableFuture.allOf(replies.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            List<Integer> failedShards = new ArrayList<>();
+            List<Object> catalogVersions = new ArrayList<>(replies.size());
+            for (int shard = 0; shard < replies.size(); shard++) {
+                Reply reply = replies.get(shard).join();
+                if (reply.status != 200) {
+                    failedShards.add(shard);
+                } else catalogVersions.add(Json.parseObject(reply.body).get("catalogVersion"));
+            }
+            if (failedShards.isEmpty()) {
+                return new Reply(200, "{\"catalogVersion\":" + catalogVersions.get(0)
+                        + ",\"catalogVersions\":" + catalogVersions + "}");
+            }
+            Reply first = replies.get(0).join();
+            if (failedShards.size() == replies.size() && first.status >= 400 && first.status < 500) {
+                //rejected by every shard, nothing changed
+                return first;
+            }
+            return new Reply(502, "{\"error\":" + Json.quote("Promotion not applied on every shard, send it again")
+                    + ",\"updateId\":" + Json.quote(updateId) + ",\"failedShards\":" + failedShards + "}");
+        });
+    }
+
+    //never completes exceptionally, a shard that can't be reached after the last attempt answers 502
+    private CompletableFuture<Reply> updatePromotion(int shard, String body, int attempt) {
+        return forward(promotionUris[shard], body).handle((response, failure) -> {
+            if (failure == null && response.statusCode() < 500) {
+                return CompletableFuture.completedFuture(new Reply(response.statusCode(), response.body()));
+            }
+            if (attempt == PROMOTION_ATTEMPTS) {
+                return CompletableFuture.completedFuture(failure != null
+                        ? new Reply(502, error("Worker unavailable: " + failure))
+                        : new Reply(response.statusCode(), response.body()));
+            }
+            Executor delayed = CompletableFuture.delayedExecutor(RETRY_DELAY_MILLIS * attempt, TimeUnit.MILLISECONDS);
+            return CompletableFuture.supplyAsync(() -> null, delayed)
+                    .thenCompose(ignored -> updatePromotion(shard, body, attempt + 1));
+        }).thenCompose(reply -> reply);
+    }
+
+    //the update id goes first, the rest of the caller's object is passed on as it is
+    private static String withUpdateId(String body, String updateId) {
+        String fields = body.trim().substring(1).trim();
+        return "{\"updateId\":" + Json.quote(updateId) + (fields.startsWith("}") ? "" : ",") + fields;
+    }
+
+    private CompletableFuture<HttpResponse<String>> forward(URI uri, String body) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    //the exchange is completed by the callback of the worker response, after the handler has returned
+    private void handle(HttpExchange exchange, Router router) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            respond(exchange, 405, error("Method not allowed"));
+            return;
+        }
+        CompletableFuture<Reply> response;
+        try {
+            response = router.route(readBody(exchange));
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, error(e.getMessage()));
+            return;
+        }
+        response.whenComplete((reply, failure) -> {
+            try {
+                if (failure != null) {
+                    respond(exchange, 502, error("Worker unavailable: " + failure));
+                } else respond(exchange, reply.status, reply.body);
+            } catch (IOException e) {
+                //the caller has gone away, there is nobody left to answer
+                exchange.close();
+            }
+        });
+    }
+
+    //the workers' limit, a larger body is rejected here instead of being forwarded
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readNBytes(PricingServer.MAX_BODY_BYTES + 1);
+            if (bytes.length > PricingServer.MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body over " + PricingServer.MAX_BODY_BYTES + " bytes");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        try (exchange) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(String.valueOf(message)) + "}";
+    }
+
+    private interface Router {
+        CompletableFuture<Reply> route(String body);
+    }
+
+    //the answer sent to the caller
+    private static final class Reply {
+        private final int status;
+        private final String body;
+
+        private Reply(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
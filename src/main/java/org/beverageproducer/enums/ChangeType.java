@@ -0,0 +1,7 @@
+package org.beverageproducer.enums;
+
+//record types of the persistent change log, the ordinal is stored so new types are only appended
+public enum ChangeType {
+    ADD_PRODUCT, PRODUCT_PRICE, PERCENT_PROMOTION, FREE_ITEMS_PROMOTION, PROMOTION_RULE, REMOVE_PROMOTION,
+    ADD_CLIENT, CLIENT_DISCOUNTS, ORDER_LINE, REMOVE_LINE
+}
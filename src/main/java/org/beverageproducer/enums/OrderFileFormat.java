@@ -0,0 +1,13 @@
+package org.beverageproducer.enums;
+
+public enum OrderFileFormat {
+    CSV, JSON_LINES;
+
+    public static OrderFileFormat of(String fileName) {
+        String lowerCase = fileName.toLowerCase();
+        if (lowerCase.endsWith(".jsonl") || lowerCase.endsWith(".ndjson")) {
+            return JSON_LINES;
+        }
+        return CSV;
+    }
+}
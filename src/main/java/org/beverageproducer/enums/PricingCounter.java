@@ -0,0 +1,8 @@
+package org.beverageproducer.enums;
+
+//events counted by PricingMetrics
+public enum PricingCounter {
+    QUOTES_BUILT, ORDERS_PRICED, LINES_PRICED, NEGATIVE_COUNT_OF_ITEMS_EXCEPTIONS, INVALID_COUNT_OF_ITEMS_EXCEPTIONS,
+    REJECTED_LINES, QUOTE_CACHE_HITS, QUOTE_CACHE_MISSES, QUOTE_CACHE_EVICTIONS, QUOTE_CACHE_INVALIDATIONS,
+    BASKETS_REPRICED
+}
@@ -0,0 +1,7 @@
+package org.beverageproducer.enums;
+
+//pricing calls whose latency is recorded by PricingMetrics, only calls that return a price are recorded
+//quotes and orders are timed, single lines are only counted, see PricingCounter.LINES_PRICED
+public enum PricingOperation {
+    CLIENT_SUM_OF_ORDERS, CLIENT_PRICE_WITH_BASIC_DISCOUNT, CLIENT_PRICE_WITH_ADDITIONAL_DISCOUNT, ORDER_PRICING
+}
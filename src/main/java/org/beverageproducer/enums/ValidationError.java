@@ -0,0 +1,6 @@
+package org.beverageproducer.enums;
+
+//reasons a line is rejected by the validating pricing methods, they match the exceptions of the throwing ones
+public enum ValidationError {
+    NEGATIVE_COUNT_OF_ITEMS, INVALID_COUNT_OF_ITEMS, UNKNOWN_PRODUCT, UNKNOWN_CLIENT
+}
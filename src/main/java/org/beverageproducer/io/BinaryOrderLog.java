@@ -0,0 +1,16 @@
+package org.beverageproducer.io;
+
+import java.nio.ByteOrder;
+
+//fixed width binary order records: int client id, int product name, int quantity
+//the file starts with a header of MAGIC and VERSION, consecutive records of the same client are one order
+public final class BinaryOrderLog {
+    public static final int MAGIC = 0x4250_4f4c;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 8;
+    public static final int RECORD_SIZE = 12;
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private BinaryOrderLog() {
+    }
+}
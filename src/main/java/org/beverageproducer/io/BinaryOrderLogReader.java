@@ -0,0 +1,131 @@
+package org.beverageproducer.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+//memory maps a binary order log and hands the records straight from the mapping to a consumer
+//the file can be split into regions that don't cut an order in two, each region can be scanned by its own thread
+public class BinaryOrderLogReader implements Closeable {
+    //a mapping can't be bigger than 2GB, the window is a whole number of records
+    private static final long WINDOW_SIZE = (Integer.MAX_VALUE / BinaryOrderLog.RECORD_SIZE) * (long) BinaryOrderLog.RECORD_SIZE;
+    private final FileChannel channel;
+    private final long recordCount;
+
+    private BinaryOrderLogReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size < BinaryOrderLog.HEADER_SIZE || readInt(0) != BinaryOrderLog.MAGIC || readInt(4) != BinaryOrderLog.VERSION) {
+            throw new IOException("Not a binary order log");
+        }
+        if ((size - BinaryOrderLog.HEADER_SIZE) % BinaryOrderLog.RECORD_SIZE != 0) {
+            throw new IOException("Truncated binary order log");
+        }
+        recordCount = (size - BinaryOrderLog.HEADER_SIZE) / BinaryOrderLog.RECORD_SIZE;
+    }
+
+    public static BinaryOrderLogReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new BinaryOrderLogReader(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public Region all() {
+        return new Region(0, recordCount);
+    }
+
+    //at most the requested number of regions, every boundary is moved forward to the first record of the next order
+    public List<Region> split(int regions) throws IOException {
+        List<Region> result = new ArrayList<>(regions);
+        long start = 0;
+        for (int i = 1; i <= regions && start < recordCount; i++) {
+            long end = i == regions ? recordCount : Math.max(start, recordCount * i / regions);
+            if (end < recordCount && end > 0) {
+                int clientId = clientIdAt(end - 1);
+                while (end < recordCount && clientIdAt(end) == clientId) {
+                    end++;
+                }
+            }
+            if (end > start) {
+                result.add(new Region(start, end));
+                start = end;
+            }
+        }
+        return result;
+    }
+
+    public void scan(Region region, OrderRecordConsumer consumer) throws IOException {
+        long record = region.getFirstRecord();
+        while (record < region.getEndRecord()) {
+            long position = BinaryOrderLog.HEADER_SIZE + record * BinaryOrderLog.RECORD_SIZE;
+            long size = Math.min(WINDOW_SIZE, (region.getEndRecord() - record) * BinaryOrderLog.RECORD_SIZE);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            window.order(BinaryOrderLog.BYTE_ORDER);
+            int limit = (int) size;
+            for (int offset = 0; offset < limit; offset += BinaryOrderLog.RECORD_SIZE) {
+                consumer.accept(window.getInt(offset), (char) window.getInt(offset + 4), window.getInt(offset + 8));
+            }
+            record += size / BinaryOrderLog.RECORD_SIZE;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int clientIdAt(long record) throws IOException {
+        return readInt(BinaryOrderLog.HEADER_SIZE + record * BinaryOrderLog.RECORD_SIZE);
+    }
+
+    private int readInt(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4).order(BinaryOrderLog.BYTE_ORDER);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of binary order log");
+            }
+        }
+        return buffer.getInt(0);
+    }
+
+    //records [firstRecord, endRecord)
+    public static class Region {
+        private final long firstRecord;
+        private final long endRecord;
+
+        public Region(long firstRecord, long endRecord) {
+            this.firstRecord = firstRecord;
+            this.endRecord = endRecord;
+        }
+
+        public long getFirstRecord() {
+            return firstRecord;
+        }
+
+        public long getEndRecord() {
+            return endRecord;
+        }
+
+        @Override
+        public String toString() {
+            return "Region{" +
+                    "firstRecord=" + firstRecord +
+                    ", endRecord=" + endRecord +
+                    '}';
+        }
+    }
+}
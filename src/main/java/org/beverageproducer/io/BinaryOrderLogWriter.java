@@ -0,0 +1,57 @@
+package org.beverageproducer.io;
+
+import org.beverageproducer.models.Order;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class BinaryOrderLogWriter implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    private BinaryOrderLogWriter(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BinaryOrderLog.RECORD_SIZE * 8192).order(BinaryOrderLog.BYTE_ORDER);
+        buffer.putInt(BinaryOrderLog.MAGIC).putInt(BinaryOrderLog.VERSION);
+    }
+
+    //an existing file is replaced
+    public static BinaryOrderLogWriter create(Path path) throws IOException {
+        return new BinaryOrderLogWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    public void append(int clientId, char productName, int quantity) throws IOException {
+        if (buffer.remaining() < BinaryOrderLog.RECORD_SIZE) {
+            flush();
+        }
+        buffer.putInt(clientId).putInt(productName).putInt(quantity);
+    }
+
+    public void append(Order order) throws IOException {
+        for (int line = 0; line < order.getLineCount(); line++) {
+            append(order.getClientId(), order.getProductName(line), order.getQuantity(line));
+        }
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
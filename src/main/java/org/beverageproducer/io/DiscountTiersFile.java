@@ -0,0 +1,50 @@
+package org.beverageproducer.io;
+
+import org.beverageproducer.exceptions.InvalidCountOfItemsException;
+import org.beverageproducer.exceptions.InvalidPercentException;
+import org.beverageproducer.models.DiscountTiers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+//discount tiers of the clients as a properties file, one line per client:
+//client.1=10000:1,30000:2,100000:4
+//other keys are ignored so the tiers can share a file with other settings
+public final class DiscountTiersFile {
+    private static final String CLIENT_PREFIX = "client.";
+
+    private DiscountTiersFile() {
+    }
+
+    public static Map<Integer, DiscountTiers> read(Path path) throws IOException, InvalidCountOfItemsException, InvalidPercentException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    //throws IllegalArgumentException for a client id or tier that can't be read
+    public static Map<Integer, DiscountTiers> read(Reader reader) throws IOException, InvalidCountOfItemsException, InvalidPercentException {
+        Properties properties = new Properties();
+        properties.load(reader);
+        Map<Integer, DiscountTiers> tiers = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.startsWith(CLIENT_PREFIX)) {
+                continue;
+            }
+            int clientId;
+            try {
+                clientId = Integer.parseInt(key.substring(CLIENT_PREFIX.length()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid client id in " + key);
+            }
+            tiers.put(clientId, DiscountTiers.parse(properties.getProperty(key)));
+        }
+        return tiers;
+    }
+}
@@ -0,0 +1,94 @@
+package org.beverageproducer.io;
+
+import org.beverageproducer.models.PricedLine;
+import org.beverageproducer.models.PricedOrder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+//the invoice text Controller.startApplication prints
+//amounts are written digit by digit into the builder, the same text as BigDecimal.toString without building
+//a rounded BigDecimal and a String per field
+public final class InvoiceFormatter {
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    //10^0 .. 10^18
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private InvoiceFormatter() {
+    }
+
+    public static String format(PricedOrder order) {
+        StringBuilder builder = new StringBuilder(256);
+        format(order, builder);
+        return builder.toString();
+    }
+
+    public static void format(PricedOrder order, StringBuilder builder) {
+        for (PricedLine line : order.getLines()) {
+            builder.append(line.getProductName()).append(" {")
+                    .append(line.getQuantity()).append(", ");
+            appendCentsUp(builder, line.getUnitCost());
+            builder.append(", ");
+            if (line.isPromoted()) {
+                appendCentsUp(builder, line.getPricePerItem());
+                builder.append(", ");
+            }
+            appendCentsUp(builder, line.getPrice());
+            builder.append('}').append(LINE_SEPARATOR);
+        }
+        builder.append("Total amount before discounts: EUR ");
+        appendAmount(builder, order.getSumOfOrders());
+        builder.append(LINE_SEPARATOR).append("Price with basic client discount: EUR ");
+        appendAmount(builder, order.getPriceWithBasicDiscount());
+        builder.append(LINE_SEPARATOR).append("Price with additional client discount: EUR ");
+        appendAmount(builder, order.getPriceWithAdditionalDiscount());
+        builder.append(LINE_SEPARATOR);
+    }
+
+    //same as append(amount.setScale(2, RoundingMode.UP))
+    static void appendCentsUp(StringBuilder builder, BigDecimal amount) {
+        int scale = amount.scale();
+        //the cents have to fit in a long
+        if (scale < 0 || scale >= POWERS_OF_TEN.length || amount.precision() + Math.max(0, 2 - scale) > 18) {
+            builder.append(amount.setScale(2, RoundingMode.UP));
+            return;
+        }
+        long unscaled = amount.unscaledValue().longValue();
+        long cents;
+        if (scale <= 2) {
+            cents = unscaled * POWERS_OF_TEN[2 - scale];
+        } else {
+            long divisor = POWERS_OF_TEN[scale - 2];
+            cents = unscaled / divisor;
+            if (unscaled % divisor != 0) {
+                cents += unscaled > 0 ? 1 : -1;
+            }
+        }
+        appendCents(builder, cents);
+    }
+
+    //same as append(amount), amounts with 2 decimals are written without BigDecimal.toString
+    static void appendAmount(StringBuilder builder, BigDecimal amount) {
+        if (amount.scale() != 2 || amount.precision() > 18) {
+            builder.append(amount);
+            return;
+        }
+        appendCents(builder, amount.unscaledValue().longValue());
+    }
+
+    private static void appendCents(StringBuilder builder, long cents) {
+        if (cents < 0) {
+            builder.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        builder.append(cents / 100).append('.').append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+    }
+}
@@ -0,0 +1,261 @@
+package org.beverageproducer.io;
+
+import org.beverageproducer.models.PricedOrder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+//renders invoices on its own thread and writes them to a channel in large batches, in the order they were submitted
+//pricing threads only hand over priced orders, the formatting, encoding and I/O happen on the renderer thread
+//the queue is bounded, submit only waits while it is full, so a slow disk or console slows the producers down
+//instead of filling the heap
+//the text and its bytes are built in buffers that are reused for every batch
+//several threads may submit, their invoices are written in the order of the calls
+//if the renderer thread is interrupted or dies the writer fails and closes, producers waiting on it get the failure
+public class InvoiceWriter implements AutoCloseable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 1 << 16;
+    //marks the end of the queue
+    private static final Object END = new Object();
+
+    private final WritableByteChannel channel;
+    private final BlockingQueue<Object> queue;
+    private final int batchSize;
+    private final Thread renderer;
+    private final StringBuilder text;
+    private char[] chars;
+    private final ByteBuffer bytes;
+    //a lone surrogate in a product name is written as '?', like by a Writer
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    //set by the renderer when the channel failed, later calls rethrow it
+    private volatile IOException failure;
+    private volatile long writtenOrders;
+    private volatile boolean closed;
+    //set when the renderer has stopped, nothing takes from the queue anymore
+    private volatile boolean stopped;
+
+    public InvoiceWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    //batchSize is the number of characters rendered before they are written, the buffers are sized by it
+    public InvoiceWriter(WritableByteChannel channel, int queueCapacity, int batchSize) {
+        if (queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Queue capacity and batch size have to be positive");
+        }
+        this.channel = channel;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.text = new StringBuilder(batchSize + 1024);
+        this.chars = new char[batchSize + 1024];
+        //UTF-8 takes at most 3 bytes per char of a StringBuilder, a supplementary pair takes 4 for 2 chars
+        this.bytes = ByteBuffer.allocate(batchSize * 3 + 1024);
+        this.renderer = new Thread(this::render, "invoice-writer");
+        renderer.setDaemon(true);
+        renderer.start();
+    }
+
+    //waits only while the queue is full
+    public void submit(PricedOrder order) throws IOException {
+        put(order);
+    }
+
+    //hands the orders over as one element, callers that price in chunks wake the renderer once per chunk
+    public void submitAll(List<PricedOrder> orders) throws IOException {
+        if (!orders.isEmpty()) {
+            put(List.copyOf(orders));
+        }
+    }
+
+    //returns when every invoice submitted before is written to the channel
+    public void flush() throws IOException {
+        CountDownLatch written = new CountDownLatch(1);
+        put(written);
+        try {
+            written.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        checkFailure();
+    }
+
+    //writes the remaining invoices and stops the renderer, the channel is not closed
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            checkFailure();
+            return;
+        }
+        closed = true;
+        try {
+            //even after a failure, so the renderer stops
+            queue.put(END);
+            renderer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        checkFailure();
+    }
+
+    public long getWrittenOrders() {
+        return writtenOrders;
+    }
+
+    private void put(Object element) throws IOException {
+        checkFailure();
+        if (closed) {
+            throw new IOException("Invoice writer is closed");
+        }
+        try {
+            queue.put(element);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        if (stopped) {
+            //the renderer stopped after the checks above, its last drain may have missed this element
+            releaseQueue();
+            checkFailure();
+            throw new IOException("Invoice writer is closed");
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        IOException current = failure;
+        if (current != null) {
+            throw new IOException("Writing invoices failed", current);
+        }
+    }
+
+    //an interrupt or an Error ends the renderer with a failure, in any case the queue is emptied when it stops
+    //so producers waiting for space or for a flush wake up and fail instead of waiting forever
+    private void render() {
+        Throwable cause = null;
+        try {
+            renderBatches();
+        } catch (InterruptedException e) {
+            cause = e;
+        } catch (RuntimeException | Error e) {
+            cause = e;
+            throw e;
+        } finally {
+            if (cause != null) {
+                if (failure == null) {
+                    failure = new IOException("Invoice renderer stopped", cause);
+                }
+                closed = true;
+            }
+            stopped = true;
+            releaseQueue();
+        }
+    }
+
+    //drops what is left in the queue, a flush waiting for it is released
+    private void releaseQueue() {
+        List<Object> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (Object element : left) {
+            if (element instanceof CountDownLatch) {
+                ((CountDownLatch) element).countDown();
+            }
+        }
+    }
+
+    //takes everything that is queued at once and writes when the batch is full or the queue is empty
+    private void renderBatches() throws InterruptedException {
+        List<Object> batch = new ArrayList<>();
+        long rendered = 0;
+        while (true) {
+            batch.add(queue.take());
+            queue.drainTo(batch);
+            boolean end = false;
+            for (Object element : batch) {
+                if (element instanceof PricedOrder) {
+                    rendered = render((PricedOrder) element, rendered);
+                } else if (element instanceof List) {
+                    for (Object order : (List<?>) element) {
+                        rendered = render((PricedOrder) order, rendered);
+                    }
+                } else if (element instanceof CountDownLatch) {
+                    write(rendered);
+                    ((CountDownLatch) element).countDown();
+                } else end = true;
+            }
+            batch.clear();
+            write(rendered);
+            if (end) {
+                return;
+            }
+        }
+    }
+
+    //a failure here must not stop the renderer, producers waiting for space in the queue would never wake up
+    private long render(PricedOrder order, long rendered) {
+        if (failure != null) {
+            return rendered;
+        }
+        try {
+            InvoiceFormatter.format(order, text);
+        } catch (RuntimeException e) {
+            failure = new IOException("Rendering invoice failed", e);
+            return rendered;
+        }
+        if (text.length() >= batchSize) {
+            write(rendered + 1);
+        }
+        return rendered + 1;
+    }
+
+    //a failed channel isn't written again, the invoices after the failure are dropped and the producers get the failure
+    private void write(long rendered) {
+        if (text.length() == 0 || failure != null) {
+            text.setLength(0);
+            return;
+        }
+        try {
+            //the encoder is only fast on arrays, a wrapped StringBuilder is read char by char
+            if (chars.length < text.length()) {
+                chars = new char[text.length()];
+            }
+            text.getChars(0, text.length(), chars, 0);
+            CharBuffer input = CharBuffer.wrap(chars, 0, text.length());
+            encoder.reset();
+            CoderResult result;
+            do {
+                result = encoder.encode(input, bytes, true);
+                writeBytes();
+            } while (result.isOverflow());
+            encoder.flush(bytes);
+            writeBytes();
+            writtenOrders = rendered;
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            text.setLength(0);
+        }
+    }
+
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
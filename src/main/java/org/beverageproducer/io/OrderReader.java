@@ -0,0 +1,204 @@
+package org.beverageproducer.io;
+
+import org.beverageproducer.enums.OrderFileFormat;
+import org.beverageproducer.models.Order;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+//streams orders from CSV rows (client id,product,quantity) or JSON lines ({"clientId":1,"product":"A","quantity":10})
+//consecutive rows of the same client are one order, only the order being read is kept in memory
+//a run longer than MAX_LINES_PER_ORDER is split, it is read as several orders of that client that are priced on their own
+public class OrderReader implements Iterator<Order>, Closeable {
+    public static final int MAX_LINES_PER_ORDER = 1024;
+    private final BufferedReader reader;
+    private final OrderFileFormat format;
+    private long lineNumber;
+    //a CSV header is only looked for in the first row that isn't blank
+    private boolean firstRow = true;
+    private Order next;
+    //the row that ended the previous order, it starts the next one
+    private boolean pending;
+    private int pendingClientId;
+    private char pendingProduct;
+    private int pendingQuantity;
+    //lines of the order being read, reused for every order
+    private char[] products = new char[16];
+    private int[] quantities = new int[16];
+
+    public OrderReader(BufferedReader reader, OrderFileFormat format) {
+        this.reader = reader;
+        this.format = format;
+    }
+
+    public static OrderReader open(Path path) throws IOException {
+        return new OrderReader(Files.newBufferedReader(path, StandardCharsets.UTF_8), OrderFileFormat.of(path.getFileName().toString()));
+    }
+
+    public Stream<Order> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readOrder();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Order next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Order order = next;
+        next = null;
+        return order;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Order readOrder() throws IOException {
+        if (!pending && !readRow()) {
+            return null;
+        }
+        int clientId = pendingClientId;
+        int lines = 0;
+        do {
+            if (lines == products.length) {
+                products = Arrays.copyOf(products, lines * 2);
+                quantities = Arrays.copyOf(quantities, lines * 2);
+            }
+            products[lines] = pendingProduct;
+            quantities[lines++] = pendingQuantity;
+            pending = false;
+        } while (lines < MAX_LINES_PER_ORDER && readRow() && pendingClientId == clientId);
+        return new Order(clientId, Arrays.copyOf(products, lines), Arrays.copyOf(quantities, lines));
+    }
+
+    //reads the next row into the pending fields, blank lines and a CSV header are skipped
+    private boolean readRow() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            //a UTF-8 byte order mark is read as the first char of the file
+            if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == OrderFileFormat.JSON_LINES) {
+                parseJson(line);
+                pending = true;
+                return true;
+            }
+            boolean header = firstRow;
+            firstRow = false;
+            if (parseCsv(line, header)) {
+                pending = true;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean parseCsv(String line, boolean header) {
+        int first = line.indexOf(',');
+        int second = first < 0 ? -1 : line.indexOf(',', first + 1);
+        if (second < 0 || line.indexOf(',', second + 1) >= 0) {
+            throw error("Expected client id,product,quantity");
+        }
+        String clientId = line.substring(0, first).trim();
+        if (header && !clientId.isEmpty() && !Character.isDigit(clientId.charAt(clientId.length() - 1))) {
+            return false;
+        }
+        pendingClientId = parseInt(clientId);
+        pendingProduct = parseProduct(unquote(line.substring(first + 1, second).trim()));
+        pendingQuantity = parseInt(line.substring(second + 1).trim());
+        return true;
+    }
+
+    private void parseJson(String line) {
+        Map<String, Object> row;
+        try {
+            row = Json.parseObject(line);
+        } catch (IllegalArgumentException e) {
+            throw error(e.getMessage());
+        }
+        pendingClientId = intField(row, "clientId");
+        Object product = row.get("product");
+        if (!(product instanceof String)) {
+            throw error("Expected product as a string");
+        }
+        pendingProduct = parseProduct((String) product);
+        pendingQuantity = intField(row, "quantity");
+    }
+
+    private int intField(Map<String, Object> row, String name) {
+        Object value = row.get(name);
+        if (!(value instanceof BigDecimal)) {
+            throw error("Expected " + name + " as a number");
+        }
+        try {
+            return ((BigDecimal) value).intValueExact();
+        } catch (ArithmeticException e) {
+            throw error("Expected " + name + " as an int");
+        }
+    }
+
+    private int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number '" + value + "'");
+        }
+    }
+
+    private char parseProduct(String value) {
+        if (value.length() != 1) {
+            throw error("Invalid product '" + value + "'");
+        }
+        return value.charAt(0);
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Line " + lineNumber + ": " + message);
+    }
+}
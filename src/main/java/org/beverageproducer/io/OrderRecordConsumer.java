@@ -0,0 +1,5 @@
+package org.beverageproducer.io;
+
+public interface OrderRecordConsumer {
+    void accept(int clientId, char productName, int quantity);
+}
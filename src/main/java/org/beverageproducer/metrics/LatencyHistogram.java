@@ -0,0 +1,108 @@
+package org.beverageproducer.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+//log-linear histogram of nanosecond latencies in the style of HdrHistogram
+//every power of two is split into 32 buckets so a recorded value is off by at most 1/32 (about 3%)
+//buckets are striped by thread so recording threads rarely write the same cache line, there are up to four stripes per core
+//a stripe is only allocated when a thread first records into it, so a histogram only few threads record into stays small
+public final class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    //values from 2^40 ns (about 18 minutes) up are counted in the last bucket
+    static final int MAX_MAGNITUDE = 40;
+    static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    //a power of two, at most 64
+    private static final int STRIPES = Math.min(64, Integer.highestOneBit(Math.max(2, Runtime.getRuntime().availableProcessors()) * 4 - 1));
+
+    //null until the first value of the stripe is recorded
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPES);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    //negative values are counted as 0
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        //spreads the thread ids of a pool, which are usually consecutive, over the stripes
+        int hash = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        stripe((hash ^ (hash >>> 16)) & (STRIPES - 1)).incrementAndGet(bucketOf(value));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    //not atomic with concurrent recording, a snapshot may miss values recorded while it is taken
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int index = 0; index < STRIPES; index++) {
+            AtomicLongArray stripe = stripes.get(index);
+            if (stripe == null) {
+                continue;
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+        }
+        return new HistogramSnapshot(counts, sum.sum(), max.get());
+    }
+
+    public void reset() {
+        for (int index = 0; index < STRIPES; index++) {
+            AtomicLongArray stripe = stripes.get(index);
+            if (stripe == null) {
+                continue;
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                stripe.set(i, 0);
+            }
+        }
+        sum.reset();
+        max.reset();
+    }
+
+    private AtomicLongArray stripe(int index) {
+        AtomicLongArray stripe = stripes.get(index);
+        if (stripe == null) {
+            //two threads may race to create it, the loser drops its array and uses the winner's
+            stripes.compareAndSet(index, null, new AtomicLongArray(BUCKETS));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+
+    //number of stripes that were allocated
+    int allocatedStripes() {
+        int allocated = 0;
+        for (int index = 0; index < STRIPES; index++) {
+            if (stripes.get(index) != null) {
+                allocated++;
+            }
+        }
+        return allocated;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    //highest value that falls into the bucket
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        long lowest = (1L << magnitude) + ((long) subBucket << (magnitude - SUB_BUCKET_BITS));
+        return lowest + (1L << (magnitude - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,68 @@
+package org.beverageproducer.metrics;
+
+import org.beverageproducer.enums.PricingCounter;
+import org.beverageproducer.enums.PricingOperation;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+//latencies and counters of PricingMetrics at one point in time
+public final class MetricsSnapshot {
+    private static final double[] EXPORTED_PERCENTILES = {50, 90, 99, 99.9};
+    private final Map<PricingOperation, HistogramSnapshot> latencies;
+    private final Map<PricingCounter, Long> counters;
+
+    MetricsSnapshot(EnumMap<PricingOperation, HistogramSnapshot> latencies, EnumMap<PricingCounter, Long> counters) {
+        this.latencies = Collections.unmodifiableMap(latencies);
+        this.counters = Collections.unmodifiableMap(counters);
+    }
+
+    public HistogramSnapshot getLatency(PricingOperation operation) {
+        return latencies.get(operation);
+    }
+
+    public long getCounter(PricingCounter counter) {
+        return counters.get(counter);
+    }
+
+    public Map<PricingOperation, HistogramSnapshot> getLatencies() {
+        return latencies;
+    }
+
+    public Map<PricingCounter, Long> getCounters() {
+        return counters;
+    }
+
+    //Prometheus text format, latencies as summaries in nanoseconds
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append("# TYPE pricing_latency_nanos summary\n");
+        for (Map.Entry<PricingOperation, HistogramSnapshot> entry : latencies.entrySet()) {
+            String operation = entry.getKey().name().toLowerCase();
+            HistogramSnapshot histogram = entry.getValue();
+            for (double percentile : EXPORTED_PERCENTILES) {
+                text.append("pricing_latency_nanos{operation=\"").append(operation)
+                        .append("\",quantile=\"").append(BigDecimal.valueOf(percentile).movePointLeft(2).stripTrailingZeros().toPlainString()).append("\"} ")
+                        .append(histogram.getValueAtPercentile(percentile)).append('\n');
+            }
+            text.append("pricing_latency_nanos_sum{operation=\"").append(operation).append("\"} ").append(histogram.getSum()).append('\n');
+            text.append("pricing_latency_nanos_count{operation=\"").append(operation).append("\"} ").append(histogram.getCount()).append('\n');
+        }
+        for (Map.Entry<PricingCounter, Long> entry : counters.entrySet()) {
+            String name = "pricing_" + entry.getKey().name().toLowerCase() + "_total";
+            text.append("# TYPE ").append(name).append(" counter\n");
+            text.append(name).append(' ').append(entry.getValue()).append('\n');
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{" +
+                "latencies=" + latencies +
+                ", counters=" + counters +
+                '}';
+    }
+}
@@ -0,0 +1,73 @@
+package org.beverageproducer.metrics;
+
+import org.beverageproducer.enums.PricingCounter;
+import org.beverageproducer.enums.PricingOperation;
+
+import java.util.EnumMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//process wide latencies and counters of the pricing hot paths
+//on by default, -Dbeverageproducer.metrics=false turns it off, ENABLED is a constant so the JIT removes every disabled call
+//usage: long start = PricingMetrics.start(); ... PricingMetrics.record(operation, start);
+public final class PricingMetrics {
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("beverageproducer.metrics"));
+    private static final PricingOperation[] OPERATIONS = PricingOperation.values();
+    private static final PricingCounter[] COUNTERS = PricingCounter.values();
+    private static final LatencyHistogram[] LATENCIES = new LatencyHistogram[OPERATIONS.length];
+    private static final LongAdder[] COUNTS = new LongAdder[COUNTERS.length];
+
+    static {
+        for (int i = 0; i < LATENCIES.length; i++) {
+            LATENCIES[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < COUNTS.length; i++) {
+            COUNTS[i] = new LongAdder();
+        }
+    }
+
+    private PricingMetrics() {
+    }
+
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    public static void record(PricingOperation operation, long start) {
+        if (ENABLED) {
+            LATENCIES[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    public static void increment(PricingCounter counter) {
+        if (ENABLED) {
+            COUNTS[counter.ordinal()].increment();
+        }
+    }
+
+    public static void add(PricingCounter counter, long amount) {
+        if (ENABLED) {
+            COUNTS[counter.ordinal()].add(amount);
+        }
+    }
+
+    public static MetricsSnapshot snapshot() {
+        EnumMap<PricingOperation, HistogramSnapshot> latencies = new EnumMap<>(PricingOperation.class);
+        for (PricingOperation operation : OPERATIONS) {
+            latencies.put(operation, LATENCIES[operation.ordinal()].snapshot());
+        }
+        EnumMap<PricingCounter, Long> counters = new EnumMap<>(PricingCounter.class);
+        for (PricingCounter counter : COUNTERS) {
+            counters.put(counter, COUNTS[counter.ordinal()].sum());
+        }
+        return new MetricsSnapshot(latencies, counters);
+    }
+
+    public static void reset() {
+        for (LatencyHistogram latency : LATENCIES) {
+            latency.reset();
+        }
+        for (LongAdder count : COUNTS) {
+            count.reset();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.beverageproducer.models;
+
+import org.beverageproducer.enums.PricingCounter;
+import org.beverageproducer.enums.ValidationError;
+import org.beverageproducer.exceptions.InvalidCountOfItemsException;
+import org.beverageproducer.exceptions.NegativeCountOfItemsException;
+import org.beverageproducer.metrics.PricingMetrics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+//primitive basket over a ProductCatalog, quantities are kept by product id
+//lines are also listed densely so pricing only visits the ordered products
+public class Basket {
+    private final ProductCatalog catalog;
+    //product id -> quantity, 0 if not ordered
+    private int[] quantities;
+    //product id -> index in lineIds
+    private int[] positions;
+    private int[] lineIds;
+    private int lineCount;
+    private long sumOfQuantities;
+
+    public Basket(ProductCatalog catalog) {
+        this.catalog = catalog;
+        quantities = new int[catalog.size()];
+        positions = new int[catalog.size()];
+        lineIds = new int[Math.min(catalog.size(), 16)];
+    }
+
+    public ProductCatalog getCatalog() {
+        return catalog;
+    }
+
+    //same contract as Client.addOrderedProduct, the quantity replaces the previous one
+    public void setQuantity(int productId, int quantity) throws InvalidCountOfItemsException {
+        if (quantity <= 0) {
+            PricingMetrics.increment(PricingCounter.INVALID_COUNT_OF_ITEMS_EXCEPTIONS);
+            throw new InvalidCountOfItemsException();
+        }
+        putQuantity(productId, quantity);
+    }
+
+    //validating variant, see IClient, false if the quantity was rejected
+    public boolean setQuantity(int productId, int quantity, ValidationReport report, int line) {
+        if (quantity <= 0) {
+            report.reject(line, ValidationError.INVALID_COUNT_OF_ITEMS);
+            return false;
+        }
+        putQuantity(productId, quantity);
+        return true;
+    }
+
+    private void putQuantity(int productId, int quantity) {
+        catalog.get(productId);
+        ensureCapacity(productId);
+        int previous = quantities[productId];
+        if (previous == 0) {
+            if (lineCount == lineIds.length) {
+                lineIds = Arrays.copyOf(lineIds, Math.max(4, lineCount * 2));
+            }
+            positions[productId] = lineCount;
+            lineIds[lineCount++] = productId;
+        }
+        quantities[productId] = quantity;
+        sumOfQuantities += quantity - previous;
+    }
+
+    public void removeLine(int productId) {
+        if (productId >= quantities.length || quantities[productId] == 0) {
+            return;
+        }
+        sumOfQuantities -= quantities[productId];
+        quantities[productId] = 0;
+        int last = lineIds[--lineCount];
+        lineIds[positions[productId]] = last;
+        positions[last] = positions[productId];
+    }
+
+    //empties the basket for reuse, only the ordered lines are touched
+    public void clear() {
+        for (int i = 0; i < lineCount; i++) {
+            quantities[lineIds[i]] = 0;
+        }
+        lineCount = 0;
+        sumOfQuantities = 0;
+    }
+
+    public int getQuantity(int productId) {
+        return productId < quantities.length ? quantities[productId] : 0;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    //product id of the line at index, lines are in no particular order
+    public int getLineId(int index) {
+        return lineIds[index];
+    }
+
+    public long getSumOfQuantities() {
+        return sumOfQuantities;
+    }
+
+    //very large baskets are priced in parallel, see ParallelLinePricing
+    public BigDecimal sumOfOrders() throws NegativeCountOfItemsException {
+        if (ParallelLinePricing.isWorthIt(lineCount)) {
+            Product[] products = new Product[lineCount];
+            int[] lineQuantities = new int[lineCount];
+            for (int i = 0; i < lineCount; i++) {
+                products[i] = catalog.get(lineIds[i]);
+                lineQuantities[i] = quantities[lineIds[i]];
+            }
+            return ParallelLinePricing.sum(products, lineQuantities, new BigDecimal[lineCount]).setScale(2, RoundingMode.UP);
+        }
+        BigDecimal totalSum = BigDecimal.valueOf(0);
+        for (int i = 0; i < lineCount; i++) {
+            int id = lineIds[i];
+            totalSum = totalSum.add(catalog.get(id).calculatedPrice(quantities[id]));
+        }
+        return totalSum.setScale(2, RoundingMode.UP);
+    }
+
+    public long sumOfOrdersCents() throws NegativeCountOfItemsException {
+        long totalMicros = 0;
+        for (int i = 0; i < lineCount; i++) {
+            int id = lineIds[i];
+            totalMicros = Math.addExact(totalMicros, catalog.get(id).calculatedPriceMicros(quantities[id]));
+        }
+        return FixedPoint.microsToCentsUp(totalMicros);
+    }
+
+    //the catalog may have grown since the basket was created
+    private void ensureCapacity(int productId) {
+        if (productId >= quantities.length) {
+            int length = Math.max(productId + 1, catalog.size());
+            quantities = Arrays.copyOf(quantities, length);
+            positions = Arrays.copyOf(positions, length);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.beverageproducer.models;
+
+//told by a Client when a product enters or leaves its basket, quantity changes of a line already there are not reported
+//called on the thread that changed the basket, while it holds whatever lock guards the basket
+public interface BasketListener {
+    void lineAdded(Client client, Product product);
+
+    void lineRemoved(Client client, Product product);
+}
@@ -0,0 +1,204 @@
+package org.beverageproducer.models;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.enums.PromotionType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+//prebuilt image of validated products and clients for fast startup
+//the file is read with one bulk read and the objects are created without running the validation of the setters again,
+//the CRC32 of the body guarantees they are exactly the objects that were validated when the image was written
+//header: int magic, int version, int products, int clients, int crc of the body
+//product: char name, decimal unit cost, byte markup type, decimal markup, byte promotion type, its ints
+//client: int id, int basic discount, int tiers, tiers as minimum quantity and percent pairs
+//decimal: byte scale, byte length, big-endian two's complement unscaled value
+//baskets are not part of the image, products with stacked promotion rules can't be stored
+public final class CatalogImage {
+    static final int MAGIC = 0x42504349;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 20;
+    private static final MarkupType[] MARKUP_TYPES = MarkupType.values();
+    private static final PromotionType[] PROMOTION_TYPES = PromotionType.values();
+
+    private final Map<Character, Product> products;
+    private final Map<Integer, Client> clients;
+
+    private CatalogImage(Map<Character, Product> products, Map<Integer, Client> clients) {
+        this.products = products;
+        this.clients = clients;
+    }
+
+    //products and clients are the ones created by read, they belong to the caller
+    public Map<Character, Product> getProducts() {
+        return products;
+    }
+
+    public Map<Integer, Client> getClients() {
+        return clients;
+    }
+
+    //throws IllegalArgumentException for a product with promotion rules that were added by addPromotionRule
+    public static void write(Path path, Collection<Product> products, Collection<Client> clients) throws IOException {
+        ByteBuffer body = ByteBuffer.allocate(64 + products.size() * 64 + clients.size() * 32);
+        for (Product product : products) {
+            body = ensureRemaining(body, 64);
+            synchronized (product) {
+                int legacyRules = product.getPromotionType() == PromotionType.NONE ? 0 : 1;
+                if (product.getPromotionRules().size() > legacyRules) {
+                    throw new IllegalArgumentException("Product " + product.getName() + " has promotion rules");
+                }
+                body.putChar(product.getName());
+                body = putDecimal(body, product.getUnitCost());
+                body.put((byte) product.getMarkupType().ordinal());
+                body = putDecimal(body, product.getMarkup());
+                body = ensureRemaining(body, 16);
+                body.put((byte) product.getPromotionType().ordinal());
+                if (product.getPromotionType() == PromotionType.PERCENT) {
+                    body.putInt(product.getPercentPromotionDiscount());
+                } else if (product.getPromotionType() == PromotionType.GET_FREE_ITEMS) {
+                    body.putInt(product.getToBuyForPromotionDiscount()).putInt(product.getFreeItemsFromPromotionDiscount());
+                }
+            }
+        }
+        for (Client client : clients) {
+            DiscountTiers tiers = client.getDiscountTiers();
+            body = ensureRemaining(body, 12 + tiers.size() * 8);
+            body.putInt(client.getId()).putInt(client.getBasicClientDiscountPercent()).putInt(tiers.size());
+            for (int i = 0; i < tiers.size(); i++) {
+                body.putInt(tiers.getMinQuantity(i)).putInt(tiers.getPercent(i));
+            }
+        }
+        body.flip();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION)
+                .putInt(products.size()).putInt(clients.size()).putInt((int) crc.getValue());
+        header.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = {header, body};
+            while (body.hasRemaining()) {
+                channel.write(buffers);
+            }
+        }
+    }
+
+    public static CatalogImage read(Path path) throws IOException {
+        ByteBuffer image;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a catalog image " + path);
+            }
+            image = ByteBuffer.allocate((int) channel.size());
+            while (image.hasRemaining()) {
+                if (channel.read(image) < 0) {
+                    throw new IOException("Unexpected end of catalog image " + path);
+                }
+            }
+        }
+        image.flip();
+        if (image.getInt() != MAGIC || image.getInt() != VERSION) {
+            throw new IOException("Not a catalog image " + path);
+        }
+        int productCount = image.getInt();
+        int clientCount = image.getInt();
+        int expectedCrc = image.getInt();
+        CRC32 crc = new CRC32();
+        crc.update(image.duplicate());
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Corrupt catalog image " + path);
+        }
+        try {
+            //ordered by name, so the TreeMap of a Controller copies it without comparing keys
+            SortedMap<Character, Product> products = new TreeMap<>();
+            for (int i = 0; i < productCount; i++) {
+                Product product = getProduct(image);
+                products.put(product.getName(), product);
+            }
+            SortedMap<Integer, Client> clients = new TreeMap<>();
+            for (int i = 0; i < clientCount; i++) {
+                Client client = getClient(image);
+                clients.put(client.getId(), client);
+            }
+            return new CatalogImage(Collections.unmodifiableSortedMap(products), Collections.unmodifiableSortedMap(clients));
+        } catch (RuntimeException e) {
+            //only an image written by a different version gets here, the CRC matched
+            throw new IOException("Invalid catalog image " + path, e);
+        }
+    }
+
+    //kept small so the JIT compiles it after a few hundred products instead of running the whole load interpreted
+    private static Product getProduct(ByteBuffer image) {
+        char name = image.getChar();
+        BigDecimal unitCost = getDecimal(image);
+        MarkupType markupType = MARKUP_TYPES[image.get()];
+        BigDecimal markup = getDecimal(image);
+        PromotionType promotionType = PROMOTION_TYPES[image.get()];
+        int percent = promotionType == PromotionType.PERCENT ? image.getInt() : 0;
+        int toBuy = promotionType == PromotionType.GET_FREE_ITEMS ? image.getInt() : 0;
+        int freeItems = promotionType == PromotionType.GET_FREE_ITEMS ? image.getInt() : 0;
+        return new Product(name, unitCost, markupType, markup, promotionType, percent, toBuy, freeItems);
+    }
+
+    private static Client getClient(ByteBuffer image) {
+        int id = image.getInt();
+        int basicClientDiscountPercent = image.getInt();
+        int[] minQuantities = new int[image.getInt()];
+        int[] percents = new int[minQuantities.length];
+        for (int tier = 0; tier < minQuantities.length; tier++) {
+            minQuantities[tier] = image.getInt();
+            percents[tier] = image.getInt();
+        }
+        return new Client(id, basicClientDiscountPercent, DiscountTiers.ofValidated(minQuantities, percents));
+    }
+
+    private static ByteBuffer putDecimal(ByteBuffer buffer, BigDecimal value) {
+        if (value.scale() < Byte.MIN_VALUE || value.scale() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Scale of " + value + " doesn't fit in a catalog image");
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        if (unscaled.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException(value + " doesn't fit in a catalog image");
+        }
+        ByteBuffer target = ensureRemaining(buffer, 2 + unscaled.length);
+        target.put((byte) value.scale()).put((byte) unscaled.length).put(unscaled);
+        return target;
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer buffer) {
+        int scale = buffer.get();
+        int length = buffer.get();
+        if (length <= 8) {
+            //sign extended from the first byte, most prices take this path and need no BigInteger
+            long unscaled = buffer.get();
+            for (int i = 1; i < length; i++) {
+                unscaled = (unscaled << 8) | (buffer.get() & 0xff);
+            }
+            return BigDecimal.valueOf(unscaled, scale);
+        }
+        byte[] unscaled = new byte[length];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static ByteBuffer ensureRemaining(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        return larger.put(buffer);
+    }
+}
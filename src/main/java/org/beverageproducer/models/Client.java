@@ -1,20 +1,41 @@
 package org.beverageproducer.models;
 
+import org.beverageproducer.enums.PricingCounter;
+import org.beverageproducer.enums.PricingOperation;
+import org.beverageproducer.enums.ValidationError;
 import org.beverageproducer.exceptions.InvalidCountOfItemsException;
 import org.beverageproducer.exceptions.InvalidPercentException;
 import org.beverageproducer.exceptions.NegativeCountOfItemsException;
+import org.beverageproducer.metrics.PricingMetrics;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 public class Client implements IClient {
     private final int id;
     private int basicClientDiscountPercent;
-    private int above10000Percent;
-    private int above30000Percent;
-    private Map<Product, Integer> orderedProducts;
+    //replaced as a whole so it can be changed while other threads price the client
+    private volatile DiscountTiers discountTiers = DiscountTiers.NONE;
+    private final TreeMap<Product, Integer> orderedProducts;
+    //running totals of the basket, line edits and product changes are applied to them by delta on the next read
+    //every line remembers the product version it was priced at, so a product change only reprices its own line
+    private final Map<Product, Line> linePrices = new TreeMap<>();
+    //lines to price again, a line edited several times is in it once, under its key in orderedProducts
+    private final Set<Product> changedLines = new LinkedHashSet<>();
+    private BigDecimal grossSum = BigDecimal.valueOf(0);
+    private long sumOfQuantities;
+    //Product.modificationCount() the line prices were checked at, -1 before the first calculation
+    private long totalsModifications = -1;
+    //told about lines entering and leaving the basket, null without one
+    private volatile BasketListener basketListener;
+    //totals of the current basket, dropped when the basket or the discounts change
+    private Quote quote;
 
     public Client(int id, int basicClientDiscountPercent, int above10000Percent, int above30000Percent) throws InvalidPercentException {
         this.id = id;
@@ -24,6 +45,22 @@ public class Client implements IClient {
         orderedProducts = new TreeMap<>();
     }
 
+    //for values that were validated when they were stored, see CatalogImage
+    Client(int id, int basicClientDiscountPercent, DiscountTiers discountTiers) {
+        this.id = id;
+        this.basicClientDiscountPercent = basicClientDiscountPercent;
+        this.discountTiers = discountTiers;
+        orderedProducts = new TreeMap<>();
+    }
+
+    //copies the discount settings of an already validated client, the new client starts with an empty basket
+    public Client(Client terms) {
+        this.id = terms.id;
+        this.basicClientDiscountPercent = terms.basicClientDiscountPercent;
+        this.discountTiers = terms.discountTiers;
+        orderedProducts = new TreeMap<>();
+    }
+
     public int getId() {
         return id;
     }
@@ -32,16 +69,31 @@ public class Client implements IClient {
         return basicClientDiscountPercent;
     }
 
+    //the additional discount for 10000 and 30000 items, also when the tiers were configured differently
     public int getAbove10000Percent() {
-        return above10000Percent;
+        return discountTiers.percentFor(10000);
     }
 
     public int getAbove30000Percent() {
-        return above30000Percent;
+        return discountTiers.percentFor(30000);
     }
 
+    public DiscountTiers getDiscountTiers() {
+        return discountTiers;
+    }
+
+    //read only, the basket is changed through addOrderedProduct so the cached totals stay correct
     public Map<Product, Integer> getOrderedProducts() {
-        return orderedProducts;
+        return Collections.unmodifiableMap(orderedProducts);
+    }
+
+    public long getSumOfQuantities() {
+        return sumOfQuantities;
+    }
+
+    //a single listener, the lines already in the basket are not reported to it
+    public void setBasketListener(BasketListener basketListener) {
+        this.basketListener = basketListener;
     }
 
     public void setBasicClientDiscountPercent(int basicClientDiscountPercent) throws InvalidPercentException {
@@ -49,62 +101,297 @@ public class Client implements IClient {
             throw new InvalidPercentException();
         }
         this.basicClientDiscountPercent = basicClientDiscountPercent;
+        quote = null;
     }
 
     public void setAbove10000Percent(int above10000Percent) throws InvalidPercentException {
         if (above10000Percent < 0) {
             throw new InvalidPercentException();
         }
-        this.above10000Percent = above10000Percent;
+        this.discountTiers = withThreshold(10000, above10000Percent);
+        quote = null;
     }
 
     public void setAbove30000Percent(int above30000Percent) throws InvalidPercentException {
         //10000 discount can't be more than 30000 discount
-        if (above30000Percent < 0 || above30000Percent < this.above10000Percent) {
+        if (above30000Percent < 0 || above30000Percent < getAbove10000Percent()) {
             throw new InvalidPercentException();
         }
-        this.above30000Percent = above30000Percent;
+        this.discountTiers = withThreshold(30000, above30000Percent);
+        quote = null;
+    }
+
+    //the setters above only change their own threshold, the other tiers of custom tiers are kept
+    private DiscountTiers withThreshold(int minQuantity, int percent) throws InvalidPercentException {
+        try {
+            return discountTiers.withPercent(minQuantity, percent);
+        } catch (InvalidCountOfItemsException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //replaces the two fixed tiers of the setters above with any number of tiers
+    public void setDiscountTiers(DiscountTiers discountTiers) {
+        this.discountTiers = discountTiers;
+        quote = null;
     }
 
     @Override
     public boolean addOrderedProduct(Product product, int quantity) throws InvalidCountOfItemsException {
         if (quantity <= 0) {
+            PricingMetrics.increment(PricingCounter.INVALID_COUNT_OF_ITEMS_EXCEPTIONS);
             throw new InvalidCountOfItemsException();
         }
-        orderedProducts.put(product, quantity);
+        putOrderedProduct(product, quantity);
         return true;
     }
 
     @Override
-    public BigDecimal sumOfOrders() throws NegativeCountOfItemsException {
-        BigDecimal totalSum = BigDecimal.valueOf(0);
+    public boolean addOrderedProduct(Product product, int quantity, ValidationReport report, int line) {
+        if (quantity <= 0) {
+            report.reject(line, ValidationError.INVALID_COUNT_OF_ITEMS);
+            return false;
+        }
+        putOrderedProduct(product, quantity);
+        return true;
+    }
 
-        for (Map.Entry<Product, Integer> entry : orderedProducts.entrySet()) {
-            Product key = entry.getKey();
-            Integer value = entry.getValue();
-            totalSum = totalSum.add(key.calculatedPrice(value));
+    private void putOrderedProduct(Product product, int quantity) {
+        Integer previous = orderedProducts.put(product, quantity);
+        sumOfQuantities += quantity - (previous == null ? 0 : previous);
+        //a product with the same name stays in the basket under the key it was first added with
+        Product line = orderedProducts.ceilingKey(product);
+        changedLines.add(line);
+        quote = null;
+        BasketListener listener = basketListener;
+        if (previous == null && listener != null) {
+            listener.lineAdded(this, line);
         }
-        return totalSum.setScale(2, RoundingMode.UP);
+    }
+
+    @Override
+    public boolean removeOrderedProduct(Product product) {
+        Product line = orderedProducts.floorKey(product);
+        Integer previous = orderedProducts.remove(product);
+        if (previous == null) {
+            return false;
+        }
+        sumOfQuantities -= previous;
+        changedLines.add(line);
+        quote = null;
+        BasketListener listener = basketListener;
+        if (listener != null) {
+            listener.lineRemoved(this, product);
+        }
+        return true;
+    }
+
+    @Override
+    public BigDecimal sumOfOrders() throws NegativeCountOfItemsException {
+        long start = PricingMetrics.start();
+        BigDecimal sumOfOrders = quote().sumOfOrders;
+        PricingMetrics.record(PricingOperation.CLIENT_SUM_OF_ORDERS, start);
+        return sumOfOrders;
     }
 
     @Override
     public BigDecimal priceWithBasicDiscount() throws NegativeCountOfItemsException {
-        return sumOfOrders().subtract(sumOfOrders().multiply(BigDecimal.valueOf(basicClientDiscountPercent)).divide(BigDecimal.valueOf(100), 2, RoundingMode.UP));
+        long start = PricingMetrics.start();
+        BigDecimal price = quote().priceWithBasicDiscount;
+        PricingMetrics.record(PricingOperation.CLIENT_PRICE_WITH_BASIC_DISCOUNT, start);
+        return price;
     }
 
     @Override
     public BigDecimal priceWithAdditionalDiscount() throws NegativeCountOfItemsException {
-        int sumOfQuantities = 0;
+        long start = PricingMetrics.start();
+        BigDecimal price = quote().priceWithAdditionalDiscount;
+        PricingMetrics.record(PricingOperation.CLIENT_PRICE_WITH_ADDITIONAL_DISCOUNT, start);
+        return price;
+    }
+
+    @Override
+    public long sumOfOrdersCents() throws NegativeCountOfItemsException {
+        long totalMicros = 0;
+
         for (Map.Entry<Product, Integer> entry : orderedProducts.entrySet()) {
-            Product key = entry.getKey();
-            Integer value = entry.getValue();
-            sumOfQuantities += value;
+            totalMicros = Math.addExact(totalMicros, entry.getKey().calculatedPriceMicros(entry.getValue()));
+        }
+        return FixedPoint.microsToCentsUp(totalMicros);
+    }
+
+    @Override
+    public long priceWithBasicDiscountCents() throws NegativeCountOfItemsException {
+        return FixedPoint.subtractPercentUp(sumOfOrdersCents(), basicClientDiscountPercent);
+    }
+
+    @Override
+    public long priceWithAdditionalDiscountCents() throws NegativeCountOfItemsException {
+        return priceWithAdditionalDiscountCents(sumOfOrdersCents(), sumOfQuantities);
+    }
+
+    //the discount cascade of this client for a basket that was priced elsewhere
+    //sumOfOrders has to be rounded the same way as sumOfOrders()
+    public BigDecimal priceWithBasicDiscount(BigDecimal sumOfOrders) {
+        return subtractPercent(sumOfOrders, basicClientDiscountPercent);
+    }
+
+    public BigDecimal priceWithAdditionalDiscount(BigDecimal sumOfOrders, long sumOfQuantities) {
+        return additionalDiscount(priceWithBasicDiscount(sumOfOrders), sumOfQuantities);
+    }
+
+    public long priceWithAdditionalDiscountCents(long sumOfOrdersCents, long sumOfQuantities) {
+        long priceWithBasicDiscount = FixedPoint.subtractPercentUp(sumOfOrdersCents, basicClientDiscountPercent);
+        int percent = discountTiers.percentFor(sumOfQuantities);
+        if (percent == 0) return priceWithBasicDiscount;
+        return FixedPoint.subtractPercentUp(priceWithBasicDiscount, percent);
+    }
+
+    private BigDecimal additionalDiscount(BigDecimal priceWithBasicDiscount, long sumOfQuantities) {
+        int percent = discountTiers.percentFor(sumOfQuantities);
+        if (percent == 0) return priceWithBasicDiscount;
+        return subtractPercent(priceWithBasicDiscount, percent);
+    }
+
+    //reused until the basket, the discounts or any product changes
+    //O(1) when only lines were edited since the last quote, O(lines) version checks after a product changed
+    private Quote quote() throws NegativeCountOfItemsException {
+        long productModifications = Product.modificationCount();
+        Quote current = quote;
+        if (current != null && current.productModifications == productModifications) {
+            return current;
+        }
+        updateTotals(productModifications);
+        BigDecimal sumOfOrders = grossSum.setScale(2, RoundingMode.UP);
+        BigDecimal priceWithBasicDiscount = priceWithBasicDiscount(sumOfOrders);
+        BigDecimal priceWithAdditionalDiscount = additionalDiscount(priceWithBasicDiscount, sumOfQuantities);
+        current = new Quote(productModifications, sumOfOrders, priceWithBasicDiscount, priceWithAdditionalDiscount);
+        quote = current;
+        PricingMetrics.increment(PricingCounter.QUOTES_BUILT);
+        return current;
+    }
+
+    //BigDecimal addition is exact, so the delta updated sum equals a full recompute
+    private void updateTotals(long productModifications) throws NegativeCountOfItemsException {
+        if (totalsModifications != -1 && totalsModifications != productModifications) {
+            //some product changed since the last quote, only the lines of changed products are priced again
+            for (Map.Entry<Product, Line> entry : linePrices.entrySet()) {
+                if (entry.getValue().version != entry.getKey().getVersion()) {
+                    changedLines.add(entry.getKey());
+                }
+            }
         }
-        if (sumOfQuantities < 10000) return priceWithBasicDiscount();
-        else if (sumOfQuantities < 30000) {
-            return priceWithBasicDiscount().subtract(priceWithBasicDiscount().multiply(BigDecimal.valueOf(above10000Percent)).divide(BigDecimal.valueOf(100), 2, RoundingMode.UP));
+        //at least as many changes as lines, pricing the basket again costs no more than the deltas
+        if (totalsModifications == -1 || changedLines.size() >= orderedProducts.size()) {
+            linePrices.clear();
+            grossSum = ParallelLinePricing.isWorthIt(orderedProducts.size()) ? parallelSum() : sequentialSum();
+            PricingMetrics.add(PricingCounter.LINES_PRICED, orderedProducts.size());
+        } else if (ParallelLinePricing.isWorthIt(changedLines.size())) {
+            parallelDelta();
         } else {
-            return priceWithBasicDiscount().subtract(priceWithBasicDiscount().multiply(BigDecimal.valueOf(above30000Percent)).divide(BigDecimal.valueOf(100), 2, RoundingMode.UP));
+            for (Product product : changedLines) {
+                Line previous = linePrices.remove(product);
+                if (previous != null) {
+                    grossSum = grossSum.subtract(previous.price);
+                }
+                Integer quantity = orderedProducts.get(product);
+                if (quantity != null) {
+                    //the version is read first, a change while the line is priced makes it stale instead of lost
+                    long version = product.getVersion();
+                    BigDecimal linePrice = product.calculatedPrice(quantity);
+                    linePrices.put(product, new Line(linePrice, version));
+                    grossSum = grossSum.add(linePrice);
+                }
+            }
+            PricingMetrics.add(PricingCounter.LINES_PRICED, changedLines.size());
+        }
+        changedLines.clear();
+        totalsModifications = productModifications;
+    }
+
+    private BigDecimal sequentialSum() throws NegativeCountOfItemsException {
+        BigDecimal totalSum = BigDecimal.valueOf(0);
+        for (Map.Entry<Product, Integer> entry : orderedProducts.entrySet()) {
+            long version = entry.getKey().getVersion();
+            BigDecimal linePrice = entry.getKey().calculatedPrice(entry.getValue());
+            linePrices.put(entry.getKey(), new Line(linePrice, version));
+            totalSum = totalSum.add(linePrice);
+        }
+        return totalSum;
+    }
+
+    private BigDecimal parallelSum() throws NegativeCountOfItemsException {
+        Product[] products = new Product[orderedProducts.size()];
+        int[] quantities = new int[products.length];
+        long[] versions = new long[products.length];
+        int line = 0;
+        for (Map.Entry<Product, Integer> entry : orderedProducts.entrySet()) {
+            products[line] = entry.getKey();
+            versions[line] = entry.getKey().getVersion();
+            quantities[line++] = entry.getValue();
+        }
+        BigDecimal[] prices = new BigDecimal[products.length];
+        BigDecimal totalSum = ParallelLinePricing.sum(products, quantities, prices);
+        for (int i = 0; i < products.length; i++) {
+            linePrices.put(products[i], new Line(prices[i], versions[i]));
+        }
+        return totalSum;
+    }
+
+    //the deltas of many changed lines, for example after many products changed, priced like parallelSum
+    private void parallelDelta() throws NegativeCountOfItemsException {
+        Product[] products = new Product[changedLines.size()];
+        int[] quantities = new int[products.length];
+        long[] versions = new long[products.length];
+        int line = 0;
+        for (Product product : changedLines) {
+            Line previous = linePrices.remove(product);
+            if (previous != null) {
+                grossSum = grossSum.subtract(previous.price);
+            }
+            Integer quantity = orderedProducts.get(product);
+            if (quantity != null) {
+                products[line] = product;
+                versions[line] = product.getVersion();
+                quantities[line++] = quantity;
+            }
+        }
+        products = Arrays.copyOf(products, line);
+        BigDecimal[] prices = new BigDecimal[line];
+        grossSum = grossSum.add(ParallelLinePricing.sum(products, Arrays.copyOf(quantities, line), prices));
+        for (int i = 0; i < line; i++) {
+            linePrices.put(products[i], new Line(prices[i], versions[i]));
+        }
+        PricingMetrics.add(PricingCounter.LINES_PRICED, line);
+    }
+
+    private static BigDecimal subtractPercent(BigDecimal price, int percent) {
+        return price.subtract(price.multiply(BigDecimal.valueOf(percent)).divide(BigDecimal.valueOf(100), 2, RoundingMode.UP));
+    }
+
+    private static final class Line {
+        private final BigDecimal price;
+        //Product.getVersion() the price was calculated at
+        private final long version;
+
+        private Line(BigDecimal price, long version) {
+            this.price = price;
+            this.version = version;
+        }
+    }
+
+    private static final class Quote {
+        private final long productModifications;
+        private final BigDecimal sumOfOrders;
+        private final BigDecimal priceWithBasicDiscount;
+        private final BigDecimal priceWithAdditionalDiscount;
+
+        private Quote(long productModifications, BigDecimal sumOfOrders,
+                      BigDecimal priceWithBasicDiscount, BigDecimal priceWithAdditionalDiscount) {
+            this.productModifications = productModifications;
+            this.sumOfOrders = sumOfOrders;
+            this.priceWithBasicDiscount = priceWithBasicDiscount;
+            this.priceWithAdditionalDiscount = priceWithAdditionalDiscount;
         }
     }
 
@@ -113,8 +400,7 @@ public class Client implements IClient {
         return "Client{" +
                 "id=" + id +
                 ", basicClientDiscountPercent=" + basicClientDiscountPercent +
-                ", above10000Percent=" + above10000Percent +
-                ", above30000Percent=" + above30000Percent +
+                ", discountTiers=" + discountTiers +
                 ", orderedProducts=" + orderedProducts +
                 '}';
     }
@@ -0,0 +1,167 @@
+package org.beverageproducer.models;
+
+import org.beverageproducer.exceptions.InvalidCountOfItemsException;
+import org.beverageproducer.exceptions.InvalidPercentException;
+
+import java.util.Arrays;
+
+//additional discount of a client by the number of ordered items
+//the tier with the highest minimum quantity not above the ordered quantity applies, no discount below the first tier
+//immutable, a client switches to new tiers by replacing the whole table
+public final class DiscountTiers {
+    public static final DiscountTiers NONE = new DiscountTiers(new int[0], new int[0]);
+
+    //strictly ascending, parallel to percents
+    private final int[] minQuantities;
+    private final int[] percents;
+
+    private DiscountTiers(int[] minQuantities, int[] percents) {
+        this.minQuantities = minQuantities;
+        this.percents = percents;
+    }
+
+    public static DiscountTiers of(int[] minQuantities, int[] percents) throws InvalidCountOfItemsException, InvalidPercentException {
+        if (minQuantities.length != percents.length) {
+            throw new InvalidCountOfItemsException();
+        }
+        for (int i = 0; i < minQuantities.length; i++) {
+            if (minQuantities[i] < 1 || (i > 0 && minQuantities[i] <= minQuantities[i - 1])) {
+                throw new InvalidCountOfItemsException();
+            }
+            if (percents[i] < 0) {
+                throw new InvalidPercentException();
+            }
+        }
+        return new DiscountTiers(minQuantities.clone(), percents.clone());
+    }
+
+    //for arrays that were validated when they were stored, see CatalogImage, they are not copied
+    static DiscountTiers ofValidated(int[] minQuantities, int[] percents) {
+        return minQuantities.length == 0 ? NONE : new DiscountTiers(minQuantities, percents);
+    }
+
+    //the two fixed tiers of the original contracts
+    public static DiscountTiers of(int above10000Percent, int above30000Percent) throws InvalidPercentException {
+        if (above10000Percent < 0 || above30000Percent < 0) {
+            throw new InvalidPercentException();
+        }
+        return new DiscountTiers(new int[]{10000, 30000}, new int[]{above10000Percent, above30000Percent});
+    }
+
+    //copy with the percent of the tier that starts at minQuantity changed, the tier is added if there is none
+    //every other tier is kept
+    public DiscountTiers withPercent(int minQuantity, int percent) throws InvalidCountOfItemsException, InvalidPercentException {
+        if (minQuantity < 1) {
+            throw new InvalidCountOfItemsException();
+        }
+        if (percent < 0) {
+            throw new InvalidPercentException();
+        }
+        int index = Arrays.binarySearch(minQuantities, minQuantity);
+        if (index >= 0) {
+            int[] nextPercents = percents.clone();
+            nextPercents[index] = percent;
+            return new DiscountTiers(minQuantities, nextPercents);
+        }
+        int insertion = -index - 1;
+        int[] nextMinQuantities = new int[minQuantities.length + 1];
+        int[] nextPercents = new int[percents.length + 1];
+        System.arraycopy(minQuantities, 0, nextMinQuantities, 0, insertion);
+        System.arraycopy(percents, 0, nextPercents, 0, insertion);
+        nextMinQuantities[insertion] = minQuantity;
+        nextPercents[insertion] = percent;
+        System.arraycopy(minQuantities, insertion, nextMinQuantities, insertion + 1, minQuantities.length - insertion);
+        System.arraycopy(percents, insertion, nextPercents, insertion + 1, percents.length - insertion);
+        return new DiscountTiers(nextMinQuantities, nextPercents);
+    }
+
+    //"10000:1,30000:2" is 1% from 10000 items and 2% from 30000 items, tiers may come in any order
+    //throws IllegalArgumentException when the text can't be read
+    public static DiscountTiers parse(String tiers) throws InvalidCountOfItemsException, InvalidPercentException {
+        String trimmed = tiers.trim();
+        if (trimmed.isEmpty()) {
+            return NONE;
+        }
+        String[] entries = trimmed.split(",");
+        long[] packed = new long[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            String entry = entries[i].trim();
+            int separator = entry.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid discount tier " + entry);
+            }
+            int minQuantity;
+            int percent;
+            try {
+                minQuantity = Integer.parseInt(entry.substring(0, separator).trim());
+                percent = Integer.parseInt(entry.substring(separator + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid discount tier " + entry);
+            }
+            if (minQuantity < 1) {
+                throw new InvalidCountOfItemsException();
+            }
+            if (percent < 0) {
+                throw new InvalidPercentException();
+            }
+            packed[i] = ((long) minQuantity << 32) | percent;
+        }
+        //sorting the packed pairs orders them by minimum quantity
+        Arrays.sort(packed);
+        int[] minQuantities = new int[packed.length];
+        int[] percents = new int[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            minQuantities[i] = (int) (packed[i] >>> 32);
+            percents[i] = (int) packed[i];
+        }
+        return of(minQuantities, percents);
+    }
+
+    public int size() {
+        return minQuantities.length;
+    }
+
+    public int getMinQuantity(int tier) {
+        return minQuantities[tier];
+    }
+
+    public int getPercent(int tier) {
+        return percents[tier];
+    }
+
+    //binary search, O(log tiers)
+    public int percentFor(long sumOfQuantities) {
+        int low = 0;
+        int high = minQuantities.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (minQuantities[middle] <= sumOfQuantities) {
+                low = middle + 1;
+            } else high = middle - 1;
+        }
+        return high < 0 ? 0 : percents[high];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DiscountTiers that = (DiscountTiers) o;
+        return Arrays.equals(minQuantities, that.minQuantities) && Arrays.equals(percents, that.percents);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(minQuantities) + Arrays.hashCode(percents);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < minQuantities.length; i++) {
+            if (i > 0) builder.append(',');
+            builder.append(minQuantities[i]).append(':').append(percents[i]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,58 @@
+package org.beverageproducer.models;
+
+import java.math.BigDecimal;
+
+//scaled long arithmetic for the allocation free pricing mode
+//product prices are kept in micro-euros, client totals in cents because they are always rounded to 2 decimals
+//every operation is exact or rounds exactly like the BigDecimal path, overflow throws ArithmeticException
+public final class FixedPoint {
+    public static final int MICROS_SCALE = 6;
+    public static final int CENTS_SCALE = 2;
+    public static final long MICROS_PER_CENT = 10_000;
+
+    private FixedPoint() {
+    }
+
+    //throws ArithmeticException when the amount has more than 6 decimals or doesn't fit in a long
+    public static long toMicros(BigDecimal amount) {
+        return amount.movePointRight(MICROS_SCALE).longValueExact();
+    }
+
+    public static BigDecimal fromMicros(long micros) {
+        return BigDecimal.valueOf(micros, MICROS_SCALE);
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, CENTS_SCALE);
+    }
+
+    //same as setScale(2, RoundingMode.UP)
+    public static long microsToCentsUp(long micros) {
+        return divideUp(micros, MICROS_PER_CENT);
+    }
+
+    //same as amount - amount * percent / 100 with the discount rounded to cents with RoundingMode.UP
+    public static long subtractPercentUp(long cents, int percent) {
+        return Math.subtractExact(cents, divideUp(Math.multiplyExact(cents, percent), 100));
+    }
+
+    //RoundingMode.UP, the divisor has to be positive
+    public static long divideUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        if (dividend % divisor != 0) {
+            quotient += dividend > 0 ? 1 : -1;
+        }
+        return quotient;
+    }
+
+    //RoundingMode.HALF_EVEN, the divisor has to be positive
+    public static long divideHalfEven(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        long half = divisor - remainder;
+        if (remainder > half || (remainder == half && (quotient & 1) != 0)) {
+            quotient += dividend > 0 ? 1 : -1;
+        }
+        return quotient;
+    }
+}
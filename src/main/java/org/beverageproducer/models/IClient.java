@@ -8,9 +8,23 @@ import java.math.BigDecimal;
 public interface IClient {
     boolean addOrderedProduct(Product product, int quantity) throws InvalidCountOfItemsException;
 
+    //validating variant for bulk use, an invalid quantity is rejected in the report under the given line
+    //and false is returned instead of throwing
+    boolean addOrderedProduct(Product product, int quantity, ValidationReport report, int line);
+
+    //false if the product isn't in the basket
+    boolean removeOrderedProduct(Product product);
+
     BigDecimal sumOfOrders() throws NegativeCountOfItemsException;
 
     BigDecimal priceWithBasicDiscount() throws NegativeCountOfItemsException;
 
     BigDecimal priceWithAdditionalDiscount() throws NegativeCountOfItemsException;
+
+    //fixed-point variants in cents
+    long sumOfOrdersCents() throws NegativeCountOfItemsException;
+
+    long priceWithBasicDiscountCents() throws NegativeCountOfItemsException;
+
+    long priceWithAdditionalDiscountCents() throws NegativeCountOfItemsException;
 }
@@ -4,6 +4,7 @@ import org.beverageproducer.exceptions.InvalidCountOfItemsException;
 import org.beverageproducer.exceptions.InvalidPercentException;
 import org.beverageproducer.exceptions.NegativeCountOfItemsException;
 import org.beverageproducer.exceptions.NoPromotionToRemoveException;
+import org.beverageproducer.promotions.PromotionRule;
 
 import java.math.BigDecimal;
 
@@ -12,9 +13,23 @@ public interface IProduct {
 
     boolean addFreeItemsPromotion(int toBuy, int freeItems) throws InvalidCountOfItemsException;
 
+    //stacks another promotion on top of the existing ones
+    boolean addPromotionRule(PromotionRule rule);
+
     boolean removePromotion() throws NoPromotionToRemoveException;
 
     BigDecimal calculatedPrice(int quantityOfItems) throws NegativeCountOfItemsException;
 
     BigDecimal calculatedPricePerItem(int quantityOfItems) throws NegativeCountOfItemsException;
+
+    //fixed-point variants in micro-euros, they throw ArithmeticException if a price needs more than 6 decimals
+    long calculatedPriceMicros(int quantityOfItems) throws NegativeCountOfItemsException;
+
+    long calculatedPricePerItemMicros(int quantityOfItems) throws NegativeCountOfItemsException;
+
+    //validating variants for bulk pricing, a negative quantity is rejected in the report under the given line
+    //instead of throwing, the price is then null or -1
+    BigDecimal calculatedPrice(int quantityOfItems, ValidationReport report, int line);
+
+    long calculatedPriceMicros(int quantityOfItems, ValidationReport report, int line);
 }
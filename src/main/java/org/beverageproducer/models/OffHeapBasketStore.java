@@ -0,0 +1,335 @@
+package org.beverageproducer.models;
+
+import org.beverageproducer.enums.PricingCounter;
+import org.beverageproducer.exceptions.InvalidCountOfItemsException;
+import org.beverageproducer.exceptions.NegativeCountOfItemsException;
+import org.beverageproducer.metrics.PricingMetrics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//open baskets of many clients outside the heap, for more baskets than Client objects can hold without long GC pauses
+//lines are packed (int product id, int quantity) records in direct ByteBuffer slabs, product ids are the ones of a
+//ProductCatalog like in Basket
+//the heap only holds the slabs, a primitive index and free lists, so the GC has nothing to trace per basket
+//not thread safe, like Client
+public class OffHeapBasketStore {
+    public static final int DEFAULT_SLAB_SIZE = 64 << 20;
+    //a block is a header (int line count, int size class) and its lines, blocks are 32 << sizeClass bytes
+    private static final int HEADER_SIZE = 8;
+    private static final int LINE_SIZE = 8;
+    private static final int BLOCK_UNIT_SHIFT = 5;
+    //index slots pack the client id in the high and the block reference in the low half, 0 is a free slot
+    private static final long FREE_SLOT = 0;
+
+    private final ProductCatalog catalog;
+    private final int slabSize;
+    private final int slabShift;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    //next free byte of the last slab
+    private int slabPosition;
+    //freed blocks by size class, as block references
+    private final int[][] freeBlocks;
+    private final int[] freeBlockCounts;
+    //open addressing with linear probing, at most half full
+    private long[] index = new long[1024];
+    private int basketCount;
+
+    public OffHeapBasketStore(ProductCatalog catalog) {
+        this(catalog, DEFAULT_SLAB_SIZE);
+    }
+
+    //slabSize has to be a power of two, a basket can't have more lines than fit in one slab
+    public OffHeapBasketStore(ProductCatalog catalog, int slabSize) {
+        if (Integer.bitCount(slabSize) != 1 || slabSize < (1 << BLOCK_UNIT_SHIFT)) {
+            throw new IllegalArgumentException("Slab size has to be a power of two of at least 32 bytes");
+        }
+        this.catalog = catalog;
+        this.slabSize = slabSize;
+        this.slabShift = Integer.numberOfTrailingZeros(slabSize);
+        int sizeClasses = slabShift - BLOCK_UNIT_SHIFT + 1;
+        this.freeBlocks = new int[sizeClasses][];
+        this.freeBlockCounts = new int[sizeClasses];
+        Arrays.fill(freeBlocks, new int[0]);
+        this.slabPosition = slabSize;
+    }
+
+    public ProductCatalog getCatalog() {
+        return catalog;
+    }
+
+    //same contract as Basket.setQuantity, the quantity replaces the previous one
+    public void setQuantity(int clientId, int productId, int quantity) throws InvalidCountOfItemsException {
+        if (quantity <= 0) {
+            PricingMetrics.increment(PricingCounter.INVALID_COUNT_OF_ITEMS_EXCEPTIONS);
+            throw new InvalidCountOfItemsException();
+        }
+        catalog.get(productId);
+        int slot = slotOf(clientId);
+        int block;
+        if (index[slot] == FREE_SLOT) {
+            block = allocate(0);
+            index[slot] = ((long) clientId << 32) | (block & 0xffffffffL);
+            basketCount++;
+            if (basketCount * 2 > index.length) {
+                resizeIndex();
+            }
+        } else block = (int) index[slot];
+        ByteBuffer slab = slab(block);
+        int offset = offset(block);
+        int lines = slab.getInt(offset);
+        int line = findLine(slab, offset, lines, productId);
+        if (line >= 0) {
+            slab.putInt(offset + HEADER_SIZE + line * LINE_SIZE + 4, quantity);
+            return;
+        }
+        if (lines == capacity(slab.getInt(offset + 4))) {
+            block = grow(clientId, block);
+            slab = slab(block);
+            offset = offset(block);
+        }
+        int record = offset + HEADER_SIZE + lines * LINE_SIZE;
+        slab.putInt(record, productId);
+        slab.putInt(record + 4, quantity);
+        slab.putInt(offset, lines + 1);
+    }
+
+    //false if the basket has no line of the product
+    public boolean removeLine(int clientId, int productId) {
+        int block = blockOf(clientId);
+        if (block == 0) {
+            return false;
+        }
+        ByteBuffer slab = slab(block);
+        int offset = offset(block);
+        int lines = slab.getInt(offset);
+        int line = findLine(slab, offset, lines, productId);
+        if (line < 0) {
+            return false;
+        }
+        //the last line takes the place of the removed one, lines are in no particular order
+        int last = offset + HEADER_SIZE + (lines - 1) * LINE_SIZE;
+        int removed = offset + HEADER_SIZE + line * LINE_SIZE;
+        slab.putLong(removed, slab.getLong(last));
+        slab.putInt(offset, lines - 1);
+        return true;
+    }
+
+    //drops the whole basket, for example when its order was placed, false if the client had none
+    public boolean removeBasket(int clientId) {
+        int slot = slotOf(clientId);
+        if (index[slot] == FREE_SLOT) {
+            return false;
+        }
+        free((int) index[slot]);
+        deleteSlot(slot);
+        basketCount--;
+        return true;
+    }
+
+    public boolean hasBasket(int clientId) {
+        return blockOf(clientId) != 0;
+    }
+
+    public int getQuantity(int clientId, int productId) {
+        int block = blockOf(clientId);
+        if (block == 0) {
+            return 0;
+        }
+        ByteBuffer slab = slab(block);
+        int offset = offset(block);
+        int line = findLine(slab, offset, slab.getInt(offset), productId);
+        return line < 0 ? 0 : slab.getInt(offset + HEADER_SIZE + line * LINE_SIZE + 4);
+    }
+
+    public int getLineCount(int clientId) {
+        int block = blockOf(clientId);
+        return block == 0 ? 0 : slab(block).getInt(offset(block));
+    }
+
+    public long getSumOfQuantities(int clientId) {
+        int block = blockOf(clientId);
+        if (block == 0) {
+            return 0;
+        }
+        ByteBuffer slab = slab(block);
+        int offset = offset(block);
+        int end = offset + HEADER_SIZE + slab.getInt(offset) * LINE_SIZE;
+        long sumOfQuantities = 0;
+        for (int record = offset + HEADER_SIZE; record < end; record += LINE_SIZE) {
+            sumOfQuantities += slab.getInt(record + 4);
+        }
+        return sumOfQuantities;
+    }
+
+    public int getBasketCount() {
+        return basketCount;
+    }
+
+    //direct memory reserved by the slabs
+    public long getOffHeapBytes() {
+        return (long) slabs.size() * slabSize;
+    }
+
+    //same result as Basket.sumOfOrdersCents, the lines are read in place, 0 without a basket
+    public long sumOfOrdersCents(int clientId) throws NegativeCountOfItemsException {
+        int block = blockOf(clientId);
+        if (block == 0) {
+            return 0;
+        }
+        ByteBuffer slab = slab(block);
+        int offset = offset(block);
+        int end = offset + HEADER_SIZE + slab.getInt(offset) * LINE_SIZE;
+        long totalMicros = 0;
+        for (int record = offset + HEADER_SIZE; record < end; record += LINE_SIZE) {
+            totalMicros = Math.addExact(totalMicros,
+                    catalog.get(slab.getInt(record)).calculatedPriceMicros(slab.getInt(record + 4)));
+        }
+        return FixedPoint.microsToCentsUp(totalMicros);
+    }
+
+    //prices the basket of terms.getId() with the discounts of terms, the basket of terms itself is not used
+    public long priceWithAdditionalDiscountCents(Client terms) throws NegativeCountOfItemsException {
+        int clientId = terms.getId();
+        return terms.priceWithAdditionalDiscountCents(sumOfOrdersCents(clientId), getSumOfQuantities(clientId));
+    }
+
+    //index of the line of the product in the block, -1 if there is none
+    private static int findLine(ByteBuffer slab, int offset, int lines, int productId) {
+        for (int line = 0; line < lines; line++) {
+            if (slab.getInt(offset + HEADER_SIZE + line * LINE_SIZE) == productId) {
+                return line;
+            }
+        }
+        return -1;
+    }
+
+    //moves the basket to a block of the next size class
+    private int grow(int clientId, int block) {
+        ByteBuffer slab = slab(block);
+        int offset = offset(block);
+        int sizeClass = slab.getInt(offset + 4);
+        if (sizeClass + 1 == freeBlocks.length) {
+            throw new IllegalArgumentException("Basket of client " + clientId + " doesn't fit in a slab");
+        }
+        int larger = allocate(sizeClass + 1);
+        ByteBuffer target = slab(larger);
+        int targetOffset = offset(larger);
+        int lines = slab.getInt(offset);
+        for (int i = 0; i < lines * LINE_SIZE; i += LINE_SIZE) {
+            target.putLong(targetOffset + HEADER_SIZE + i, slab.getLong(offset + HEADER_SIZE + i));
+        }
+        target.putInt(targetOffset, lines);
+        free(block);
+        int slot = slotOf(clientId);
+        index[slot] = ((long) clientId << 32) | (larger & 0xffffffffL);
+        return larger;
+    }
+
+    //returns an empty block of the size class, references count 32 byte units from 1 so 0 means no block
+    private int allocate(int sizeClass) {
+        int block;
+        if (freeBlockCounts[sizeClass] > 0) {
+            block = freeBlocks[sizeClass][--freeBlockCounts[sizeClass]];
+        } else {
+            int size = (1 << BLOCK_UNIT_SHIFT) << sizeClass;
+            //blocks never cross slabs, the rest of a full slab is left unused
+            if (slabPosition + size > slabSize) {
+                slabs.add(ByteBuffer.allocateDirect(slabSize).order(ByteOrder.nativeOrder()));
+                slabPosition = 0;
+            }
+            long position = (long) (slabs.size() - 1) * slabSize + slabPosition;
+            if ((position >>> BLOCK_UNIT_SHIFT) + 1 > 0xffffffffL) {
+                throw new IllegalStateException("Basket store is full");
+            }
+            slabPosition += size;
+            block = (int) ((position >>> BLOCK_UNIT_SHIFT) + 1);
+        }
+        ByteBuffer slab = slab(block);
+        slab.putInt(offset(block), 0);
+        slab.putInt(offset(block) + 4, sizeClass);
+        return block;
+    }
+
+    private void free(int block) {
+        int sizeClass = slab(block).getInt(offset(block) + 4);
+        if (freeBlockCounts[sizeClass] == freeBlocks[sizeClass].length) {
+            freeBlocks[sizeClass] = Arrays.copyOf(freeBlocks[sizeClass], Math.max(16, freeBlockCounts[sizeClass] * 2));
+        }
+        freeBlocks[sizeClass][freeBlockCounts[sizeClass]++] = block;
+    }
+
+    private static int capacity(int sizeClass) {
+        return (((1 << BLOCK_UNIT_SHIFT) << sizeClass) - HEADER_SIZE) / LINE_SIZE;
+    }
+
+    private ByteBuffer slab(int block) {
+        return slabs.get((int) (position(block) >>> slabShift));
+    }
+
+    private int offset(int block) {
+        return (int) (position(block) & (slabSize - 1));
+    }
+
+    private static long position(int block) {
+        return ((block & 0xffffffffL) - 1) << BLOCK_UNIT_SHIFT;
+    }
+
+    private int blockOf(int clientId) {
+        return (int) index[slotOf(clientId)];
+    }
+
+    //slot of the client, or the free slot it would be put in
+    private int slotOf(int clientId) {
+        int mask = index.length - 1;
+        int slot = mix(clientId) & mask;
+        while (index[slot] != FREE_SLOT && (int) (index[slot] >>> 32) != clientId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    //backward shift deletion, keeps every entry reachable from its home slot without tombstones
+    private void deleteSlot(int slot) {
+        int mask = index.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (index[next] != FREE_SLOT) {
+            int home = mix((int) (index[next] >>> 32)) & mask;
+            //the entry may move into the hole if its home isn't cyclically between the hole and itself
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                index[hole] = index[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        index[hole] = FREE_SLOT;
+    }
+
+    private void resizeIndex() {
+        long[] old = index;
+        index = new long[old.length * 2];
+        for (long entry : old) {
+            if (entry != FREE_SLOT) {
+                index[slotOf((int) (entry >>> 32))] = entry;
+            }
+        }
+    }
+
+    private static int mix(int clientId) {
+        int hash = clientId * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapBasketStore{" +
+                "basketCount=" + basketCount +
+                ", slabs=" + slabs.size() +
+                ", slabSize=" + slabSize +
+                '}';
+    }
+}
@@ -0,0 +1,58 @@
+package org.beverageproducer.models;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class Order {
+    private final int clientId;
+    //one order line per index, quantities are kept unboxed
+    private final char[] productNames;
+    private final int[] quantities;
+
+    public Order(int clientId, char[] productNames, int[] quantities) {
+        if (productNames.length != quantities.length) {
+            throw new IllegalArgumentException("Every product needs a quantity");
+        }
+        this.clientId = clientId;
+        this.productNames = productNames.clone();
+        this.quantities = quantities.clone();
+    }
+
+    //lines are sorted by product name, the same way as Client.orderedProducts
+    public Order(int clientId, Map<Character, Integer> quantities) {
+        this.clientId = clientId;
+        this.productNames = new char[quantities.size()];
+        this.quantities = new int[quantities.size()];
+        int line = 0;
+        for (Map.Entry<Character, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+            this.productNames[line] = entry.getKey();
+            this.quantities[line++] = entry.getValue();
+        }
+    }
+
+    public int getClientId() {
+        return clientId;
+    }
+
+    public int getLineCount() {
+        return productNames.length;
+    }
+
+    public char getProductName(int line) {
+        return productNames[line];
+    }
+
+    public int getQuantity(int line) {
+        return quantities[line];
+    }
+
+    @Override
+    public String toString() {
+        return "Order{" +
+                "clientId=" + clientId +
+                ", productNames=" + Arrays.toString(productNames) +
+                ", quantities=" + Arrays.toString(quantities) +
+                '}';
+    }
+}
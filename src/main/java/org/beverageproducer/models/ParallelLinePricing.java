@@ -0,0 +1,82 @@
+package org.beverageproducer.models;
+
+import org.beverageproducer.exceptions.NegativeCountOfItemsException;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+//prices the lines of a very large basket on the common fork-join pool
+//BigDecimal addition is exact, so combining the partial sums in any order gives the sequential result
+final class ParallelLinePricing {
+    //baskets with fewer lines are priced sequentially, splitting them costs more than it saves
+    static final int THRESHOLD = Integer.getInteger("beverageproducer.parallelPricingThreshold", 8192);
+    //lines priced by one task without splitting further
+    private static final int CHUNK_SIZE = 1024;
+
+    private ParallelLinePricing() {
+    }
+
+    static boolean isWorthIt(int lines) {
+        return lines >= THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    //fills linePrices with the price of every line and returns their unrounded sum
+    static BigDecimal sum(Product[] products, int[] quantities, BigDecimal[] linePrices) throws NegativeCountOfItemsException {
+        try {
+            return ForkJoinPool.commonPool().invoke(new SumTask(products, quantities, linePrices, 0, products.length));
+        } catch (PricingFailure e) {
+            throw e.cause;
+        }
+    }
+
+    //ForkJoinTask is Serializable, these tasks never leave the pool
+    @SuppressWarnings("serial")
+    private static final class SumTask extends RecursiveTask<BigDecimal> {
+        private final Product[] products;
+        private final int[] quantities;
+        private final BigDecimal[] linePrices;
+        private final int from;
+        private final int to;
+
+        private SumTask(Product[] products, int[] quantities, BigDecimal[] linePrices, int from, int to) {
+            this.products = products;
+            this.quantities = quantities;
+            this.linePrices = linePrices;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BigDecimal compute() {
+            if (to - from <= CHUNK_SIZE) {
+                BigDecimal partialSum = BigDecimal.valueOf(0);
+                try {
+                    for (int i = from; i < to; i++) {
+                        linePrices[i] = products[i].calculatedPrice(quantities[i]);
+                        partialSum = partialSum.add(linePrices[i]);
+                    }
+                } catch (NegativeCountOfItemsException e) {
+                    throw new PricingFailure(e);
+                }
+                return partialSum;
+            }
+            int middle = (from + to) >>> 1;
+            SumTask left = new SumTask(products, quantities, linePrices, from, middle);
+            left.fork();
+            BigDecimal right = new SumTask(products, quantities, linePrices, middle, to).compute();
+            return left.join().add(right);
+        }
+    }
+
+    //carries the checked exception of a line out of the pool
+    private static final class PricingFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final NegativeCountOfItemsException cause;
+
+        private PricingFailure(NegativeCountOfItemsException cause) {
+            super(cause);
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.beverageproducer.models;
+
+import java.math.BigDecimal;
+
+public class PricedLine {
+    private final char productName;
+    private final int quantity;
+    private final BigDecimal unitCost;
+    private final boolean promoted;
+    private final BigDecimal pricePerItem;
+    private final BigDecimal price;
+
+    public PricedLine(char productName, int quantity, BigDecimal unitCost, boolean promoted,
+                      BigDecimal pricePerItem, BigDecimal price) {
+        this.productName = productName;
+        this.quantity = quantity;
+        this.unitCost = unitCost;
+        this.promoted = promoted;
+        this.pricePerItem = pricePerItem;
+        this.price = price;
+    }
+
+    public char getProductName() {
+        return productName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getUnitCost() {
+        return unitCost;
+    }
+
+    public boolean isPromoted() {
+        return promoted;
+    }
+
+    public BigDecimal getPricePerItem() {
+        return pricePerItem;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    @Override
+    public String toString() {
+        return "PricedLine{" +
+                "productName=" + productName +
+                ", quantity=" + quantity +
+                ", unitCost=" + unitCost +
+                ", promoted=" + promoted +
+                ", pricePerItem=" + pricePerItem +
+                ", price=" + price +
+                '}';
+    }
+}
@@ -0,0 +1,61 @@
+package org.beverageproducer.models;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class PricedOrder {
+    //version of orders priced against the live, mutable products instead of a catalog snapshot
+    public static final long UNVERSIONED = -1;
+    private final int clientId;
+    private final long catalogVersion;
+    private final List<PricedLine> lines;
+    private final BigDecimal sumOfOrders;
+    private final BigDecimal priceWithBasicDiscount;
+    private final BigDecimal priceWithAdditionalDiscount;
+
+    public PricedOrder(int clientId, long catalogVersion, List<PricedLine> lines, BigDecimal sumOfOrders,
+                       BigDecimal priceWithBasicDiscount, BigDecimal priceWithAdditionalDiscount) {
+        this.clientId = clientId;
+        this.catalogVersion = catalogVersion;
+        this.lines = List.copyOf(lines);
+        this.sumOfOrders = sumOfOrders;
+        this.priceWithBasicDiscount = priceWithBasicDiscount;
+        this.priceWithAdditionalDiscount = priceWithAdditionalDiscount;
+    }
+
+    public int getClientId() {
+        return clientId;
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public List<PricedLine> getLines() {
+        return lines;
+    }
+
+    public BigDecimal getSumOfOrders() {
+        return sumOfOrders;
+    }
+
+    public BigDecimal getPriceWithBasicDiscount() {
+        return priceWithBasicDiscount;
+    }
+
+    public BigDecimal getPriceWithAdditionalDiscount() {
+        return priceWithAdditionalDiscount;
+    }
+
+    @Override
+    public String toString() {
+        return "PricedOrder{" +
+                "clientId=" + clientId +
+                ", catalogVersion=" + catalogVersion +
+                ", lines=" + lines +
+                ", sumOfOrders=" + sumOfOrders +
+                ", priceWithBasicDiscount=" + priceWithBasicDiscount +
+                ", priceWithAdditionalDiscount=" + priceWithAdditionalDiscount +
+                '}';
+    }
+}
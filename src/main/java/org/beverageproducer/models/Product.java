@@ -2,10 +2,19 @@ package org.beverageproducer.models;
 
 import org.beverageproducer.enums.MarkupType;
 import org.beverageproducer.enums.PromotionType;
+import org.beverageproducer.enums.PricingCounter;
+import org.beverageproducer.enums.ValidationError;
 import org.beverageproducer.exceptions.*;
+import org.beverageproducer.metrics.PricingMetrics;
+import org.beverageproducer.promotions.BuyXGetYRule;
+import org.beverageproducer.promotions.PercentRule;
+import org.beverageproducer.promotions.PriceEvaluator;
+import org.beverageproducer.promotions.PromotionRule;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Product implements IProduct, Comparable<Product> {
     private final char name;
@@ -20,6 +29,22 @@ public class Product implements IProduct, Comparable<Product> {
     private int toBuyForPromotionDiscount;
     //you can get X free for example, but could also get 1 free for X bought
     private int freeItemsFromPromotionDiscount;
+    //the promotion set by the methods above as a rule, null without one
+    private PromotionRule promotion;
+    //rules stacked on top of the promotion, the list is replaced and never changed
+    private List<PromotionRule> promotionRules;
+    //the rules compiled against the price after markup, reset by every mutator and compiled again on first use
+    //readers only go through this one volatile reference so they never mix old and new state
+    private volatile PriceEvaluator evaluator;
+    //identifies the state of this product, a new value on creation and on every mutation, copies keep it
+    //quote caches compare it to know if a quote with this product is still valid
+    private volatile long version;
+    //set once a catalog publishes the product, every mutator then throws, copies aren't frozen
+    private volatile boolean frozen;
+    //counts the mutations of all products, baskets compare it to know if their cached totals are still valid
+    private static final AtomicLong MODIFICATIONS = new AtomicLong();
+    //source of the versions, separate from MODIFICATIONS because creating a product isn't a modification
+    private static final AtomicLong VERSIONS = new AtomicLong();
 
     public Product(char name, BigDecimal unitCost, MarkupType markupType, BigDecimal markup)
             throws InvalidMarkupException, InvalidUnitCostException {
@@ -31,6 +56,67 @@ public class Product implements IProduct, Comparable<Product> {
         this.percentPromotionDiscount = 0;
         this.toBuyForPromotionDiscount = 0;
         this.freeItemsFromPromotionDiscount = 0;
+        this.promotionRules = List.of();
+    }
+
+    //for values that were validated when they were stored, see CatalogImage
+    //skips the setters, so creating the product doesn't count as a modification either
+    Product(char name, BigDecimal unitCost, MarkupType markupType, BigDecimal markup,
+            PromotionType promotionType, int percentPromotionDiscount, int toBuyForPromotionDiscount, int freeItemsFromPromotionDiscount) {
+        this.name = name;
+        this.unitCost = unitCost;
+        this.markupType = markupType;
+        this.markup = markup;
+        this.promotionType = promotionType;
+        this.percentPromotionDiscount = percentPromotionDiscount;
+        this.toBuyForPromotionDiscount = toBuyForPromotionDiscount;
+        this.freeItemsFromPromotionDiscount = freeItemsFromPromotionDiscount;
+        this.promotionRules = List.of();
+        this.version = VERSIONS.incrementAndGet();
+        try {
+            if (promotionType == PromotionType.PERCENT) {
+                this.promotion = new PercentRule(percentPromotionDiscount);
+            } else if (promotionType == PromotionType.GET_FREE_ITEMS) {
+                this.promotion = new BuyXGetYRule(toBuyForPromotionDiscount, freeItemsFromPromotionDiscount);
+            }
+        } catch (InvalidPercentException | InvalidCountOfItemsException e) {
+            throw new IllegalArgumentException("Invalid stored promotion of product " + name, e);
+        }
+    }
+
+    //copies the current state, the copy shares no mutable state with the original
+    public Product(Product other) {
+        synchronized (other) {
+            this.name = other.name;
+            this.unitCost = other.unitCost;
+            this.markupType = other.markupType;
+            this.markup = other.markup;
+            this.promotionType = other.promotionType;
+            this.percentPromotionDiscount = other.percentPromotionDiscount;
+            this.toBuyForPromotionDiscount = other.toBuyForPromotionDiscount;
+            this.freeItemsFromPromotionDiscount = other.freeItemsFromPromotionDiscount;
+            this.promotion = other.promotion;
+            this.promotionRules = other.promotionRules;
+            this.evaluator = other.evaluator;
+            this.version = other.version;
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    //makes the product read only, for products that are shared with readers that don't lock it
+    public void freeze() {
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    public static long modificationCount() {
+        return MODIFICATIONS.get();
     }
 
     public char getName() {
@@ -65,64 +151,104 @@ public class Product implements IProduct, Comparable<Product> {
         return freeItemsFromPromotionDiscount;
     }
 
-    public void setUnitCost(BigDecimal unitCost) throws InvalidUnitCostException {
+    //every promotion of the product in the order they are applied
+    public synchronized List<PromotionRule> getPromotionRules() {
+        List<PromotionRule> rules = new ArrayList<>(promotionRules.size() + 1);
+        if (promotion != null) {
+            rules.add(promotion);
+        }
+        rules.addAll(promotionRules);
+        return rules;
+    }
+
+    public synchronized boolean hasPromotion() {
+        return promotion != null || !promotionRules.isEmpty();
+    }
+
+    public synchronized void setUnitCost(BigDecimal unitCost) throws InvalidUnitCostException {
+        checkNotFrozen();
         if (unitCost.compareTo(BigDecimal.valueOf(0)) < 1) {
             throw new InvalidUnitCostException();
         }
         this.unitCost = unitCost;
+        invalidatePrices();
     }
 
-    public void setMarkupType(MarkupType markupType) {
+    public synchronized void setMarkupType(MarkupType markupType) {
+        checkNotFrozen();
         this.markupType = markupType;
+        invalidatePrices();
     }
 
-    public void setMarkup(BigDecimal markup) throws InvalidMarkupException {
+    public synchronized void setMarkup(BigDecimal markup) throws InvalidMarkupException {
+        checkNotFrozen();
         if (markup.compareTo(BigDecimal.valueOf(0)) < 1) {
             throw new InvalidMarkupException();
         }
         this.markup = markup;
+        invalidatePrices();
     }
 
     @Override
-    public boolean addPercentPromotion(int percent)
+    public synchronized boolean addPercentPromotion(int percent)
             throws InvalidPercentException {
-        if (percent <= 0) {
-            throw new InvalidPercentException();
-        }
+        checkNotFrozen();
+        PercentRule rule = new PercentRule(percent);
         this.promotionType = PromotionType.PERCENT;
         this.percentPromotionDiscount = percent;
+        this.toBuyForPromotionDiscount = 0;
+        this.freeItemsFromPromotionDiscount = 0;
+        this.promotion = rule;
+        invalidatePrices();
         return true;
     }
 
     @Override
-    public boolean addFreeItemsPromotion(int toBuy, int freeItems)
+    public synchronized boolean addFreeItemsPromotion(int toBuy, int freeItems)
             throws InvalidCountOfItemsException {
-        if (toBuy < 1 || freeItems < 1) {
-            throw new InvalidCountOfItemsException();
-        }
+        checkNotFrozen();
+        BuyXGetYRule rule = new BuyXGetYRule(toBuy, freeItems);
         this.promotionType = PromotionType.GET_FREE_ITEMS;
+        this.percentPromotionDiscount = 0;
         this.toBuyForPromotionDiscount = toBuy;
         this.freeItemsFromPromotionDiscount = freeItems;
+        this.promotion = rule;
+        invalidatePrices();
         return true;
     }
 
     @Override
-    public boolean removePromotion()
+    public synchronized boolean removePromotion()
             throws NoPromotionToRemoveException {
-        if (promotionType.equals(PromotionType.NONE)) {
+        checkNotFrozen();
+        if (!hasPromotion()) {
             throw new NoPromotionToRemoveException();
         }
+        this.promotion = null;
+        this.promotionRules = List.of();
         this.promotionType = PromotionType.NONE;
         this.toBuyForPromotionDiscount = 0;
         this.freeItemsFromPromotionDiscount = 0;
         this.percentPromotionDiscount = 0;
+        invalidatePrices();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean addPromotionRule(PromotionRule rule) {
+        checkNotFrozen();
+        List<PromotionRule> rules = new ArrayList<>(promotionRules);
+        rules.add(rule);
+        this.promotionRules = List.copyOf(rules);
+        invalidatePrices();
         return true;
     }
 
     @Override
+    //not timed, per line timing costs more than pricing a cached line, baskets count their lines in LINES_PRICED
     public BigDecimal calculatedPrice(int quantityOfItems) throws NegativeCountOfItemsException {
         if (quantityOfItems < 0) {
-            throw new NegativeCountOfItemsException();
+            throw negativeCountOfItems();
         } else if (quantityOfItems == 0) {
             return BigDecimal.valueOf(0);
         }
@@ -132,23 +258,112 @@ public class Product implements IProduct, Comparable<Product> {
     @Override
     public BigDecimal calculatedPricePerItem(int quantityOfItems) throws NegativeCountOfItemsException {
         if (quantityOfItems < 0) {
-            throw new NegativeCountOfItemsException();
+            throw negativeCountOfItems();
         } else if (quantityOfItems == 0) {
             return BigDecimal.valueOf(0);
         }
-        BigDecimal finalPrice;
-        if (markupType == MarkupType.PERCENT) {
-            finalPrice = unitCost.add(unitCost.multiply(markup).divide(BigDecimal.valueOf(100)));
-        } else finalPrice = unitCost.add(markup);
+        return evaluator().pricePerItem(quantityOfItems);
+    }
+
+    //true if every quantity is charged the same price per item, the line price is then linear in the quantity
+    public boolean isPricePerItemConstant() {
+        return evaluator().isConstant();
+    }
 
-        if (promotionType.equals(PromotionType.GET_FREE_ITEMS)) {
-            int paidItems = quantityOfItems - (quantityOfItems / (toBuyForPromotionDiscount + freeItemsFromPromotionDiscount));
-            finalPrice = finalPrice.multiply(BigDecimal.valueOf(paidItems)).divide(BigDecimal.valueOf(quantityOfItems), 2, RoundingMode.HALF_EVEN);
+    //line price of every quantity 0..maxQuantity, the same values as calculatedPrice
+    //most promotions generate them step by step from a running line total, see PriceEvaluator.linePrices
+    public BigDecimal[] calculatedLinePrices(int maxQuantity) throws NegativeCountOfItemsException {
+        if (maxQuantity < 0) {
+            throw negativeCountOfItems();
+        }
+        return evaluator().linePrices(maxQuantity);
+    }
+
+    //throws ArithmeticException if a price needs more than 6 decimals or overflows a long
+    public long[] calculatedLinePricesMicros(int maxQuantity) throws NegativeCountOfItemsException {
+        if (maxQuantity < 0) {
+            throw negativeCountOfItems();
+        }
+        return evaluator().linePricesMicros(maxQuantity);
+    }
+
+    @Override
+    public long calculatedPriceMicros(int quantityOfItems) throws NegativeCountOfItemsException {
+        return Math.multiplyExact(calculatedPricePerItemMicros(quantityOfItems), quantityOfItems);
+    }
+
+    @Override
+    public long calculatedPricePerItemMicros(int quantityOfItems) throws NegativeCountOfItemsException {
+        if (quantityOfItems < 0) {
+            throw negativeCountOfItems();
+        } else if (quantityOfItems == 0) {
+            return 0;
+        }
+        return evaluator().pricePerItemMicros(quantityOfItems);
+    }
+
+    @Override
+    public BigDecimal calculatedPrice(int quantityOfItems, ValidationReport report, int line) {
+        if (quantityOfItems < 0) {
+            report.reject(line, ValidationError.NEGATIVE_COUNT_OF_ITEMS);
+            return null;
+        } else if (quantityOfItems == 0) {
+            return BigDecimal.valueOf(0);
+        }
+        return evaluator().pricePerItem(quantityOfItems).multiply(BigDecimal.valueOf(quantityOfItems));
+    }
+
+    @Override
+    public long calculatedPriceMicros(int quantityOfItems, ValidationReport report, int line) {
+        if (quantityOfItems < 0) {
+            report.reject(line, ValidationError.NEGATIVE_COUNT_OF_ITEMS);
+            return -1;
+        } else if (quantityOfItems == 0) {
+            return 0;
+        }
+        return Math.multiplyExact(evaluator().pricePerItemMicros(quantityOfItems), quantityOfItems);
+    }
+
+    private static NegativeCountOfItemsException negativeCountOfItems() {
+        PricingMetrics.increment(PricingCounter.NEGATIVE_COUNT_OF_ITEMS_EXCEPTIONS);
+        return new NegativeCountOfItemsException();
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Product " + name + " is published and read only");
+        }
+    }
+
+    //has to be called by every mutator while it holds the lock
+    private void invalidatePrices() {
+        evaluator = null;
+        version = VERSIONS.incrementAndGet();
+        MODIFICATIONS.incrementAndGet();
+    }
+
+    private PriceEvaluator evaluator() {
+        PriceEvaluator current = evaluator;
+        return current != null ? current : compileEvaluator();
+    }
 
-        } else if (promotionType.equals(PromotionType.PERCENT)) {
-            finalPrice = finalPrice.subtract(finalPrice.multiply(BigDecimal.valueOf(percentPromotionDiscount).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_EVEN)));
+    private synchronized PriceEvaluator compileEvaluator() {
+        PriceEvaluator current = evaluator;
+        if (current == null) {
+            BigDecimal basePrice;
+            if (markupType == MarkupType.PERCENT) {
+                basePrice = unitCost.add(unitCost.multiply(markup).divide(BigDecimal.valueOf(100)));
+            } else basePrice = unitCost.add(markup);
+            current = PriceEvaluator.constant(basePrice);
+            if (promotion != null) {
+                current = promotion.compile(current);
+            }
+            for (PromotionRule rule : promotionRules) {
+                current = rule.compile(current);
+            }
+            evaluator = current;
         }
-        return finalPrice;
+        return current;
     }
 
     @Override
@@ -164,6 +379,7 @@ public class Product implements IProduct, Comparable<Product> {
                 ", markupType=" + markupType +
                 ", markup=" + markup +
                 ", promotionType=" + promotionType +
+                ", promotionRules=" + promotionRules +
                 '}';
     }
 }
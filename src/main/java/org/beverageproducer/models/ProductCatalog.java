@@ -0,0 +1,68 @@
+package org.beverageproducer.models;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+//products by dense int id, ids are given in registration order and never change
+//the id of a name is found with one array read instead of a TreeMap search
+public class ProductCatalog {
+    public static final int NO_ID = -1;
+    private Product[] products;
+    //product name -> id, sized to the highest registered name
+    private int[] idsByName;
+    private int size;
+
+    public ProductCatalog() {
+        products = new Product[16];
+        idsByName = new int[0];
+    }
+
+    public ProductCatalog(Collection<Product> products) {
+        this();
+        for (Product product : products) {
+            register(product);
+        }
+    }
+
+    //copy that keeps every id, so baskets built on the original stay valid
+    public ProductCatalog(ProductCatalog other) {
+        products = Arrays.copyOf(other.products, other.products.length);
+        idsByName = other.idsByName.clone();
+        size = other.size;
+    }
+
+    //a product with an already registered name takes over its id
+    public int register(Product product) {
+        char name = product.getName();
+        if (name < idsByName.length && idsByName[name] != NO_ID) {
+            products[idsByName[name]] = product;
+            return idsByName[name];
+        }
+        if (name >= idsByName.length) {
+            int oldLength = idsByName.length;
+            idsByName = Arrays.copyOf(idsByName, name + 1);
+            Arrays.fill(idsByName, oldLength, idsByName.length, NO_ID);
+        }
+        if (size == products.length) {
+            products = Arrays.copyOf(products, size * 2);
+        }
+        products[size] = product;
+        idsByName[name] = size;
+        return size++;
+    }
+
+    public int idOf(char name) {
+        return name < idsByName.length ? idsByName[name] : NO_ID;
+    }
+
+    public Product get(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Unknown product id " + id);
+        }
+        return products[id];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,45 @@
+package org.beverageproducer.models;
+
+import java.math.BigDecimal;
+
+//the total of a basket, with all discounts, before and after a promotion change of one of its products
+public class TotalChange {
+    private final int clientId;
+    private final char productName;
+    private final BigDecimal oldTotal;
+    private final BigDecimal newTotal;
+
+    public TotalChange(int clientId, char productName, BigDecimal oldTotal, BigDecimal newTotal) {
+        this.clientId = clientId;
+        this.productName = productName;
+        this.oldTotal = oldTotal;
+        this.newTotal = newTotal;
+    }
+
+    public int getClientId() {
+        return clientId;
+    }
+
+    //the product whose promotion changed
+    public char getProductName() {
+        return productName;
+    }
+
+    public BigDecimal getOldTotal() {
+        return oldTotal;
+    }
+
+    public BigDecimal getNewTotal() {
+        return newTotal;
+    }
+
+    @Override
+    public String toString() {
+        return "TotalChange{" +
+                "clientId=" + clientId +
+                ", productName=" + productName +
+                ", oldTotal=" + oldTotal +
+                ", newTotal=" + newTotal +
+                '}';
+    }
+}
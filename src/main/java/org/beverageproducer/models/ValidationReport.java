@@ -0,0 +1,67 @@
+package org.beverageproducer.models;
+
+import org.beverageproducer.enums.PricingCounter;
+import org.beverageproducer.enums.ValidationError;
+import org.beverageproducer.metrics.PricingMetrics;
+
+import java.util.Arrays;
+
+//errors of the lines of a bulk request, collected by the validating pricing methods instead of throwing
+//an exception per invalid line, a dirty feed then costs no stack traces
+//one report per thread, it can be cleared and reused for the next request
+public class ValidationReport {
+    private static final ValidationError[] ERRORS = ValidationError.values();
+    //line index and error ordinal per rejected line, in the order they were rejected
+    private int[] lines = new int[8];
+    private byte[] errors = new byte[8];
+    private int errorCount;
+
+    public void reject(int line, ValidationError error) {
+        if (errorCount == lines.length) {
+            lines = Arrays.copyOf(lines, errorCount * 2);
+            errors = Arrays.copyOf(errors, errorCount * 2);
+        }
+        lines[errorCount] = line;
+        errors[errorCount++] = (byte) error.ordinal();
+        PricingMetrics.increment(PricingCounter.REJECTED_LINES);
+    }
+
+    public boolean isValid() {
+        return errorCount == 0;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    //line of the given error, errors are numbered from 0 in the order they were rejected
+    public int getLine(int error) {
+        checkError(error);
+        return lines[error];
+    }
+
+    public ValidationError getError(int error) {
+        checkError(error);
+        return ERRORS[errors[error]];
+    }
+
+    public void clear() {
+        errorCount = 0;
+    }
+
+    private void checkError(int error) {
+        if (error < 0 || error >= errorCount) {
+            throw new IndexOutOfBoundsException("Error " + error + " of " + errorCount);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("ValidationReport{errors=[");
+        for (int i = 0; i < errorCount; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(lines[i]).append('=').append(ERRORS[errors[i]]);
+        }
+        return builder.append("]}").toString();
+    }
+}
@@ -0,0 +1,11 @@
+package org.beverageproducer.persistence;
+
+import org.beverageproducer.enums.ChangeType;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+//receives the records of a change log while it is replayed
+public interface ChangeHandler {
+    void apply(long sequence, ChangeType type, DataInput payload) throws IOException;
+}
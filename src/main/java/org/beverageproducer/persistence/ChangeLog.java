@@ -0,0 +1,147 @@
+package org.beverageproducer.persistence;
+
+import org.beverageproducer.enums.ChangeType;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+//append-only log of changes, every record has a sequence number and a CRC32
+//record: int payload length, int crc of the rest, long sequence, byte type, payload
+//a torn or corrupt record at the end (a crash during a write) is cut off when the log is opened
+public class ChangeLog implements Closeable {
+    static final int MAGIC = 0x4250434c;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 17;
+    //larger lengths can only come from a corrupt record
+    private static final int MAX_PAYLOAD = 1 << 26;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+    private final CRC32 crc = new CRC32();
+    private long lastSequence;
+
+    private ChangeLog(FileChannel channel, long lastSequence) {
+        this.channel = channel;
+        this.lastSequence = lastSequence;
+    }
+
+    //replays every valid record through the handler and positions the log for appending after them
+    //lastKnownSequence is the sequence already covered elsewhere (a snapshot), new records continue after the larger one
+    public static ChangeLog open(Path path, long lastKnownSequence, ChangeHandler handler) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ChangeLog log = new ChangeLog(channel, lastKnownSequence);
+            if (channel.size() < HEADER_SIZE) {
+                log.writeHeader();
+            } else {
+                log.replay(handler);
+            }
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    //written to the operating system right away, sync() makes it durable
+    public long append(ChangeType type, byte[] payload, int length) throws IOException {
+        long sequence = lastSequence + 1;
+        if (buffer.capacity() < RECORD_HEADER_SIZE + length) {
+            buffer = ByteBuffer.allocate(Integer.highestOneBit(RECORD_HEADER_SIZE + length) * 2);
+        }
+        buffer.clear();
+        buffer.putInt(length).putInt(0).putLong(sequence).put((byte) type.ordinal()).put(payload, 0, length);
+        crc.reset();
+        crc.update(buffer.array(), 8, RECORD_HEADER_SIZE - 8 + length);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    public void sync() throws IOException {
+        channel.force(false);
+    }
+
+    //drops every record once they are all covered by a snapshot, the sequence numbers keep counting
+    public void truncate() throws IOException {
+        channel.truncate(HEADER_SIZE);
+        channel.position(HEADER_SIZE);
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        channel.truncate(0);
+        channel.write(header, 0);
+        channel.position(HEADER_SIZE);
+        channel.force(true);
+    }
+
+    private void replay(ChangeHandler handler) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a change log");
+        }
+        long position = HEADER_SIZE;
+        long size = channel.size();
+        ChangeType[] types = ChangeType.values();
+        ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        while (size - position >= RECORD_HEADER_SIZE) {
+            recordHeader.clear();
+            readFully(recordHeader, position);
+            int length = recordHeader.getInt(0);
+            if (length < 0 || length > MAX_PAYLOAD || size - position - RECORD_HEADER_SIZE < length) {
+                break;
+            }
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + length);
+            readFully(record, position);
+            crc.reset();
+            crc.update(record.array(), 8, RECORD_HEADER_SIZE - 8 + length);
+            int type = record.get(16);
+            if ((int) crc.getValue() != record.getInt(4) || type < 0 || type >= types.length) {
+                break;
+            }
+            long sequence = record.getLong(8);
+            handler.apply(sequence, types[type],
+                    new DataInputStream(new ByteArrayInputStream(record.array(), RECORD_HEADER_SIZE, length)));
+            lastSequence = Math.max(lastSequence, sequence);
+            position += RECORD_HEADER_SIZE + length;
+        }
+        if (position < size) {
+            channel.truncate(position);
+            channel.force(true);
+        }
+        channel.position(position);
+    }
+
+    private void readFully(ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                throw new IOException("Unexpected end of change log");
+            }
+        }
+    }
+}
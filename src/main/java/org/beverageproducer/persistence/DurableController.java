@@ -0,0 +1,345 @@
+package org.beverageproducer.persistence;
+
+import org.beverageproducer.enums.ChangeType;
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.DiscountTiers;
+import org.beverageproducer.models.Product;
+import org.beverageproducer.promotions.BuyXGetYRule;
+import org.beverageproducer.promotions.PercentRule;
+import org.beverageproducer.promotions.PromotionRule;
+import org.beverageproducer.service.Controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+//Controller whose clients, catalog and baskets survive a restart
+//every change is applied in memory first, so invalid changes throw before anything is written, and then logged
+//a snapshot is written every snapshotInterval changes and the log is cut, a restart loads the snapshot and replays the rest
+//all methods are synchronized, the change log has a single writer
+public class DurableController implements Closeable {
+    static final String LOG_FILE_NAME = "changes.log";
+    public static final long DEFAULT_SNAPSHOT_INTERVAL = 100_000;
+
+    private final Path directory;
+    private final Controller controller;
+    private final boolean syncEveryChange;
+    private final long snapshotInterval;
+    private final ChangeLog log;
+    private final PayloadBuffer payload = new PayloadBuffer();
+    private final DataOutputStream payloadOutput = new DataOutputStream(payload);
+    private long changesSinceSnapshot;
+    //the first failed log write, see append
+    private IOException logFailure;
+
+    private DurableController(Path directory, boolean syncEveryChange, long snapshotInterval) throws IOException {
+        this.directory = directory;
+        this.controller = new Controller();
+        this.syncEveryChange = syncEveryChange;
+        this.snapshotInterval = snapshotInterval;
+        long snapshotSequence = SnapshotStore.read(directory, controller);
+        this.log = ChangeLog.open(directory.resolve(LOG_FILE_NAME), snapshotSequence, (sequence, type, input) -> {
+            //records already in the snapshot are left over from a crash before the log was cut
+            if (sequence > snapshotSequence) {
+                replay(type, input);
+                changesSinceSnapshot++;
+            }
+        });
+    }
+
+    //every change is synced to disk before its method returns
+    public static DurableController open(Path directory) throws IOException {
+        return open(directory, true, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    //without syncEveryChange changes reach the disk on sync(), snapshot() or close(), a crash may lose the ones after the last sync
+    public static DurableController open(Path directory, boolean syncEveryChange, long snapshotInterval) throws IOException {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("Snapshot interval has to be positive");
+        }
+        Files.createDirectories(directory);
+        return new DurableController(directory, syncEveryChange, snapshotInterval);
+    }
+
+    //read only use, changes that don't go through this class are not persisted
+    public Controller getController() {
+        return controller;
+    }
+
+    public synchronized long getLastSequence() {
+        return log.getLastSequence();
+    }
+
+    //the product is stored with its promotions
+    public synchronized void addProduct(Product product) throws IOException {
+        if (controller.getProducts().containsKey(product.getName())) {
+            throw new IllegalArgumentException("Product " + product.getName() + " already exists");
+        }
+        Product copy = new Product(product);
+        StateCodec.writeProduct(start(), copy);
+        append(ChangeType.ADD_PRODUCT);
+        controller.getProducts().put(copy.getName(), copy);
+        applied();
+    }
+
+    public synchronized void setProductPrice(char productName, BigDecimal unitCost, MarkupType markupType, BigDecimal markup)
+            throws IOException, InvalidUnitCostException, InvalidMarkupException {
+        Product product = getProduct(productName);
+        //validated as a whole so a rejected change leaves the product untouched
+        new Product(productName, unitCost, markupType, markup);
+        DataOutputStream output = start();
+        output.writeChar(productName);
+        StateCodec.writeDecimal(output, unitCost);
+        output.writeByte(markupType.ordinal());
+        StateCodec.writeDecimal(output, markup);
+        append(ChangeType.PRODUCT_PRICE);
+        product.setUnitCost(unitCost);
+        product.setMarkupType(markupType);
+        product.setMarkup(markup);
+        applied();
+    }
+
+    public synchronized void addPercentPromotion(char productName, int percent) throws IOException, InvalidPercentException {
+        Product product = getProduct(productName);
+        new PercentRule(percent);
+        DataOutputStream output = start();
+        output.writeChar(productName);
+        output.writeInt(percent);
+        append(ChangeType.PERCENT_PROMOTION);
+        product.addPercentPromotion(percent);
+        applied();
+    }
+
+    public synchronized void addFreeItemsPromotion(char productName, int toBuy, int freeItems) throws IOException, InvalidCountOfItemsException {
+        Product product = getProduct(productName);
+        new BuyXGetYRule(toBuy, freeItems);
+        DataOutputStream output = start();
+        output.writeChar(productName);
+        output.writeInt(toBuy);
+        output.writeInt(freeItems);
+        append(ChangeType.FREE_ITEMS_PROMOTION);
+        product.addFreeItemsPromotion(toBuy, freeItems);
+        applied();
+    }
+
+    //only the rules of the promotions package can be persisted, others throw IllegalArgumentException
+    public synchronized void addPromotionRule(char productName, PromotionRule rule) throws IOException {
+        Product product = getProduct(productName);
+        DataOutputStream output = start();
+        output.writeChar(productName);
+        StateCodec.writeRule(output, rule);
+        append(ChangeType.PROMOTION_RULE);
+        product.addPromotionRule(rule);
+        applied();
+    }
+
+    public synchronized void removePromotion(char productName) throws IOException, NoPromotionToRemoveException {
+        Product product = getProduct(productName);
+        if (!product.hasPromotion()) {
+            throw new NoPromotionToRemoveException();
+        }
+        start().writeChar(productName);
+        append(ChangeType.REMOVE_PROMOTION);
+        product.removePromotion();
+        applied();
+    }
+
+    //the client is stored with its discounts and basket, the products of the basket have to be in the catalog
+    public synchronized void addClient(Client client) throws IOException {
+        if (controller.getClients().containsKey(client.getId())) {
+            throw new IllegalArgumentException("Client " + client.getId() + " already exists");
+        }
+        Client copy = new Client(client);
+        try {
+            for (Map.Entry<Product, Integer> entry : client.getOrderedProducts().entrySet()) {
+                copy.addOrderedProduct(getProduct(entry.getKey().getName()), entry.getValue());
+            }
+        } catch (InvalidCountOfItemsException e) {
+            throw new IllegalStateException(e);
+        }
+        StateCodec.writeClient(start(), copy);
+        append(ChangeType.ADD_CLIENT);
+        controller.getClients().put(copy.getId(), copy);
+        applied();
+    }
+
+    public synchronized void setClientDiscounts(int clientId, int basicClientDiscountPercent, DiscountTiers discountTiers)
+            throws IOException, InvalidPercentException {
+        Client client = getClient(clientId);
+        //validated on a throwaway client so a rejected change leaves the client untouched
+        new Client(clientId, basicClientDiscountPercent, 0, 0);
+        DataOutputStream output = start();
+        output.writeInt(clientId);
+        output.writeInt(basicClientDiscountPercent);
+        StateCodec.writeTiers(output, discountTiers);
+        append(ChangeType.CLIENT_DISCOUNTS);
+        client.setBasicClientDiscountPercent(basicClientDiscountPercent);
+        client.setDiscountTiers(discountTiers);
+        applied();
+    }
+
+    public synchronized void addOrderedProduct(int clientId, char productName, int quantity) throws IOException, InvalidCountOfItemsException {
+        Client client = getClient(clientId);
+        Product product = getProduct(productName);
+        //validated on an empty copy so a rejected quantity leaves the basket untouched
+        new Client(client).addOrderedProduct(product, quantity);
+        DataOutputStream output = start();
+        output.writeInt(clientId);
+        output.writeChar(productName);
+        output.writeInt(quantity);
+        append(ChangeType.ORDER_LINE);
+        client.addOrderedProduct(product, quantity);
+        applied();
+    }
+
+    public synchronized boolean removeOrderedProduct(int clientId, char productName) throws IOException {
+        Client client = getClient(clientId);
+        Product product = getProduct(productName);
+        if (!client.getOrderedProducts().containsKey(product)) {
+            return false;
+        }
+        DataOutputStream output = start();
+        output.writeInt(clientId);
+        output.writeChar(productName);
+        append(ChangeType.REMOVE_LINE);
+        client.removeOrderedProduct(product);
+        applied();
+        return true;
+    }
+
+    public synchronized void sync() throws IOException {
+        log.sync();
+    }
+
+    //writes the whole state and cuts the log, also called every snapshotInterval changes
+    public synchronized void snapshot() throws IOException {
+        log.sync();
+        //the snapshot is durable, rename and directory included, before the log is cut, see SnapshotStore.write
+        SnapshotStore.write(directory, log.getLastSequence(), controller);
+        log.truncate();
+        changesSinceSnapshot = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            log.sync();
+        } finally {
+            log.close();
+        }
+    }
+
+    private DataOutputStream start() {
+        payload.reset();
+        return payloadOutput;
+    }
+
+    //write ahead: the change is validated, logged and synced before it is applied in memory
+    //so a failed write leaves the in-memory state as it was
+    //after a failed write the log may end in a torn record, later records would be lost behind it,
+    //so no change is accepted until the controller is opened again
+    private void append(ChangeType type) throws IOException {
+        if (logFailure != null) {
+            throw new IOException("Change log failed, reopen the controller", logFailure);
+        }
+        try {
+            payloadOutput.flush();
+            log.append(type, payload.array(), payload.size());
+            if (syncEveryChange) {
+                log.sync();
+            }
+        } catch (IOException e) {
+            logFailure = e;
+            throw e;
+        }
+    }
+
+    //the snapshot has to contain the change, so it is taken after the change was applied
+    private void applied() throws IOException {
+        if (++changesSinceSnapshot >= snapshotInterval) {
+            snapshot();
+        }
+    }
+
+    private void replay(ChangeType type, DataInput input) throws IOException {
+        Map<Character, Product> products = controller.getProducts();
+        Map<Integer, Client> clients = controller.getClients();
+        try {
+            switch (type) {
+                case ADD_PRODUCT:
+                    Product product = StateCodec.readProduct(input);
+                    products.put(product.getName(), product);
+                    break;
+                case PRODUCT_PRICE:
+                    Product priced = StateCodec.product(products, input.readChar());
+                    priced.setUnitCost(StateCodec.readDecimal(input));
+                    priced.setMarkupType(MarkupType.values()[input.readByte()]);
+                    priced.setMarkup(StateCodec.readDecimal(input));
+                    break;
+                case PERCENT_PROMOTION:
+                    StateCodec.product(products, input.readChar()).addPercentPromotion(input.readInt());
+                    break;
+                case FREE_ITEMS_PROMOTION:
+                    StateCodec.product(products, input.readChar()).addFreeItemsPromotion(input.readInt(), input.readInt());
+                    break;
+                case PROMOTION_RULE:
+                    StateCodec.product(products, input.readChar()).addPromotionRule(StateCodec.readRule(input));
+                    break;
+                case REMOVE_PROMOTION:
+                    StateCodec.product(products, input.readChar()).removePromotion();
+                    break;
+                case ADD_CLIENT:
+                    Client client = StateCodec.readClient(input, products);
+                    clients.put(client.getId(), client);
+                    break;
+                case CLIENT_DISCOUNTS:
+                    Client discounted = StateCodec.client(clients, input.readInt());
+                    discounted.setBasicClientDiscountPercent(input.readInt());
+                    discounted.setDiscountTiers(StateCodec.readTiers(input));
+                    break;
+                case ORDER_LINE:
+                    Client ordering = StateCodec.client(clients, input.readInt());
+                    ordering.addOrderedProduct(StateCodec.product(products, input.readChar()), input.readInt());
+                    break;
+                case REMOVE_LINE:
+                    Client removing = StateCodec.client(clients, input.readInt());
+                    removing.removeOrderedProduct(StateCodec.product(products, input.readChar()));
+                    break;
+            }
+        } catch (InvalidUnitCostException | InvalidMarkupException | InvalidPercentException | InvalidCountOfItemsException
+                 | NoPromotionToRemoveException | ArrayIndexOutOfBoundsException e) {
+            throw StateCodec.corrupt(e);
+        }
+    }
+
+    private Product getProduct(char productName) {
+        Product product = controller.getProducts().get(productName);
+        if (product == null) {
+            throw new IllegalArgumentException("Unknown product " + productName);
+        }
+        return product;
+    }
+
+    private Client getClient(int clientId) {
+        Client client = controller.getClients().get(clientId);
+        if (client == null) {
+            throw new IllegalArgumentException("Unknown client " + clientId);
+        }
+        return client;
+    }
+
+    //exposes the buffer so a payload is appended without copying it
+    private static final class PayloadBuffer extends ByteArrayOutputStream {
+        private byte[] array() {
+            return buf;
+        }
+    }
+}
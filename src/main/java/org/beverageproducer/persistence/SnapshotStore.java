@@ -0,0 +1,98 @@
+package org.beverageproducer.persistence;
+
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.Product;
+import org.beverageproducer.service.Controller;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+//compact binary image of a Controller: header, the sequence of the last change it contains, products, clients, CRC32
+//written to a temporary file and renamed over the previous snapshot, so a crash leaves either the old or the new one
+final class SnapshotStore {
+    static final String FILE_NAME = "snapshot.bin";
+    static final int MAGIC = 0x42505353;
+    static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private SnapshotStore() {
+    }
+
+    static void write(Path directory, long sequence, Controller controller) throws IOException {
+        Path temporary = directory.resolve(FILE_NAME + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            BufferedOutputStream buffered = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            CheckedOutputStream checked = new CheckedOutputStream(buffered, new CRC32());
+            DataOutputStream output = new DataOutputStream(checked);
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(sequence);
+            output.writeInt(controller.getProducts().size());
+            for (Product product : controller.getProducts().values()) {
+                StateCodec.writeProduct(output, product);
+            }
+            output.writeInt(controller.getClients().size());
+            for (Client client : controller.getClients().values()) {
+                StateCodec.writeClient(output, client);
+            }
+            output.flush();
+            new DataOutputStream(buffered).writeInt((int) checked.getChecksum().getValue());
+            buffered.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        //the rename is only durable once the directory is synced, this has to happen before the caller cuts the log
+        //otherwise a power loss can keep the cut log but lose the rename, and the old snapshot loads against an empty log
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        }
+    }
+
+    //fills the empty controller and returns the sequence of the snapshot, 0 without a snapshot
+    static long read(Path directory, Controller controller) throws IOException {
+        Path path = directory.resolve(FILE_NAME);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (InputStream buffered = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE)) {
+            CheckedInputStream checked = new CheckedInputStream(buffered, new CRC32());
+            DataInputStream input = new DataInputStream(checked);
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Not a snapshot " + path);
+            }
+            long sequence = input.readLong();
+            Map<Character, Product> products = controller.getProducts();
+            int productCount = input.readInt();
+            for (int i = 0; i < productCount; i++) {
+                Product product = StateCodec.readProduct(input);
+                products.put(product.getName(), product);
+            }
+            Map<Integer, Client> clients = controller.getClients();
+            int clientCount = input.readInt();
+            for (int i = 0; i < clientCount; i++) {
+                Client client = StateCodec.readClient(input, products);
+                clients.put(client.getId(), client);
+            }
+            int expected = (int) checked.getChecksum().getValue();
+            if (new DataInputStream(buffered).readInt() != expected) {
+                throw new IOException("Corrupt snapshot " + path);
+            }
+            return sequence;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.beverageproducer.persistence;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.enums.PromotionType;
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.DiscountTiers;
+import org.beverageproducer.models.Product;
+import org.beverageproducer.promotions.BundleRule;
+import org.beverageproducer.promotions.BuyXGetYRule;
+import org.beverageproducer.promotions.PercentRule;
+import org.beverageproducer.promotions.PromotionRule;
+import org.beverageproducer.promotions.TieredRule;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+//binary form of the model objects shared by the change log and the snapshots
+//values that fail validation when read back mean the file is corrupt and are reported as IOException
+final class StateCodec {
+    private static final byte PERCENT_RULE = 0;
+    private static final byte BUY_X_GET_Y_RULE = 1;
+    private static final byte BUNDLE_RULE = 2;
+    private static final byte TIERED_RULE = 3;
+
+    private StateCodec() {
+    }
+
+    static void writeDecimal(DataOutput output, BigDecimal value) throws IOException {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        output.writeInt(value.scale());
+        output.writeShort(unscaled.length);
+        output.write(unscaled);
+    }
+
+    static BigDecimal readDecimal(DataInput input) throws IOException {
+        int scale = input.readInt();
+        byte[] unscaled = new byte[input.readUnsignedShort()];
+        input.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    static void writeTiers(DataOutput output, DiscountTiers tiers) throws IOException {
+        output.writeInt(tiers.size());
+        for (int i = 0; i < tiers.size(); i++) {
+            output.writeInt(tiers.getMinQuantity(i));
+            output.writeInt(tiers.getPercent(i));
+        }
+    }
+
+    static DiscountTiers readTiers(DataInput input) throws IOException {
+        int[] minQuantities = new int[input.readInt()];
+        int[] percents = new int[minQuantities.length];
+        for (int i = 0; i < minQuantities.length; i++) {
+            minQuantities[i] = input.readInt();
+            percents[i] = input.readInt();
+        }
+        try {
+            return DiscountTiers.of(minQuantities, percents);
+        } catch (InvalidCountOfItemsException | InvalidPercentException e) {
+            throw corrupt(e);
+        }
+    }
+
+    //only the rules of the promotions package can be stored
+    static void writeRule(DataOutput output, PromotionRule rule) throws IOException {
+        if (rule instanceof PercentRule) {
+            output.writeByte(PERCENT_RULE);
+            output.writeInt(((PercentRule) rule).getPercent());
+        } else if (rule instanceof BuyXGetYRule) {
+            output.writeByte(BUY_X_GET_Y_RULE);
+            output.writeInt(((BuyXGetYRule) rule).getToBuy());
+            output.writeInt(((BuyXGetYRule) rule).getFreeItems());
+        } else if (rule instanceof BundleRule) {
+            output.writeByte(BUNDLE_RULE);
+            output.writeInt(((BundleRule) rule).getBundleSize());
+            writeDecimal(output, ((BundleRule) rule).getBundlePrice());
+        } else if (rule instanceof TieredRule) {
+            int[] minQuantities = ((TieredRule) rule).getMinQuantities();
+            int[] percents = ((TieredRule) rule).getPercents();
+            output.writeByte(TIERED_RULE);
+            output.writeInt(minQuantities.length);
+            for (int i = 0; i < minQuantities.length; i++) {
+                output.writeInt(minQuantities[i]);
+                output.writeInt(percents[i]);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported promotion rule " + rule);
+        }
+    }
+
+    static PromotionRule readRule(DataInput input) throws IOException {
+        try {
+            byte type = input.readByte();
+            switch (type) {
+                case PERCENT_RULE:
+                    return new PercentRule(input.readInt());
+                case BUY_X_GET_Y_RULE:
+                    return new BuyXGetYRule(input.readInt(), input.readInt());
+                case BUNDLE_RULE:
+                    return new BundleRule(input.readInt(), readDecimal(input));
+                case TIERED_RULE:
+                    int[] minQuantities = new int[input.readInt()];
+                    int[] percents = new int[minQuantities.length];
+                    for (int i = 0; i < minQuantities.length; i++) {
+                        minQuantities[i] = input.readInt();
+                        percents[i] = input.readInt();
+                    }
+                    return new TieredRule(minQuantities, percents);
+                default:
+                    throw new IOException("Unknown promotion rule type " + type);
+            }
+        } catch (InvalidPercentException | InvalidCountOfItemsException | InvalidUnitCostException e) {
+            throw corrupt(e);
+        }
+    }
+
+    //the product with its promotions
+    static void writeProduct(DataOutput output, Product product) throws IOException {
+        output.writeChar(product.getName());
+        writeDecimal(output, product.getUnitCost());
+        output.writeByte(product.getMarkupType().ordinal());
+        writeDecimal(output, product.getMarkup());
+        //the first rule is the promotion set by addPercentPromotion or addFreeItemsPromotion, it is restored by them
+        List<PromotionRule> rules = product.getPromotionRules();
+        int stackedFrom = product.getPromotionType() == PromotionType.NONE ? 0 : 1;
+        output.writeByte(product.getPromotionType().ordinal());
+        output.writeInt(product.getPercentPromotionDiscount());
+        output.writeInt(product.getToBuyForPromotionDiscount());
+        output.writeInt(product.getFreeItemsFromPromotionDiscount());
+        output.writeInt(rules.size() - stackedFrom);
+        for (int i = stackedFrom; i < rules.size(); i++) {
+            writeRule(output, rules.get(i));
+        }
+    }
+
+    static Product readProduct(DataInput input) throws IOException {
+        try {
+            Product product = new Product(input.readChar(), readDecimal(input), MarkupType.values()[input.readByte()], readDecimal(input));
+            PromotionType promotionType = PromotionType.values()[input.readByte()];
+            int percent = input.readInt();
+            int toBuy = input.readInt();
+            int freeItems = input.readInt();
+            if (promotionType == PromotionType.PERCENT) {
+                product.addPercentPromotion(percent);
+            } else if (promotionType == PromotionType.GET_FREE_ITEMS) {
+                product.addFreeItemsPromotion(toBuy, freeItems);
+            }
+            int rules = input.readInt();
+            for (int i = 0; i < rules; i++) {
+                product.addPromotionRule(readRule(input));
+            }
+            return product;
+        } catch (InvalidMarkupException | InvalidUnitCostException | InvalidPercentException | InvalidCountOfItemsException
+                 | ArrayIndexOutOfBoundsException e) {
+            throw corrupt(e);
+        }
+    }
+
+    //the client with its discounts and basket, basket lines refer to products by name
+    static void writeClient(DataOutput output, Client client) throws IOException {
+        output.writeInt(client.getId());
+        output.writeInt(client.getBasicClientDiscountPercent());
+        writeTiers(output, client.getDiscountTiers());
+        Map<Product, Integer> orderedProducts = client.getOrderedProducts();
+        output.writeInt(orderedProducts.size());
+        for (Map.Entry<Product, Integer> entry : orderedProducts.entrySet()) {
+            output.writeChar(entry.getKey().getName());
+            output.writeInt(entry.getValue());
+        }
+    }
+
+    static Client readClient(DataInput input, Map<Character, Product> products) throws IOException {
+        try {
+            Client client = new Client(input.readInt(), input.readInt(), 0, 0);
+            client.setDiscountTiers(readTiers(input));
+            int lines = input.readInt();
+            for (int i = 0; i < lines; i++) {
+                client.addOrderedProduct(product(products, input.readChar()), input.readInt());
+            }
+            return client;
+        } catch (InvalidPercentException | InvalidCountOfItemsException e) {
+            throw corrupt(e);
+        }
+    }
+
+    static Product product(Map<Character, Product> products, char name) throws IOException {
+        Product product = products.get(name);
+        if (product == null) {
+            throw new IOException("Unknown product " + name);
+        }
+        return product;
+    }
+
+    static Client client(Map<Integer, Client> clients, int id) throws IOException {
+        Client client = clients.get(id);
+        if (client == null) {
+            throw new IOException("Unknown client " + id);
+        }
+        return client;
+    }
+
+    static IOException corrupt(Exception cause) {
+        return new IOException("Invalid stored value: " + cause, cause);
+    }
+}
@@ -0,0 +1,71 @@
+package org.beverageproducer.promotions;
+
+import org.beverageproducer.exceptions.InvalidCountOfItemsException;
+import org.beverageproducer.exceptions.InvalidUnitCostException;
+
+import java.math.BigDecimal;
+
+//every full bundle of bundleSize items costs bundlePrice, the remaining items keep their price
+public class BundleRule implements PromotionRule {
+    private final int bundleSize;
+    private final BigDecimal bundlePrice;
+
+    public BundleRule(int bundleSize, BigDecimal bundlePrice) throws InvalidCountOfItemsException, InvalidUnitCostException {
+        if (bundleSize < 2) {
+            throw new InvalidCountOfItemsException();
+        }
+        if (bundlePrice.compareTo(BigDecimal.valueOf(0)) < 1) {
+            throw new InvalidUnitCostException();
+        }
+        this.bundleSize = bundleSize;
+        this.bundlePrice = bundlePrice;
+    }
+
+    public int getBundleSize() {
+        return bundleSize;
+    }
+
+    public BigDecimal getBundlePrice() {
+        return bundlePrice;
+    }
+
+    @Override
+    public PriceEvaluator compile(PriceEvaluator previous) {
+        return new BundlePrice(previous, bundleSize, bundlePrice);
+    }
+
+    @Override
+    public String toString() {
+        return "BundleRule{" +
+                "bundleSize=" + bundleSize +
+                ", bundlePrice=" + bundlePrice +
+                '}';
+    }
+
+    private static final class BundlePrice extends DerivedPrice {
+        private final int bundleSize;
+        private final ConstantPrice bundlePrice;
+
+        private BundlePrice(PriceEvaluator previous, int bundleSize, BigDecimal bundlePrice) {
+            super(previous);
+            this.bundleSize = bundleSize;
+            this.bundlePrice = new ConstantPrice(bundlePrice);
+        }
+
+        @Override
+        public BigDecimal pricePerItem(int quantityOfItems) {
+            int bundles = quantityOfItems / bundleSize;
+            BigDecimal linePrice = bundlePrice.price().multiply(BigDecimal.valueOf(bundles))
+                    .add(previousPrice(quantityOfItems).multiply(BigDecimal.valueOf(quantityOfItems % bundleSize)));
+            return PromotionMath.perItem(linePrice, quantityOfItems);
+        }
+
+        @Override
+        public long pricePerItemMicros(int quantityOfItems) {
+            int bundles = quantityOfItems / bundleSize;
+            long linePrice = Math.addExact(Math.multiplyExact(bundlePrice.pricePerItemMicros(1), bundles),
+                    Math.multiplyExact(previousPriceMicros(quantityOfItems), quantityOfItems % bundleSize));
+            return PromotionMath.perItemMicros(linePrice, quantityOfItems);
+        }
+    }
+}
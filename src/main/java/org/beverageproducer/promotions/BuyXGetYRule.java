@@ -0,0 +1,97 @@
+package org.beverageproducer.promotions;
+
+import org.beverageproducer.exceptions.InvalidCountOfItemsException;
+
+import java.math.BigDecimal;
+
+//for every toBuy items bought the next freeItems are free, the price is spread over all items
+public class BuyXGetYRule implements PromotionRule {
+    private final int toBuy;
+    private final int freeItems;
+
+    public BuyXGetYRule(int toBuy, int freeItems) throws InvalidCountOfItemsException {
+        if (toBuy < 1 || freeItems < 1) {
+            throw new InvalidCountOfItemsException();
+        }
+        this.toBuy = toBuy;
+        this.freeItems = freeItems;
+    }
+
+    public int getToBuy() {
+        return toBuy;
+    }
+
+    public int getFreeItems() {
+        return freeItems;
+    }
+
+    @Override
+    public PriceEvaluator compile(PriceEvaluator previous) {
+        return new FreeItemsPrice(previous, toBuy + freeItems);
+    }
+
+    @Override
+    public String toString() {
+        return "BuyXGetYRule{" +
+                "toBuy=" + toBuy +
+                ", freeItems=" + freeItems +
+                '}';
+    }
+
+    private static final class FreeItemsPrice extends DerivedPrice {
+        private final int bundle;
+
+        private FreeItemsPrice(PriceEvaluator previous, int bundle) {
+            super(previous);
+            this.bundle = bundle;
+        }
+
+        @Override
+        public BigDecimal pricePerItem(int quantityOfItems) {
+            int paidItems = quantityOfItems - (quantityOfItems / bundle);
+            return PromotionMath.perItem(previousPrice(quantityOfItems).multiply(BigDecimal.valueOf(paidItems)), quantityOfItems);
+        }
+
+        @Override
+        public long pricePerItemMicros(int quantityOfItems) {
+            int paidItems = quantityOfItems - (quantityOfItems / bundle);
+            return PromotionMath.perItemMicros(Math.multiplyExact(previousPriceMicros(quantityOfItems), paidItems), quantityOfItems);
+        }
+
+        //the price of the paid items is a running total, every item is added except the last one of each bundle
+        @Override
+        public BigDecimal[] linePrices(int maxQuantity) {
+            ConstantPrice constant = constantPrevious();
+            if (constant == null) {
+                return super.linePrices(maxQuantity);
+            }
+            BigDecimal[] prices = new BigDecimal[maxQuantity + 1];
+            prices[0] = BigDecimal.valueOf(0);
+            BigDecimal paid = BigDecimal.valueOf(0);
+            for (int quantity = 1; quantity <= maxQuantity; quantity++) {
+                if (quantity % bundle != 0) {
+                    paid = paid.add(constant.price());
+                }
+                prices[quantity] = PromotionMath.perItem(paid, quantity).multiply(BigDecimal.valueOf(quantity));
+            }
+            return prices;
+        }
+
+        @Override
+        public long[] linePricesMicros(int maxQuantity) {
+            ConstantPrice constant = constantPrevious();
+            if (constant == null) {
+                return super.linePricesMicros(maxQuantity);
+            }
+            long[] prices = new long[maxQuantity + 1];
+            long paidMicros = 0;
+            for (int quantity = 1; quantity <= maxQuantity; quantity++) {
+                if (quantity % bundle != 0) {
+                    paidMicros = Math.addExact(paidMicros, constant.pricePerItemMicros(quantity));
+                }
+                prices[quantity] = Math.multiplyExact(PromotionMath.perItemMicros(paidMicros, quantity), quantity);
+            }
+            return prices;
+        }
+    }
+}
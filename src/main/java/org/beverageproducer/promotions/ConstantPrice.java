@@ -0,0 +1,65 @@
+package org.beverageproducer.promotions;
+
+import org.beverageproducer.models.FixedPoint;
+
+import java.math.BigDecimal;
+
+final class ConstantPrice implements PriceEvaluator {
+    private static final long NOT_REPRESENTABLE = Long.MIN_VALUE;
+    private final BigDecimal price;
+    private final long priceMicros;
+
+    ConstantPrice(BigDecimal price) {
+        this.price = price;
+        this.priceMicros = toMicros(price);
+    }
+
+    BigDecimal price() {
+        return price;
+    }
+
+    @Override
+    public BigDecimal pricePerItem(int quantityOfItems) {
+        return price;
+    }
+
+    @Override
+    public long pricePerItemMicros(int quantityOfItems) {
+        if (priceMicros == NOT_REPRESENTABLE) {
+            throw new ArithmeticException("Price " + price + " can't be represented in micro-euros");
+        }
+        return priceMicros;
+    }
+
+    @Override
+    public BigDecimal[] linePrices(int maxQuantity) {
+        BigDecimal[] prices = new BigDecimal[maxQuantity + 1];
+        prices[0] = BigDecimal.valueOf(0);
+        for (int quantity = 1; quantity <= maxQuantity; quantity++) {
+            prices[quantity] = prices[quantity - 1].add(price);
+        }
+        return prices;
+    }
+
+    @Override
+    public long[] linePricesMicros(int maxQuantity) {
+        long[] prices = new long[maxQuantity + 1];
+        for (int quantity = 1; quantity <= maxQuantity; quantity++) {
+            prices[quantity] = Math.addExact(prices[quantity - 1], pricePerItemMicros(quantity));
+        }
+        return prices;
+    }
+
+    @Override
+    public boolean isConstant() {
+        return true;
+    }
+
+    private static long toMicros(BigDecimal price) {
+        try {
+            return FixedPoint.toMicros(price);
+        } catch (ArithmeticException e) {
+            return NOT_REPRESENTABLE;
+        }
+    }
+}
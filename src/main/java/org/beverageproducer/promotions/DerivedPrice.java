@@ -0,0 +1,37 @@
+package org.beverageproducer.promotions;
+
+import java.math.BigDecimal;
+
+//evaluator of a quantity dependent rule, a constant previous price is folded in so it costs no extra call
+abstract class DerivedPrice implements PriceEvaluator {
+    private final PriceEvaluator previous;
+    private final ConstantPrice constant;
+
+    DerivedPrice(PriceEvaluator previous) {
+        if (previous instanceof ConstantPrice) {
+            this.previous = null;
+            this.constant = (ConstantPrice) previous;
+        } else {
+            this.previous = previous;
+            this.constant = null;
+        }
+    }
+
+    final BigDecimal previousPrice(int quantityOfItems) {
+        return previous == null ? constant.price() : previous.pricePerItem(quantityOfItems);
+    }
+
+    final long previousPriceMicros(int quantityOfItems) {
+        return previous == null ? constant.pricePerItemMicros(quantityOfItems) : previous.pricePerItemMicros(quantityOfItems);
+    }
+
+    //the previous price if it doesn't depend on the quantity, null otherwise
+    final ConstantPrice constantPrevious() {
+        return constant;
+    }
+
+    @Override
+    public boolean isConstant() {
+        return false;
+    }
+}
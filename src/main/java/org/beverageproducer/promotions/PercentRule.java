@@ -0,0 +1,55 @@
+package org.beverageproducer.promotions;
+
+import org.beverageproducer.exceptions.InvalidPercentException;
+
+import java.math.BigDecimal;
+
+//percent off the price per item
+public class PercentRule implements PromotionRule {
+    private final int percent;
+
+    public PercentRule(int percent) throws InvalidPercentException {
+        if (percent <= 0) {
+            throw new InvalidPercentException();
+        }
+        this.percent = percent;
+    }
+
+    public int getPercent() {
+        return percent;
+    }
+
+    @Override
+    public PriceEvaluator compile(PriceEvaluator previous) {
+        if (previous instanceof ConstantPrice) {
+            return new ConstantPrice(PromotionMath.percentOff(((ConstantPrice) previous).price(), percent));
+        }
+        return new PercentOffPrice(previous, percent);
+    }
+
+    @Override
+    public String toString() {
+        return "PercentRule{" +
+                "percent=" + percent +
+                '}';
+    }
+
+    private static final class PercentOffPrice extends DerivedPrice {
+        private final int percent;
+
+        private PercentOffPrice(PriceEvaluator previous, int percent) {
+            super(previous);
+            this.percent = percent;
+        }
+
+        @Override
+        public BigDecimal pricePerItem(int quantityOfItems) {
+            return PromotionMath.percentOff(previousPrice(quantityOfItems), percent);
+        }
+
+        @Override
+        public long pricePerItemMicros(int quantityOfItems) {
+            return PromotionMath.percentOffMicros(previousPriceMicros(quantityOfItems), percent);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.beverageproducer.promotions;
+
+import java.math.BigDecimal;
+
+//price per item of a product after all of its promotions, compiled once from the promotion rules
+public interface PriceEvaluator {
+    //the quantity is always positive
+    BigDecimal pricePerItem(int quantityOfItems);
+
+    //throws ArithmeticException if the price needs more than 6 decimals
+    long pricePerItemMicros(int quantityOfItems);
+
+    //true if the price per item doesn't depend on the quantity
+    boolean isConstant();
+
+    //line price of every quantity 0..maxQuantity, the same values as the price per item times the quantity
+    //rules that can add the next item to a running line total override it
+    default BigDecimal[] linePrices(int maxQuantity) {
+        BigDecimal[] prices = new BigDecimal[maxQuantity + 1];
+        prices[0] = BigDecimal.valueOf(0);
+        for (int quantity = 1; quantity <= maxQuantity; quantity++) {
+            prices[quantity] = pricePerItem(quantity).multiply(BigDecimal.valueOf(quantity));
+        }
+        return prices;
+    }
+
+    //throws ArithmeticException like pricePerItemMicros
+    default long[] linePricesMicros(int maxQuantity) {
+        long[] prices = new long[maxQuantity + 1];
+        for (int quantity = 1; quantity <= maxQuantity; quantity++) {
+            prices[quantity] = Math.multiplyExact(pricePerItemMicros(quantity), quantity);
+        }
+        return prices;
+    }
+
+    static PriceEvaluator constant(BigDecimal price) {
+        return new ConstantPrice(price);
+    }
+}
@@ -0,0 +1,34 @@
+package org.beverageproducer.promotions;
+
+import org.beverageproducer.models.FixedPoint;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+//the price formulas shared by the rules, the micro-euro variants give exactly the BigDecimal results
+final class PromotionMath {
+    private PromotionMath() {
+    }
+
+    static BigDecimal percentOff(BigDecimal price, int percent) {
+        return price.subtract(price.multiply(BigDecimal.valueOf(percent).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_EVEN)));
+    }
+
+    static long percentOffMicros(long priceMicros, int percent) {
+        long discount = Math.multiplyExact(priceMicros, percent);
+        if (discount % 100 != 0) {
+            throw new ArithmeticException("Discounted price can't be represented in micro-euros");
+        }
+        return Math.subtractExact(priceMicros, discount / 100);
+    }
+
+    //total price of the line spread over the items, rounded to cents
+    static BigDecimal perItem(BigDecimal linePrice, int quantityOfItems) {
+        return linePrice.divide(BigDecimal.valueOf(quantityOfItems), 2, RoundingMode.HALF_EVEN);
+    }
+
+    static long perItemMicros(long linePriceMicros, int quantityOfItems) {
+        long cents = FixedPoint.divideHalfEven(linePriceMicros, Math.multiplyExact(quantityOfItems, FixedPoint.MICROS_PER_CENT));
+        return cents * FixedPoint.MICROS_PER_CENT;
+    }
+}
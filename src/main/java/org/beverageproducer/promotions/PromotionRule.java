@@ -0,0 +1,7 @@
+package org.beverageproducer.promotions;
+
+//one promotion of a product, rules of a product are applied one after the other to the price per item
+public interface PromotionRule {
+    //builds the evaluator that applies this rule to the prices of the previous evaluator
+    PriceEvaluator compile(PriceEvaluator previous);
+}
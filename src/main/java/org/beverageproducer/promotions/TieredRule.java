@@ -0,0 +1,138 @@
+package org.beverageproducer.promotions;
+
+import org.beverageproducer.exceptions.InvalidCountOfItemsException;
+import org.beverageproducer.exceptions.InvalidPercentException;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+//percent off the price per item that grows with the ordered quantity
+//the tier with the highest minimum quantity not above the ordered quantity applies
+public class TieredRule implements PromotionRule {
+    private final int[] minQuantities;
+    private final int[] percents;
+
+    public TieredRule(int[] minQuantities, int[] percents) throws InvalidCountOfItemsException, InvalidPercentException {
+        if (minQuantities.length == 0 || minQuantities.length != percents.length) {
+            throw new InvalidCountOfItemsException();
+        }
+        for (int i = 0; i < minQuantities.length; i++) {
+            if (minQuantities[i] < 1 || (i > 0 && minQuantities[i] <= minQuantities[i - 1])) {
+                throw new InvalidCountOfItemsException();
+            }
+            if (percents[i] <= 0) {
+                throw new InvalidPercentException();
+            }
+        }
+        this.minQuantities = minQuantities.clone();
+        this.percents = percents.clone();
+    }
+
+    public int[] getMinQuantities() {
+        return minQuantities.clone();
+    }
+
+    public int[] getPercents() {
+        return percents.clone();
+    }
+
+    @Override
+    public PriceEvaluator compile(PriceEvaluator previous) {
+        return new TieredPrice(previous, minQuantities, percents);
+    }
+
+    @Override
+    public String toString() {
+        return "TieredRule{" +
+                "minQuantities=" + Arrays.toString(minQuantities) +
+                ", percents=" + Arrays.toString(percents) +
+                '}';
+    }
+
+    private static final class TieredPrice extends DerivedPrice {
+        private final int[] minQuantities;
+        private final int[] percents;
+        //discounted price of every tier when the previous price is constant, null otherwise
+        private final ConstantPrice[] tierPrices;
+
+        private TieredPrice(PriceEvaluator previous, int[] minQuantities, int[] percents) {
+            super(previous);
+            this.minQuantities = minQuantities;
+            this.percents = percents;
+            if (previous instanceof ConstantPrice) {
+                tierPrices = new ConstantPrice[percents.length];
+                for (int i = 0; i < percents.length; i++) {
+                    tierPrices[i] = new ConstantPrice(PromotionMath.percentOff(((ConstantPrice) previous).price(), percents[i]));
+                }
+            } else tierPrices = null;
+        }
+
+        @Override
+        public BigDecimal pricePerItem(int quantityOfItems) {
+            int tier = tier(quantityOfItems);
+            if (tier < 0) return previousPrice(quantityOfItems);
+            if (tierPrices != null) return tierPrices[tier].price();
+            return PromotionMath.percentOff(previousPrice(quantityOfItems), percents[tier]);
+        }
+
+        @Override
+        public long pricePerItemMicros(int quantityOfItems) {
+            int tier = tier(quantityOfItems);
+            if (tier < 0) return previousPriceMicros(quantityOfItems);
+            if (tierPrices != null) return tierPrices[tier].pricePerItemMicros(quantityOfItems);
+            return PromotionMath.percentOffMicros(previousPriceMicros(quantityOfItems), percents[tier]);
+        }
+
+        //the line total is a running total that is repriced at the quantity where the next tier starts
+        @Override
+        public BigDecimal[] linePrices(int maxQuantity) {
+            if (tierPrices == null) {
+                return super.linePrices(maxQuantity);
+            }
+            BigDecimal[] prices = new BigDecimal[maxQuantity + 1];
+            prices[0] = BigDecimal.valueOf(0);
+            int tier = -1;
+            BigDecimal price = null;
+            for (int quantity = 1; quantity <= maxQuantity; quantity++) {
+                boolean repriced = quantity == 1;
+                if (tier + 1 < minQuantities.length && quantity == minQuantities[tier + 1]) {
+                    tier++;
+                    repriced = true;
+                }
+                if (repriced) {
+                    price = tier < 0 ? previousPrice(quantity) : tierPrices[tier].price();
+                    prices[quantity] = price.multiply(BigDecimal.valueOf(quantity));
+                } else prices[quantity] = prices[quantity - 1].add(price);
+            }
+            return prices;
+        }
+
+        @Override
+        public long[] linePricesMicros(int maxQuantity) {
+            if (tierPrices == null) {
+                return super.linePricesMicros(maxQuantity);
+            }
+            long[] prices = new long[maxQuantity + 1];
+            int tier = -1;
+            long priceMicros = 0;
+            for (int quantity = 1; quantity <= maxQuantity; quantity++) {
+                boolean repriced = quantity == 1;
+                if (tier + 1 < minQuantities.length && quantity == minQuantities[tier + 1]) {
+                    tier++;
+                    repriced = true;
+                }
+                if (repriced) {
+                    priceMicros = tier < 0 ? previousPriceMicros(quantity) : tierPrices[tier].pricePerItemMicros(quantity);
+                    prices[quantity] = Math.multiplyExact(priceMicros, quantity);
+                } else prices[quantity] = Math.addExact(prices[quantity - 1], priceMicros);
+            }
+            return prices;
+        }
+
+        //index of the applying tier, -1 below the first one
+        private int tier(int quantityOfItems) {
+            int index = Arrays.binarySearch(minQuantities, quantityOfItems);
+            return index >= 0 ? index : -index - 2;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.beverageproducer.server;
+
+import org.beverageproducer.metrics.HistogramSnapshot;
+import org.beverageproducer.metrics.LatencyHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+//closed loop load test of a running PricingServer, keeps a fixed number of quote requests in flight
+//usage: LoadGenerator [http://localhost:8080] [concurrentRequests] [totalRequests] [clients]
+//quotes go to clients 1..clients, 5 by default like the sample catalog
+public class LoadGenerator {
+    private static final char[] PRODUCTS = {'A', 'B', 'C', 'D'};
+
+    public static void main(String[] args) throws InterruptedException {
+        URI uri = URI.create((args.length > 0 ? args[0] : "http://localhost:8080") + "/quote");
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        int clients = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        LatencyHistogram latencies = new LatencyHistogram();
+        AtomicLong failures = new AtomicLong();
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .POST(HttpRequest.BodyPublishers.ofString(randomQuote(clients)))
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                if (error != null || response.statusCode() != 200) {
+                    failures.incrementAndGet();
+                }
+                latencies.record(System.nanoTime() - sent);
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        HistogramSnapshot snapshot = latencies.snapshot();
+        System.out.printf("%d requests, %d in flight, %d failed in %.2f s: %.0f requests/s%n",
+                requests, concurrency, failures.get(), seconds, requests / seconds);
+        System.out.printf("latency ms p50 %.2f p99 %.2f p99.9 %.2f max %.2f%n",
+                snapshot.getValueAtPercentile(50) / 1e6, snapshot.getValueAtPercentile(99) / 1e6,
+                snapshot.getValueAtPercentile(99.9) / 1e6, snapshot.getMax() / 1e6);
+    }
+
+    //a basket of the sample catalog of Controller.createClientsAndProducts
+    private static String randomQuote(int clients) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder json = new StringBuilder("{\"clientId\":").append(random.nextInt(1, clients + 1)).append(",\"products\":{");
+        for (int i = 0; i < PRODUCTS.length; i++) {
+            if (i > 0) json.append(',');
+            json.append('"').append(PRODUCTS[i]).append("\":").append(random.nextInt(0, 20_000));
+        }
+        return json.append("}}").toString();
+    }
+}
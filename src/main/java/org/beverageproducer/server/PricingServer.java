@@ -0,0 +1,202 @@
+package org.beverageproducer.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.beverageproducer.io.Json;
+import org.beverageproducer.metrics.PricingMetrics;
+import org.beverageproducer.models.Order;
+import org.beverageproducer.models.PricedOrder;
+import org.beverageproducer.service.BatchPricingService;
+import org.beverageproducer.service.Catalog;
+import org.beverageproducer.service.CatalogSnapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+//embedded HTTP/JSON front of a BatchPricingService
+//POST /quote       {"clientId":1,"products":{"A":10,"B":5}} -> the priced order
+//POST /promotions  {"product":"B","type":"PERCENT","percent":30}
+//                  {"product":"D","type":"GET_FREE_ITEMS","toBuy":2,"freeItems":1}
+//                  {"product":"B","type":"NONE"} removes the promotion -> {"catalogVersion":2}
+//                  an optional "updateId" makes the update idempotent, an id seen before gets the answer it got
+//                  the first time and changes nothing, so a sender can retry an update whose answer was lost
+//GET  /metrics     PricingMetrics in Prometheus text format
+//every request runs on its own virtual thread when the JVM has them (Java 21+), otherwise on a fixed pool
+//quotes never block on each other, they price against the catalog snapshot that is current when they start
+//a body over MAX_BODY_BYTES or nested deeper than Json.MAX_DEPTH is answered with 400 without being parsed further
+//an unexpected failure is answered with a generic 500, its details only go to the server log
+public class PricingServer {
+    public static final int MAX_BODY_BYTES = 1 << 20;
+    private static final Logger LOGGER = Logger.getLogger(PricingServer.class.getName());
+    //pending connections the kernel keeps while all handlers are busy
+    private static final int BACKLOG = 8192;
+    //update ids remembered for retries, a retry comes within seconds so only the latest ones are kept
+    static final int REMEMBERED_UPDATES = 1024;
+
+    static {
+        //headers and body go out as two writes, with Nagle on every keep-alive request waits for a delayed ACK (~40 ms)
+        //read once when the JDK server is first used, so it has to be set before the first HttpServer is created
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final BatchPricingService pricingService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    //answers of the latest applied promotion updates by update id, in the order they were applied
+    //guarded by itself, promotion updates are rare and run one at a time so a retry can't overtake its original
+    private final Map<String, String> appliedUpdates = new LinkedHashMap<>();
+
+    public PricingServer(BatchPricingService pricingService, InetSocketAddress address) throws IOException {
+        this.pricingService = pricingService;
+        this.server = HttpServer.create(address, BACKLOG);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/quote", exchange -> handle(exchange, "POST", this::quote));
+        server.createContext("/promotions", exchange -> handle(exchange, "POST", this::updatePromotion));
+        server.createContext("/metrics", exchange -> handle(exchange, "GET", body -> PricingMetrics.snapshot().toText()));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    //waits up to delaySeconds for running requests
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    //the bound port, useful when the server was created on port 0
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private String quote(String body) {
+        Map<String, Object> request = Json.parseObject(body);
+        Order order = ServerRequests.order(request);
+        PricedOrder pricedOrder = pricingService.price(order);
+        return ServerRequests.toJson(pricedOrder);
+    }
+
+    private String updatePromotion(String body) throws Exception {
+        Map<String, Object> request = Json.parseObject(body);
+        Object updateId = request.get("updateId");
+        if (updateId == null) {
+            return applyPromotion(request);
+        }
+        if (!(updateId instanceof String)) {
+            throw new IllegalArgumentException("Expected updateId as a string");
+        }
+        synchronized (appliedUpdates) {
+            String applied = appliedUpdates.get(updateId);
+            if (applied != null) {
+                return applied;
+            }
+            String response = applyPromotion(request);
+            appliedUpdates.put((String) updateId, response);
+            if (appliedUpdates.size() > REMEMBERED_UPDATES) {
+                Iterator<String> eldest = appliedUpdates.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+            return response;
+        }
+    }
+
+    private String applyPromotion(Map<String, Object> request) throws Exception {
+        char product = ServerRequests.product(request, "product");
+        Catalog catalog = pricingService.getCatalog();
+        CatalogSnapshot snapshot;
+        switch (ServerRequests.promotionType(request)) {
+            case PERCENT:
+                snapshot = catalog.addPercentPromotion(product, ServerRequests.intField(request, "percent"));
+                break;
+            case GET_FREE_ITEMS:
+                snapshot = catalog.addFreeItemsPromotion(product,
+                        ServerRequests.intField(request, "toBuy"), ServerRequests.intField(request, "freeItems"));
+                break;
+            default:
+                snapshot = catalog.removePromotion(product);
+        }
+        return "{\"catalogVersion\":" + snapshot.getVersion() + "}";
+    }
+
+    private void handle(HttpExchange exchange, String method, RequestHandler handler) throws IOException {
+        try (exchange) {
+            if (!method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                respond(exchange, 405, error("Method not allowed"));
+                return;
+            }
+            String response;
+            try {
+                response = handler.handle(readBody(exchange));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, error(e.getMessage()));
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Request to " + exchange.getRequestURI() + " failed", e);
+                respond(exchange, 500, error("Internal server error"));
+                return;
+            } catch (Exception e) {
+                //the checked exceptions of the models reject the request
+                respond(exchange, 400, error(e.getClass().getSimpleName()));
+                return;
+            }
+            respond(exchange, 200, response);
+        }
+    }
+
+    //throws IllegalArgumentException for a body over MAX_BODY_BYTES, the rest of it isn't read
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body over " + MAX_BODY_BYTES + " bytes");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+                body.startsWith("{") ? "application/json" : "text/plain; version=0.0.4");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + Json.quote(String.valueOf(message)) + "}";
+    }
+
+    //Executors.newVirtualThreadPerTaskExecutor is looked up at runtime so the server still builds and runs on Java 17
+    private static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            //quotes are CPU bound, more platform threads than cores would only add switching
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        }
+    }
+
+    private interface RequestHandler {
+        String handle(String body) throws Exception;
+    }
+}
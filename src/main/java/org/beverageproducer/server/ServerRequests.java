@@ -0,0 +1,96 @@
+package org.beverageproducer.server;
+
+import org.beverageproducer.enums.PromotionType;
+import org.beverageproducer.io.Json;
+import org.beverageproducer.models.Order;
+import org.beverageproducer.models.PricedLine;
+import org.beverageproducer.models.PricedOrder;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+
+//reads the JSON requests of PricingServer and writes its responses, invalid requests throw IllegalArgumentException
+final class ServerRequests {
+    private ServerRequests() {
+    }
+
+    static Order order(Map<String, Object> request) {
+        int clientId = intField(request, "clientId");
+        Object products = request.get("products");
+        if (!(products instanceof Map)) {
+            throw new IllegalArgumentException("Expected products as an object");
+        }
+        Map<Character, Integer> quantities = new TreeMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) products).entrySet()) {
+            String product = (String) entry.getKey();
+            if (product.length() != 1) {
+                throw new IllegalArgumentException("Invalid product '" + product + "'");
+            }
+            int quantity = intValue(entry.getValue(), product);
+            if (quantity < 0) {
+                throw new IllegalArgumentException("Negative quantity of " + product);
+            }
+            quantities.put(product.charAt(0), quantity);
+        }
+        return new Order(clientId, quantities);
+    }
+
+    static PromotionType promotionType(Map<String, Object> request) {
+        Object type = request.get("type");
+        if (!(type instanceof String)) {
+            throw new IllegalArgumentException("Expected type as a string");
+        }
+        try {
+            return PromotionType.valueOf((String) type);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown promotion type " + type);
+        }
+    }
+
+    static char product(Map<String, Object> request, String name) {
+        Object value = request.get(name);
+        if (!(value instanceof String) || ((String) value).length() != 1) {
+            throw new IllegalArgumentException("Expected " + name + " as a single character");
+        }
+        return ((String) value).charAt(0);
+    }
+
+    static int intField(Map<String, Object> request, String name) {
+        return intValue(request.get(name), name);
+    }
+
+    static String toJson(PricedOrder order) {
+        StringBuilder json = new StringBuilder(128 + order.getLines().size() * 96);
+        json.append("{\"clientId\":").append(order.getClientId())
+                .append(",\"catalogVersion\":").append(order.getCatalogVersion())
+                .append(",\"lines\":[");
+        for (int i = 0; i < order.getLines().size(); i++) {
+            PricedLine line = order.getLines().get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"product\":");
+            Json.appendQuoted(json, String.valueOf(line.getProductName()));
+            json.append(",\"quantity\":").append(line.getQuantity())
+                    .append(",\"promoted\":").append(line.isPromoted())
+                    .append(",\"pricePerItem\":").append(line.getPricePerItem().toPlainString())
+                    .append(",\"price\":").append(line.getPrice().toPlainString())
+                    .append('}');
+        }
+        json.append("],\"sumOfOrders\":").append(order.getSumOfOrders().toPlainString())
+                .append(",\"priceWithBasicDiscount\":").append(order.getPriceWithBasicDiscount().toPlainString())
+                .append(",\"priceWithAdditionalDiscount\":").append(order.getPriceWithAdditionalDiscount().toPlainString())
+                .append('}');
+        return json.toString();
+    }
+
+    private static int intValue(Object value, String name) {
+        if (!(value instanceof BigDecimal)) {
+            throw new IllegalArgumentException("Expected " + name + " as a number");
+        }
+        try {
+            return ((BigDecimal) value).intValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Expected " + name + " as an int");
+        }
+    }
+}
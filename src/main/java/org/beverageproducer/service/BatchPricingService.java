@@ -0,0 +1,131 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.enums.PricingCounter;
+import org.beverageproducer.enums.PricingOperation;
+import org.beverageproducer.enums.ValidationError;
+import org.beverageproducer.exceptions.InvalidCountOfItemsException;
+import org.beverageproducer.exceptions.NegativeCountOfItemsException;
+import org.beverageproducer.metrics.PricingMetrics;
+import org.beverageproducer.models.*;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class BatchPricingService {
+    private final Map<Integer, Client> clients;
+    private final Catalog catalog;
+    //null without a cache
+    private final QuoteCache quoteCache;
+
+    //the controller has to be populated already, its catalog and clients are shared by every priced order
+    public BatchPricingService(Controller controller) {
+        this(controller, null);
+    }
+
+    //price(Order) answers repeated orders from quoteCache
+    public BatchPricingService(Controller controller, QuoteCache quoteCache) {
+        this.clients = Map.copyOf(controller.getClients());
+        this.catalog = new Catalog(controller.getProducts());
+        this.quoteCache = quoteCache;
+    }
+
+    //promotion changes go through the catalog, orders already being priced keep their snapshot
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    //orders are priced on all cores, the encounter order of the input stream is kept
+    public Stream<PricedOrder> price(Stream<Order> orders) {
+        return orders.parallel().map(this::price);
+    }
+
+    //null without a cache
+    public QuoteCache getQuoteCache() {
+        return quoteCache;
+    }
+
+    public PricedOrder price(Order order) {
+        Client terms = getClient(order.getClientId());
+        CatalogSnapshot snapshot = catalog.current();
+        if (quoteCache != null) {
+            return quoteCache.get(terms, order, snapshot, () -> price(terms, order, snapshot));
+        }
+        return price(terms, order, snapshot);
+    }
+
+    private PricedOrder price(Client terms, Order order, CatalogSnapshot snapshot) {
+        long start = PricingMetrics.start();
+        //every order gets its own basket so concurrent orders of the same client don't interfere
+        Basket basket = new Basket(snapshot.getProductCatalog());
+        try {
+            for (int line = 0; line < order.getLineCount(); line++) {
+                int productId = snapshot.getProductId(order.getProductName(line));
+                if (order.getQuantity(line) != 0) {
+                    basket.setQuantity(productId, order.getQuantity(line));
+                }
+            }
+            PricedOrder pricedOrder = PricedOrders.of(terms, basket, snapshot.getVersion());
+            PricingMetrics.increment(PricingCounter.ORDERS_PRICED);
+            PricingMetrics.add(PricingCounter.LINES_PRICED, basket.getLineCount());
+            PricingMetrics.record(PricingOperation.ORDER_PRICING, start);
+            return pricedOrder;
+        } catch (InvalidCountOfItemsException | NegativeCountOfItemsException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //for dirty feeds, invalid lines are rejected in the report under their line index instead of throwing,
+    //the order is priced without them, an unknown client rejects line -1 and returns null
+    //empty lines are skipped like by price(Order)
+    public PricedOrder price(Order order, ValidationReport report) {
+        long start = PricingMetrics.start();
+        Client terms = clients.get(order.getClientId());
+        if (terms == null) {
+            report.reject(-1, ValidationError.UNKNOWN_CLIENT);
+            return null;
+        }
+        CatalogSnapshot snapshot = catalog.current();
+        ProductCatalog productCatalog = snapshot.getProductCatalog();
+        Basket basket = new Basket(productCatalog);
+        for (int line = 0; line < order.getLineCount(); line++) {
+            int productId = productCatalog.idOf(order.getProductName(line));
+            if (productId == ProductCatalog.NO_ID) {
+                report.reject(line, ValidationError.UNKNOWN_PRODUCT);
+            } else if (order.getQuantity(line) != 0) {
+                basket.setQuantity(productId, order.getQuantity(line), report, line);
+            }
+        }
+        try {
+            PricedOrder pricedOrder = PricedOrders.of(terms, basket, snapshot.getVersion());
+            PricingMetrics.increment(PricingCounter.ORDERS_PRICED);
+            PricingMetrics.add(PricingCounter.LINES_PRICED, basket.getLineCount());
+            PricingMetrics.record(PricingOperation.ORDER_PRICING, start);
+            return pricedOrder;
+        } catch (NegativeCountOfItemsException e) {
+            //the basket only holds the quantities it accepted
+            throw new RuntimeException(e);
+        }
+    }
+
+    //prices a basket that was filled by the caller, it has to be built on the product catalog of the snapshot
+    public PricedOrder price(int clientId, Basket basket, CatalogSnapshot snapshot) {
+        try {
+            return PricedOrders.of(getClient(clientId), basket, snapshot.getVersion());
+        } catch (NegativeCountOfItemsException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //takes effect for orders priced from now on, no client has to be rebuilt
+    public void setDiscountTiers(int clientId, DiscountTiers discountTiers) {
+        getClient(clientId).setDiscountTiers(discountTiers);
+    }
+
+    private Client getClient(int clientId) {
+        Client terms = clients.get(clientId);
+        if (terms == null) {
+            throw new IllegalArgumentException("Unknown client " + clientId);
+        }
+        return terms;
+    }
+}
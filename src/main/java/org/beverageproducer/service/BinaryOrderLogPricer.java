@@ -0,0 +1,117 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.exceptions.InvalidCountOfItemsException;
+import org.beverageproducer.io.BinaryOrderLogReader;
+import org.beverageproducer.io.OrderRecordConsumer;
+import org.beverageproducer.models.Basket;
+import org.beverageproducer.models.PricedOrder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+//re-prices a binary order log, every region of the file is scanned by its own thread straight from the mapping
+//priced orders reach the consumer in file order within a region, regions run concurrently
+public class BinaryOrderLogPricer {
+    private final BatchPricingService pricingService;
+
+    public BinaryOrderLogPricer(BatchPricingService pricingService) {
+        this.pricingService = pricingService;
+    }
+
+    //the consumer has to be thread safe when more than one thread is used, returns the number of priced orders
+    public long price(Path path, int threads, Consumer<PricedOrder> consumer) throws IOException {
+        try (BinaryOrderLogReader reader = BinaryOrderLogReader.open(path)) {
+            List<BinaryOrderLogReader.Region> regions = reader.split(threads);
+            //a pool of its own, the common pool is sized by the cores and shared with ParallelLinePricing
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, regions.size()));
+            try {
+                List<Future<Long>> results = new ArrayList<>(regions.size());
+                for (BinaryOrderLogReader.Region region : regions) {
+                    results.add(executor.submit(() -> price(reader, region, consumer)));
+                }
+                long count = 0;
+                for (Future<Long> result : results) {
+                    count += result.get();
+                }
+                return count;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) cause).getCause();
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            } finally {
+                //stops the other regions when one failed
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private long price(BinaryOrderLogReader reader, BinaryOrderLogReader.Region region, Consumer<PricedOrder> consumer) {
+        RegionPricer pricer = new RegionPricer(consumer);
+        try {
+            reader.scan(region, pricer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pricer.finishOrder();
+        return pricer.count;
+    }
+
+    //collects the records of one client into a reused basket and prices it when the next client starts
+    private class RegionPricer implements OrderRecordConsumer {
+        private final Consumer<PricedOrder> consumer;
+        private final CatalogSnapshot snapshot;
+        private final Basket basket;
+        private int clientId;
+        private boolean orderStarted;
+        private long count;
+
+        private RegionPricer(Consumer<PricedOrder> consumer) {
+            this.consumer = consumer;
+            this.snapshot = pricingService.getCatalog().current();
+            this.basket = new Basket(snapshot.getProductCatalog());
+        }
+
+        @Override
+        public void accept(int clientId, char productName, int quantity) {
+            if (clientId != this.clientId || !orderStarted) {
+                finishOrder();
+                this.clientId = clientId;
+                orderStarted = true;
+            }
+            if (quantity != 0) {
+                try {
+                    basket.setQuantity(snapshot.getProductId(productName), quantity);
+                } catch (InvalidCountOfItemsException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+        private void finishOrder() {
+            if (orderStarted) {
+                consumer.accept(pricingService.price(clientId, basket, snapshot));
+                basket.clear();
+                orderStarted = false;
+                count++;
+            }
+        }
+    }
+}
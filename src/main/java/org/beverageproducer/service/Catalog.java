@@ -0,0 +1,73 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.exceptions.InvalidCountOfItemsException;
+import org.beverageproducer.exceptions.InvalidPercentException;
+import org.beverageproducer.exceptions.NoPromotionToRemoveException;
+import org.beverageproducer.promotions.PromotionRule;
+import org.beverageproducer.models.Product;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+//copy on write product catalog
+//readers take current() once and price against it without locks, every change publishes a new snapshot
+public class Catalog {
+    private final AtomicReference<CatalogSnapshot> current;
+
+    public Catalog(Map<Character, Product> products) {
+        Map<Character, Product> copies = new TreeMap<>();
+        for (Product product : products.values()) {
+            copies.put(product.getName(), new Product(product));
+        }
+        current = new AtomicReference<>(new CatalogSnapshot(1, copies));
+    }
+
+    public CatalogSnapshot current() {
+        return current.get();
+    }
+
+    public CatalogSnapshot putProduct(Product product) {
+        Product copy = new Product(product);
+        while (true) {
+            CatalogSnapshot snapshot = current.get();
+            CatalogSnapshot next = snapshot.with(copy);
+            if (current.compareAndSet(snapshot, next)) {
+                return next;
+            }
+        }
+    }
+
+    public CatalogSnapshot addPercentPromotion(char productName, int percent) throws InvalidPercentException {
+        return update(productName, product -> product.addPercentPromotion(percent));
+    }
+
+    public CatalogSnapshot addFreeItemsPromotion(char productName, int toBuy, int freeItems) throws InvalidCountOfItemsException {
+        return update(productName, product -> product.addFreeItemsPromotion(toBuy, freeItems));
+    }
+
+    public CatalogSnapshot addPromotionRule(char productName, PromotionRule rule) {
+        return update(productName, product -> product.addPromotionRule(rule));
+    }
+
+    public CatalogSnapshot removePromotion(char productName) throws NoPromotionToRemoveException {
+        return update(productName, Product::removePromotion);
+    }
+
+    //applies the change to a private copy of the product and publishes it, retried if another change won the race
+    private <E extends Exception> CatalogSnapshot update(char productName, ProductChange<E> change) throws E {
+        while (true) {
+            CatalogSnapshot snapshot = current.get();
+            Product copy = new Product(snapshot.getProduct(productName));
+            change.apply(copy);
+            CatalogSnapshot next = snapshot.with(copy);
+            if (current.compareAndSet(snapshot, next)) {
+                return next;
+            }
+        }
+    }
+
+    private interface ProductChange<E extends Exception> {
+        void apply(Product product) throws E;
+    }
+}
@@ -0,0 +1,71 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.models.Product;
+import org.beverageproducer.models.ProductCatalog;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+//products of one catalog version, they are frozen copies, see Product.freeze, so a reader can't change them
+public class CatalogSnapshot {
+    private final long version;
+    private final Map<Character, Product> products;
+    //the same products by dense id, ids stay the same in every later version
+    private final ProductCatalog productCatalog;
+
+    CatalogSnapshot(long version, Map<Character, Product> products) {
+        this(version, products, new ProductCatalog(products.values()));
+    }
+
+    private CatalogSnapshot(long version, Map<Character, Product> products, ProductCatalog productCatalog) {
+        this.version = version;
+        for (Product product : products.values()) {
+            product.freeze();
+        }
+        this.products = Collections.unmodifiableMap(products);
+        this.productCatalog = productCatalog;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<Character, Product> getProducts() {
+        return products;
+    }
+
+    //shared by every reader, it must not be changed
+    public ProductCatalog getProductCatalog() {
+        return productCatalog;
+    }
+
+    public Product getProduct(char productName) {
+        return productCatalog.get(getProductId(productName));
+    }
+
+    public int getProductId(char productName) {
+        int id = productCatalog.idOf(productName);
+        if (id == ProductCatalog.NO_ID) {
+            throw new IllegalArgumentException("Unknown product " + productName);
+        }
+        return id;
+    }
+
+    //copy of this snapshot with one product replaced, the next version
+    CatalogSnapshot with(Product product) {
+        Map<Character, Product> next = new TreeMap<>(products);
+        next.put(product.getName(), product);
+        ProductCatalog nextCatalog = new ProductCatalog(productCatalog);
+        nextCatalog.register(product);
+        return new CatalogSnapshot(version + 1, next, nextCatalog);
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogSnapshot{" +
+                "version=" + version +
+                ", products=" + products +
+                '}';
+    }
+}
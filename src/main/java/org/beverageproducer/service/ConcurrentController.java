@@ -0,0 +1,217 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.enums.PricingCounter;
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.metrics.PricingMetrics;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.DiscountTiers;
+import org.beverageproducer.models.PricedOrder;
+import org.beverageproducer.models.Product;
+import org.beverageproducer.models.TotalChange;
+import org.beverageproducer.promotions.PromotionRule;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+//thread safe front for a populated Controller
+//catalog and client lookups are lock free, a basket is guarded by the lock of its stripe
+//so clients on different stripes are quoted and updated in parallel
+//promotion changes only lock the product itself, see Product, and then reprice the baskets with that product
+//found in a ProductBasketIndex, every changed total is published to the TotalChangeListeners
+public class ConcurrentController {
+    private final ConcurrentMap<Integer, Client> clients;
+    private final ConcurrentMap<Character, Product> products;
+    private final ReentrantLock[] stripes;
+    private final ProductBasketIndex basketIndex = new ProductBasketIndex();
+    private final List<TotalChangeListener> totalChangeListeners = new CopyOnWriteArrayList<>();
+
+    public ConcurrentController(Controller controller) {
+        this(controller, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    public ConcurrentController(Controller controller, int concurrencyLevel) {
+        clients = new ConcurrentHashMap<>(controller.getClients());
+        products = new ConcurrentHashMap<>(controller.getProducts());
+        //power of two so the stripe is picked with a mask
+        stripes = new ReentrantLock[Integer.highestOneBit(Math.max(1, concurrencyLevel - 1)) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        for (Client client : clients.values()) {
+            basketIndex.register(client);
+        }
+    }
+
+    public Client getClient(int clientID) {
+        Client client = clients.get(clientID);
+        if (client == null) {
+            throw new IllegalArgumentException("Unknown client " + clientID);
+        }
+        return client;
+    }
+
+    public Product getProduct(char productName) {
+        Product product = products.get(productName);
+        if (product == null) {
+            throw new IllegalArgumentException("Unknown product " + productName);
+        }
+        return product;
+    }
+
+    public void addClient(Client client) {
+        basketIndex.register(client);
+        Client previous = clients.put(client.getId(), client);
+        if (previous != null && previous != client) {
+            basketIndex.unregister(previous);
+        }
+    }
+
+    public void addProduct(Product product) {
+        products.put(product.getName(), product);
+    }
+
+    public boolean addOrderedProduct(int clientID, char productName, int quantity) throws InvalidCountOfItemsException {
+        Client client = getClient(clientID);
+        Product product = getProduct(productName);
+        ReentrantLock lock = lockFor(clientID);
+        lock.lock();
+        try {
+            return client.addOrderedProduct(product, quantity);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean removeOrderedProduct(int clientID, char productName) {
+        Client client = getClient(clientID);
+        Product product = getProduct(productName);
+        ReentrantLock lock = lockFor(clientID);
+        lock.lock();
+        try {
+            return client.removeOrderedProduct(product);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public BigDecimal priceWithAdditionalDiscount(int clientID) throws NegativeCountOfItemsException {
+        Client client = getClient(clientID);
+        ReentrantLock lock = lockFor(clientID);
+        lock.lock();
+        try {
+            return client.priceWithAdditionalDiscount();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public PricedOrder quote(int clientID) throws NegativeCountOfItemsException {
+        Client client = getClient(clientID);
+        ReentrantLock lock = lockFor(clientID);
+        lock.lock();
+        try {
+            return PricedOrders.of(client, PricedOrder.UNVERSIONED);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void setDiscountTiers(int clientID, DiscountTiers discountTiers) {
+        Client client = getClient(clientID);
+        ReentrantLock lock = lockFor(clientID);
+        lock.lock();
+        try {
+            client.setDiscountTiers(discountTiers);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ProductBasketIndex getBasketIndex() {
+        return basketIndex;
+    }
+
+    public void addTotalChangeListener(TotalChangeListener listener) {
+        totalChangeListeners.add(listener);
+    }
+
+    public void removeTotalChangeListener(TotalChangeListener listener) {
+        totalChangeListeners.remove(listener);
+    }
+
+    public boolean addPercentPromotion(char productName, int percent) throws InvalidPercentException {
+        return changePromotion(productName, product -> product.addPercentPromotion(percent));
+    }
+
+    public boolean addFreeItemsPromotion(char productName, int toBuy, int freeItems) throws InvalidCountOfItemsException {
+        return changePromotion(productName, product -> product.addFreeItemsPromotion(toBuy, freeItems));
+    }
+
+    public boolean addPromotionRule(char productName, PromotionRule rule) {
+        return changePromotion(productName, product -> product.addPromotionRule(rule));
+    }
+
+    public boolean removePromotion(char productName) throws NoPromotionToRemoveException {
+        return changePromotion(productName, Product::removePromotion);
+    }
+
+    //the totals of the baskets with the product are read before the change and repriced right after it
+    //the baskets only price their line of the product again, the other baskets aren't touched
+    //a basket edited in between reports the edit together with the promotion change
+    private <E extends Exception> boolean changePromotion(char productName, PromotionChange<E> change) throws E {
+        Product product = getProduct(productName);
+        if (totalChangeListeners.isEmpty()) {
+            //nobody to tell, the baskets reprice the line on their next quote
+            return change.apply(product);
+        }
+        List<Client> affected = new ArrayList<>(basketIndex.getClients(productName));
+        BigDecimal[] oldTotals = new BigDecimal[affected.size()];
+        for (int i = 0; i < oldTotals.length; i++) {
+            oldTotals[i] = total(affected.get(i));
+        }
+        boolean changed = change.apply(product);
+        List<TotalChange> changes = new ArrayList<>();
+        for (int i = 0; i < oldTotals.length; i++) {
+            BigDecimal newTotal = total(affected.get(i));
+            if (newTotal.compareTo(oldTotals[i]) != 0) {
+                changes.add(new TotalChange(affected.get(i).getId(), productName, oldTotals[i], newTotal));
+            }
+        }
+        PricingMetrics.add(PricingCounter.BASKETS_REPRICED, affected.size());
+        //outside of the basket locks, a listener may call back into this controller
+        for (TotalChange totalChange : changes) {
+            for (TotalChangeListener listener : totalChangeListeners) {
+                listener.totalChanged(totalChange);
+            }
+        }
+        return changed;
+    }
+
+    private BigDecimal total(Client client) {
+        ReentrantLock lock = lockFor(client.getId());
+        lock.lock();
+        try {
+            return client.priceWithAdditionalDiscount();
+        } catch (NegativeCountOfItemsException e) {
+            //the basket only holds the quantities it accepted
+            throw new RuntimeException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private interface PromotionChange<E extends Exception> {
+        boolean apply(Product product) throws E;
+    }
+
+    private ReentrantLock lockFor(int clientID) {
+        //spreads consecutive ids over the stripes
+        int hash = clientID * 0x9E3779B9;
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+}
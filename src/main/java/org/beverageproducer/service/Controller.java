@@ -1,13 +1,19 @@
 package org.beverageproducer.service;
 
 import org.beverageproducer.enums.MarkupType;
-import org.beverageproducer.enums.PromotionType;
+import org.beverageproducer.enums.PricingCounter;
 import org.beverageproducer.exceptions.*;
+import org.beverageproducer.io.InvoiceFormatter;
+import org.beverageproducer.metrics.PricingMetrics;
+import org.beverageproducer.models.CatalogImage;
 import org.beverageproducer.models.Client;
+import org.beverageproducer.models.DiscountTiers;
+import org.beverageproducer.models.PricedOrder;
 import org.beverageproducer.models.Product;
 
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -52,37 +58,49 @@ public class Controller {
         products.put('D', productD);
     }
 
+    //the fast alternative to createClientsAndProducts, objects of the image were validated when it was written
+    public void loadClientsAndProducts(Path catalogImage) throws IOException {
+        CatalogImage image = CatalogImage.read(catalogImage);
+        products.putAll(image.getProducts());
+        clients.putAll(image.getClients());
+    }
+
+    public void writeCatalogImage(Path catalogImage) throws IOException {
+        CatalogImage.write(catalogImage, products.values(), clients.values());
+    }
+
+    //replaces the discount tiers of the given clients, for example with the tiers of a DiscountTiersFile
+    public void setDiscountTiers(Map<Integer, DiscountTiers> discountTiers) {
+        for (Map.Entry<Integer, DiscountTiers> entry : discountTiers.entrySet()) {
+            Client client = clients.get(entry.getKey());
+            if (client == null) {
+                throw new IllegalArgumentException("Unknown client " + entry.getKey());
+            }
+            client.setDiscountTiers(entry.getValue());
+        }
+    }
 
     public void startApplication(int clientID, int quantityA, int quantityB, int quantityC, int quantityD)
             throws InvalidMarkupException, InvalidPercentException, InvalidUnitCostException, InvalidCountOfItemsException, NegativeCountOfItemsException {
         createClientsAndProducts();
-        Map<Product, Integer> appProducts = clients.get(clientID).getOrderedProducts();
-        clients.get(clientID).getOrderedProducts().put(products.get('A'), quantityA);
-        clients.get(clientID).getOrderedProducts().put(products.get('B'), quantityB);
-        clients.get(clientID).getOrderedProducts().put(products.get('C'), quantityC);
-        clients.get(clientID).getOrderedProducts().put(products.get('D'), quantityD);
-        for (Map.Entry<Product, Integer> entry : appProducts.entrySet()) {
-            Product key = entry.getKey();
-            Integer value = entry.getValue();
-            if (value > 0) {
-                System.out.print(key.getName() + " {");
-                System.out.print(value + ", " + key.getUnitCost().setScale(2, RoundingMode.UP) + ", ");
-                if (!key.getPromotionType().equals(PromotionType.NONE)) {
-                    try {
-                        System.out.print(key.calculatedPricePerItem(value).setScale(2, RoundingMode.UP) + ", ");
-                    } catch (NegativeCountOfItemsException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-                try {
-                    System.out.println(key.calculatedPrice(value).setScale(2, RoundingMode.UP) + "}");
-                } catch (NegativeCountOfItemsException e) {
-                    throw new RuntimeException(e);
-                }
-            }
+        Client client = clients.get(clientID);
+        addOrderedProduct(client, products.get('A'), quantityA);
+        addOrderedProduct(client, products.get('B'), quantityB);
+        addOrderedProduct(client, products.get('C'), quantityC);
+        addOrderedProduct(client, products.get('D'), quantityD);
+        System.out.print(InvoiceFormatter.format(PricedOrders.of(client, PricedOrder.UNVERSIONED)));
+    }
+
+    //products that are not ordered are left out of the basket, they add nothing to any total
+    //a negative quantity fails with the exception pricing it always threw, not the one of the basket
+    private void addOrderedProduct(Client client, Product product, int quantity)
+            throws InvalidCountOfItemsException, NegativeCountOfItemsException {
+        if (quantity < 0) {
+            PricingMetrics.increment(PricingCounter.NEGATIVE_COUNT_OF_ITEMS_EXCEPTIONS);
+            throw new NegativeCountOfItemsException();
+        }
+        if (quantity != 0) {
+            client.addOrderedProduct(product, quantity);
         }
-        System.out.println("Total amount before discounts: EUR " + clients.get(clientID).sumOfOrders());
-        System.out.println("Price with basic client discount: EUR " + clients.get(clientID).priceWithBasicDiscount());
-        System.out.println("Price with additional client discount: EUR " + clients.get(clientID).priceWithAdditionalDiscount());
     }
 }
@@ -0,0 +1,88 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.io.InvoiceFormatter;
+import org.beverageproducer.io.InvoiceWriter;
+import org.beverageproducer.io.OrderReader;
+import org.beverageproducer.models.Order;
+import org.beverageproducer.models.PricedOrder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//reads orders, prices them chunk by chunk on all cores and writes the invoices in input order
+//memory is bounded by the chunk size, not by the size of the input
+public class OrderPipeline {
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+    private static final int CHUNKS_IN_FLIGHT = 2;
+    private final BatchPricingService pricingService;
+    private final int chunkSize;
+
+    public OrderPipeline(BatchPricingService pricingService) {
+        this(pricingService, DEFAULT_CHUNK_SIZE);
+    }
+
+    public OrderPipeline(BatchPricingService pricingService, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size has to be positive");
+        }
+        this.pricingService = pricingService;
+        this.chunkSize = chunkSize;
+    }
+
+    public long run(Path input, Path output) throws IOException {
+        try (OrderReader reader = OrderReader.open(input);
+             FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            return run(reader, channel);
+        }
+    }
+
+    //invoices are rendered and written in UTF-8 by an InvoiceWriter while the next chunk is priced
+    //returns the number of priced orders when all invoices are written, the channel is not closed
+    public long run(Iterator<Order> orders, WritableByteChannel channel) throws IOException {
+        List<Order> chunk = new ArrayList<>(Math.min(chunkSize, DEFAULT_CHUNK_SIZE));
+        long count = 0;
+        //each queued element is a whole chunk, two of them let one chunk be priced while the other is written
+        try (InvoiceWriter invoices = new InvoiceWriter(channel, CHUNKS_IN_FLIGHT, InvoiceWriter.DEFAULT_BATCH_SIZE)) {
+            while (orders.hasNext()) {
+                chunk.add(orders.next());
+                if (chunk.size() == chunkSize || !orders.hasNext()) {
+                    invoices.submitAll(pricingService.price(chunk.stream()).collect(Collectors.toList()));
+                    count += chunk.size();
+                    chunk.clear();
+                }
+            }
+        }
+        return count;
+    }
+
+    //returns the number of priced orders, the writer is flushed but not closed
+    public long run(Iterator<Order> orders, Writer writer) throws IOException {
+        List<Order> chunk = new ArrayList<>(Math.min(chunkSize, DEFAULT_CHUNK_SIZE));
+        StringBuilder invoices = new StringBuilder();
+        long count = 0;
+        while (orders.hasNext()) {
+            chunk.add(orders.next());
+            if (chunk.size() == chunkSize || !orders.hasNext()) {
+                List<PricedOrder> priced = pricingService.price(chunk.stream()).collect(Collectors.toList());
+                invoices.setLength(0);
+                for (PricedOrder order : priced) {
+                    InvoiceFormatter.format(order, invoices);
+                }
+                writer.append(invoices);
+                count += chunk.size();
+                chunk.clear();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+}
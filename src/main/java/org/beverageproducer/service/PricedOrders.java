@@ -0,0 +1,53 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.exceptions.NegativeCountOfItemsException;
+import org.beverageproducer.models.Basket;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.PricedLine;
+import org.beverageproducer.models.PricedOrder;
+import org.beverageproducer.models.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+final class PricedOrders {
+    private PricedOrders() {
+    }
+
+    static PricedOrder of(Client basket, long catalogVersion) throws NegativeCountOfItemsException {
+        List<PricedLine> lines = new ArrayList<>(basket.getOrderedProducts().size());
+        for (Map.Entry<Product, Integer> entry : basket.getOrderedProducts().entrySet()) {
+            Product key = entry.getKey();
+            int value = entry.getValue();
+            lines.add(new PricedLine(key.getName(), value, key.getUnitCost(),
+                    key.hasPromotion(),
+                    key.calculatedPricePerItem(value), key.calculatedPrice(value)));
+        }
+        return new PricedOrder(basket.getId(), catalogVersion, lines, basket.sumOfOrders(),
+                basket.priceWithBasicDiscount(), basket.priceWithAdditionalDiscount());
+    }
+
+    //lines come out in product id order
+    static PricedOrder of(Client terms, Basket basket, long catalogVersion) throws NegativeCountOfItemsException {
+        int[] ids = new int[basket.getLineCount()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = basket.getLineId(i);
+        }
+        Arrays.sort(ids);
+        List<PricedLine> lines = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Product product = basket.getCatalog().get(id);
+            int quantity = basket.getQuantity(id);
+            lines.add(new PricedLine(product.getName(), quantity, product.getUnitCost(),
+                    product.hasPromotion(),
+                    product.calculatedPricePerItem(quantity), product.calculatedPrice(quantity)));
+        }
+        BigDecimal sumOfOrders = basket.sumOfOrders();
+        return new PricedOrder(terms.getId(), catalogVersion, lines, sumOfOrders,
+                terms.priceWithBasicDiscount(sumOfOrders),
+                terms.priceWithAdditionalDiscount(sumOfOrders, basket.getSumOfQuantities()));
+    }
+}
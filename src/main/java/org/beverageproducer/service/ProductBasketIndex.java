@@ -0,0 +1,53 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.models.BasketListener;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.Product;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+//reverse index from product name to the clients with that product in their basket
+//kept up to date by the baskets themselves, so a promotion change finds its baskets without scanning every client
+//products are indexed by name, like in the baskets, so copies of a product find the same clients
+public class ProductBasketIndex implements BasketListener {
+    private final ConcurrentMap<Character, Set<Client>> clientsByProduct = new ConcurrentHashMap<>();
+
+    //indexes the current basket and listens to its changes, the basket must not change while it is registered
+    public void register(Client client) {
+        client.setBasketListener(this);
+        for (Product product : client.getOrderedProducts().keySet()) {
+            lineAdded(client, product);
+        }
+    }
+
+    //stops listening to the client and drops it from the index
+    public void unregister(Client client) {
+        client.setBasketListener(null);
+        for (Set<Client> clients : clientsByProduct.values()) {
+            clients.remove(client);
+        }
+    }
+
+    //read only view that follows later changes
+    public Set<Client> getClients(char productName) {
+        Set<Client> clients = clientsByProduct.get(productName);
+        return clients == null ? Set.of() : Collections.unmodifiableSet(clients);
+    }
+
+    @Override
+    public void lineAdded(Client client, Product product) {
+        clientsByProduct.computeIfAbsent(product.getName(), name -> ConcurrentHashMap.newKeySet()).add(client);
+    }
+
+    //the empty set of a product is kept, products come from a small catalog
+    @Override
+    public void lineRemoved(Client client, Product product) {
+        Set<Client> clients = clientsByProduct.get(product.getName());
+        if (clients != null) {
+            clients.remove(client);
+        }
+    }
+}
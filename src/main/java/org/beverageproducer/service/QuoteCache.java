@@ -0,0 +1,213 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.enums.PricingCounter;
+import org.beverageproducer.metrics.PricingMetrics;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.DiscountTiers;
+import org.beverageproducer.models.Order;
+import org.beverageproducer.models.PricedOrder;
+import org.beverageproducer.models.ProductCatalog;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+//bounded cache of priced orders for callers that ask for the same quote again and again
+//a quote is found by client id and the lines of the order, it is only used while the discounts of the client and the
+//version of every product of the order are still the ones it was priced with
+//a mutation or promotion change of a product gives it a new version, so only the quotes with that product go stale,
+//they are dropped when they are found or evicted
+//LRU eviction in independently locked segments, so concurrent quotes rarely wait for each other
+public class QuoteCache {
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public QuoteCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Quote cache capacity has to be positive");
+        }
+        this.capacity = capacity;
+        int segmentCount = Math.min(SEGMENTS, capacity);
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            //the first segments take the remainder so the capacities add up
+            segments[i] = new Segment(capacity / segmentCount + (i < capacity % segmentCount ? 1 : 0));
+        }
+    }
+
+    //the cached quote of the order, otherwise the one of pricer, which is cached unless it throws
+    //the discounts and product versions are read before pricing, a change while the order is priced makes the new
+    //entry stale instead of caching an outdated quote as current
+    public PricedOrder get(Client terms, Order order, CatalogSnapshot snapshot, Supplier<PricedOrder> pricer) {
+        QuoteKey key = new QuoteKey(terms.getId(), order);
+        long[] versions = versionsOf(order, snapshot.getProductCatalog());
+        int basicClientDiscountPercent = terms.getBasicClientDiscountPercent();
+        DiscountTiers discountTiers = terms.getDiscountTiers();
+        Segment segment = segments[(key.hashCode() & 0x7fffffff) % segments.length];
+
+        Quote quote;
+        synchronized (segment) {
+            quote = segment.get(key);
+            if (quote != null && !quote.isValid(versions, basicClientDiscountPercent, discountTiers)) {
+                segment.remove(key);
+                invalidations.increment();
+                PricingMetrics.increment(PricingCounter.QUOTE_CACHE_INVALIDATIONS);
+                quote = null;
+            }
+        }
+        if (quote != null) {
+            hits.increment();
+            PricingMetrics.increment(PricingCounter.QUOTE_CACHE_HITS);
+            PricedOrder cached = quote.pricedOrder;
+            if (cached.getCatalogVersion() == snapshot.getVersion()) {
+                return cached;
+            }
+            //still valid for the newer snapshot, its changes were to other products
+            return new PricedOrder(cached.getClientId(), snapshot.getVersion(), cached.getLines(), cached.getSumOfOrders(),
+                    cached.getPriceWithBasicDiscount(), cached.getPriceWithAdditionalDiscount());
+        }
+        misses.increment();
+        PricingMetrics.increment(PricingCounter.QUOTE_CACHE_MISSES);
+        PricedOrder pricedOrder = pricer.get();
+        synchronized (segment) {
+            segment.put(key, new Quote(pricedOrder, versions, basicClientDiscountPercent, discountTiers));
+        }
+        return pricedOrder;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public QuoteCacheStats getStats() {
+        return new QuoteCacheStats(hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(), size());
+    }
+
+    //version of the product of every line, -1 for unknown products, the pricer rejects those orders anyway
+    private static long[] versionsOf(Order order, ProductCatalog catalog) {
+        long[] versions = new long[order.getLineCount()];
+        for (int line = 0; line < versions.length; line++) {
+            int id = catalog.idOf(order.getProductName(line));
+            versions[line] = id == ProductCatalog.NO_ID ? -1 : catalog.get(id).getVersion();
+        }
+        return versions;
+    }
+
+    //an access ordered map that drops its least recently used quote when it is over capacity
+    private final class Segment {
+        private final LinkedHashMap<QuoteKey, Quote> quotes = new LinkedHashMap<>(16, 0.75f, true);
+        private final int capacity;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        Quote get(QuoteKey key) {
+            return quotes.get(key);
+        }
+
+        void remove(QuoteKey key) {
+            quotes.remove(key);
+        }
+
+        void put(QuoteKey key, Quote quote) {
+            quotes.put(key, quote);
+            if (quotes.size() > capacity) {
+                Iterator<QuoteKey> eldest = quotes.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+                PricingMetrics.increment(PricingCounter.QUOTE_CACHE_EVICTIONS);
+            }
+        }
+
+        void clear() {
+            quotes.clear();
+        }
+
+        int size() {
+            return quotes.size();
+        }
+    }
+
+    //the same lines in another order are another key, callers repeat their requests as they are
+    private static final class QuoteKey {
+        private final int clientId;
+        private final char[] productNames;
+        private final int[] quantities;
+        private final int hash;
+
+        QuoteKey(int clientId, Order order) {
+            this.clientId = clientId;
+            this.productNames = new char[order.getLineCount()];
+            this.quantities = new int[order.getLineCount()];
+            int hash = clientId;
+            for (int line = 0; line < productNames.length; line++) {
+                productNames[line] = order.getProductName(line);
+                quantities[line] = order.getQuantity(line);
+                hash = 31 * (31 * hash + productNames[line]) + quantities[line];
+            }
+            //the segment is picked by the low bits, the high ones are folded into them
+            this.hash = hash ^ (hash >>> 16);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            QuoteKey that = (QuoteKey) o;
+            return clientId == that.clientId && hash == that.hash
+                    && Arrays.equals(productNames, that.productNames) && Arrays.equals(quantities, that.quantities);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Quote {
+        private final PricedOrder pricedOrder;
+        private final long[] versions;
+        private final int basicClientDiscountPercent;
+        private final DiscountTiers discountTiers;
+
+        Quote(PricedOrder pricedOrder, long[] versions, int basicClientDiscountPercent, DiscountTiers discountTiers) {
+            this.pricedOrder = pricedOrder;
+            this.versions = versions;
+            this.basicClientDiscountPercent = basicClientDiscountPercent;
+            this.discountTiers = discountTiers;
+        }
+
+        boolean isValid(long[] currentVersions, int currentBasicClientDiscountPercent, DiscountTiers currentDiscountTiers) {
+            return basicClientDiscountPercent == currentBasicClientDiscountPercent
+                    && discountTiers.equals(currentDiscountTiers) && Arrays.equals(versions, currentVersions);
+        }
+    }
+}
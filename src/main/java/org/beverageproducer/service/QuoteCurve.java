@@ -0,0 +1,93 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.exceptions.NegativeCountOfItemsException;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.FixedPoint;
+import org.beverageproducer.models.Product;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Map;
+
+//price with additional discount of a client's basket for every quantity 0..maxQuantity of one product
+//the rest of the basket is priced once, every point is then a few long operations:
+//the product's line prices come from a running line total, see Product.calculatedLinePrices,
+//and the volume tiers are picked by comparing the quantity sum with the client's thresholds
+public class QuoteCurve {
+    private final char productName;
+    private final long[] pricesCents;
+
+    private QuoteCurve(char productName, long[] pricesCents) {
+        this.productName = productName;
+        this.pricesCents = pricesCents;
+    }
+
+    //the product's current line in the basket, if any, is replaced by each quantity of the curve
+    public static QuoteCurve of(Client client, Product product, int maxQuantity) throws NegativeCountOfItemsException {
+        if (maxQuantity < 0) {
+            throw new NegativeCountOfItemsException();
+        }
+        long[] pricesCents = new long[maxQuantity + 1];
+        try {
+            fillFixedPoint(client, product, pricesCents);
+        } catch (ArithmeticException e) {
+            //prices that need more than 6 decimals or overflow a long
+            fillBigDecimal(client, product, pricesCents);
+        }
+        return new QuoteCurve(product.getName(), pricesCents);
+    }
+
+    public char getProductName() {
+        return productName;
+    }
+
+    public int getMaxQuantity() {
+        return pricesCents.length - 1;
+    }
+
+    public long priceCentsAt(int quantity) {
+        return pricesCents[quantity];
+    }
+
+    public BigDecimal priceAt(int quantity) {
+        return FixedPoint.fromCents(pricesCents[quantity]);
+    }
+
+    public long[] toCentsArray() {
+        return Arrays.copyOf(pricesCents, pricesCents.length);
+    }
+
+    private static void fillFixedPoint(Client client, Product product, long[] pricesCents) throws NegativeCountOfItemsException {
+        long restMicros = 0;
+        long restQuantities = 0;
+        for (Map.Entry<Product, Integer> entry : client.getOrderedProducts().entrySet()) {
+            if (entry.getKey().getName() != product.getName()) {
+                restMicros = Math.addExact(restMicros, entry.getKey().calculatedPriceMicros(entry.getValue()));
+                restQuantities += entry.getValue();
+            }
+        }
+        long[] linesMicros = product.calculatedLinePricesMicros(pricesCents.length - 1);
+        for (int quantity = 0; quantity < pricesCents.length; quantity++) {
+            long sumOfOrdersCents = FixedPoint.microsToCentsUp(Math.addExact(restMicros, linesMicros[quantity]));
+            pricesCents[quantity] = client.priceWithAdditionalDiscountCents(sumOfOrdersCents, restQuantities + quantity);
+        }
+    }
+
+    private static void fillBigDecimal(Client client, Product product, long[] pricesCents) throws NegativeCountOfItemsException {
+        BigDecimal rest = BigDecimal.valueOf(0);
+        long restQuantities = 0;
+        for (Map.Entry<Product, Integer> entry : client.getOrderedProducts().entrySet()) {
+            if (entry.getKey().getName() != product.getName()) {
+                rest = rest.add(entry.getKey().calculatedPrice(entry.getValue()));
+                restQuantities += entry.getValue();
+            }
+        }
+        BigDecimal[] lines = product.calculatedLinePrices(pricesCents.length - 1);
+        for (int quantity = 0; quantity < pricesCents.length; quantity++) {
+            BigDecimal sumOfOrders = rest.add(lines[quantity]).setScale(2, RoundingMode.UP);
+            pricesCents[quantity] = client.priceWithAdditionalDiscount(sumOfOrders, restQuantities + quantity)
+                    .movePointRight(2).longValueExact();
+        }
+    }
+}
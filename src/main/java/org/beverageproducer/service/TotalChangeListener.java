@@ -0,0 +1,8 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.models.TotalChange;
+
+//change feed of a ConcurrentController, called on the thread that changed the promotion after the baskets were repriced
+public interface TotalChangeListener {
+    void totalChanged(TotalChange change);
+}
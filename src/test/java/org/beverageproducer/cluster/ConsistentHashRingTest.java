@@ -0,0 +1,46 @@
+package org.beverageproducer.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+    private static final int CLIENTS = 100_000;
+
+    @Test
+    void clientsAreSpreadEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(4);
+        int[] clientsPerShard = new int[4];
+        for (int clientId = 1; clientId <= CLIENTS; clientId++) {
+            clientsPerShard[ring.shardOf(clientId)]++;
+        }
+        for (int clients : clientsPerShard) {
+            assertEquals(CLIENTS / 4.0, clients, CLIENTS / 4.0 * 0.15);
+        }
+    }
+
+    @Test
+    void addingAShardOnlyMovesClientsToIt() {
+        ConsistentHashRing four = new ConsistentHashRing(4);
+        ConsistentHashRing five = new ConsistentHashRing(5);
+        int moved = 0;
+        for (int clientId = 1; clientId <= CLIENTS; clientId++) {
+            if (four.shardOf(clientId) != five.shardOf(clientId)) {
+                assertEquals(4, five.shardOf(clientId));
+                moved++;
+            }
+        }
+        assertEquals(CLIENTS / 5.0, moved, CLIENTS / 5.0 * 0.15);
+    }
+
+    @Test
+    void sameAssignmentForEveryRing() {
+        ConsistentHashRing ring = new ConsistentHashRing(3);
+        ConsistentHashRing other = new ConsistentHashRing(3);
+        for (int clientId = -1000; clientId <= 1000; clientId++) {
+            assertEquals(ring.shardOf(clientId), other.shardOf(clientId));
+        }
+        assertEquals(0, new ConsistentHashRing(1).shardOf(42));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(0));
+    }
+}
@@ -0,0 +1,135 @@
+package org.beverageproducer.cluster;
+
+import org.beverageproducer.io.Json;
+import org.beverageproducer.models.Order;
+import org.beverageproducer.server.PricingServer;
+import org.beverageproducer.service.BatchPricingService;
+import org.beverageproducer.service.Controller;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//the workers run in this JVM, the same way Main shard starts them in their own
+class ShardCoordinatorTest {
+    private static final int SHARDS = 3;
+    private BatchPricingService singleNode;
+    private final List<PricingServer> workers = new ArrayList<>();
+    private ShardCoordinator coordinator;
+    private HttpClient client;
+
+    @BeforeEach
+    void start() throws Exception {
+        Controller all = new Controller();
+        all.createClientsAndProducts();
+        singleNode = new BatchPricingService(all);
+        ConsistentHashRing ring = new ConsistentHashRing(SHARDS);
+        List<URI> workerUris = new ArrayList<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            Controller controller = new Controller();
+            controller.createClientsAndProducts();
+            int owner = shard;
+            controller.getClients().keySet().removeIf(clientId -> ring.shardOf(clientId) != owner);
+            PricingServer worker = new PricingServer(new BatchPricingService(controller), new InetSocketAddress("localhost", 0));
+            worker.start();
+            workers.add(worker);
+            workerUris.add(URI.create("http://localhost:" + worker.getPort()));
+        }
+        coordinator = new ShardCoordinator(workerUris, new InetSocketAddress("localhost", 0));
+        coordinator.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void stop() {
+        coordinator.stop(0);
+        workers.forEach(worker -> worker.stop(0));
+    }
+
+    @Test
+    void quotesAreRoutedToTheShardOfTheClient() throws Exception {
+        for (int clientId = 1; clientId <= 5; clientId++) {
+            HttpResponse<String> response = post("/quote", "{\"clientId\":" + clientId + ",\"products\":{\"A\":10000,\"D\":300}}");
+            assertEquals(200, response.statusCode());
+            Order order = new Order(clientId, Map.of('A', 10000, 'D', 300));
+            assertEquals(0, singleNode.price(order).getPriceWithAdditionalDiscount()
+                    .compareTo((BigDecimal) Json.parseObject(response.body()).get("priceWithAdditionalDiscount")));
+        }
+    }
+
+    @Test
+    void promotionsReachEveryShard() throws Exception {
+        HttpResponse<String> update = post("/promotions", "{\"product\":\"A\",\"type\":\"PERCENT\",\"percent\":50}");
+        assertEquals(200, update.statusCode());
+        assertEquals(new BigDecimal(2), Json.parseObject(update.body()).get("catalogVersion"));
+        assertEquals(List.of(new BigDecimal(2), new BigDecimal(2), new BigDecimal(2)), Json.parseObject(update.body()).get("catalogVersions"));
+        singleNode.getCatalog().addPercentPromotion('A', 50);
+        for (int clientId = 1; clientId <= 5; clientId++) {
+            HttpResponse<String> response = post("/quote", "{\"clientId\":" + clientId + ",\"products\":{\"A\":10}}");
+            assertEquals(0, singleNode.price(new Order(clientId, Map.of('A', 10))).getSumOfOrders()
+                    .compareTo((BigDecimal) Json.parseObject(response.body()).get("sumOfOrders")));
+        }
+    }
+
+    @Test
+    void resentUpdateIsNotAppliedTwice() throws Exception {
+        String update = "{\"updateId\":\"resent\",\"product\":\"A\",\"type\":\"PERCENT\",\"percent\":50}";
+        //an earlier attempt reached shard 0, only its answer was lost
+        HttpRequest first = HttpRequest.newBuilder(URI.create("http://localhost:" + workers.get(0).getPort() + "/promotions"))
+                .POST(HttpRequest.BodyPublishers.ofString(update))
+                .build();
+        assertEquals(200, client.send(first, HttpResponse.BodyHandlers.ofString()).statusCode());
+        HttpResponse<String> resent = post("/promotions", update);
+        assertEquals(200, resent.statusCode());
+        assertEquals(List.of(new BigDecimal(2), new BigDecimal(2), new BigDecimal(2)), Json.parseObject(resent.body()).get("catalogVersions"));
+    }
+
+    @Test
+    void invalidRequestsAreRejected() throws Exception {
+        assertEquals(400, post("/quote", "{\"products\":{\"A\":1}}").statusCode());
+        assertEquals(400, post("/quote", "not json").statusCode());
+        //unknown to the worker the client would belong to
+        assertEquals(400, post("/quote", "{\"clientId\":9,\"products\":{\"A\":1}}").statusCode());
+        assertEquals(400, post("/promotions", "{\"product\":\"A\",\"type\":\"PERCENT\",\"percent\":0}").statusCode());
+        //not routed by a truncated id
+        assertEquals(400, post("/quote", "{\"clientId\":1.5,\"products\":{\"A\":1}}").statusCode());
+        assertEquals(400, post("/quote", "{\"clientId\":4294967297,\"products\":{\"A\":1}}").statusCode());
+        //no shard has a promotion on C, every shard rejects the removal
+        assertEquals(400, post("/promotions", "{\"product\":\"C\",\"type\":\"NONE\"}").statusCode());
+    }
+
+    @Test
+    void promotionMissingOnAShardIsReported() throws Exception {
+        int stopped = 1;
+        workers.get(stopped).stop(0);
+        HttpResponse<String> update = post("/promotions", "{\"product\":\"A\",\"type\":\"PERCENT\",\"percent\":50}");
+        assertEquals(502, update.statusCode());
+        assertEquals(List.of(new BigDecimal(stopped)), Json.parseObject(update.body()).get("failedShards"));
+        assertTrue(Json.parseObject(update.body()).get("updateId") instanceof String);
+    }
+
+    @Test
+    void unavailableWorkerIsReported() throws Exception {
+        int clientId = 1;
+        workers.get(coordinator.getRing().shardOf(clientId)).stop(0);
+        assertEquals(502, post("/quote", "{\"clientId\":" + clientId + ",\"products\":{\"A\":1}}").statusCode());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + coordinator.getPort() + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
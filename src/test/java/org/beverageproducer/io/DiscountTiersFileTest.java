@@ -0,0 +1,27 @@
+package org.beverageproducer.io;
+
+import org.beverageproducer.models.DiscountTiers;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscountTiersFileTest {
+
+    @Test
+    void readTiersByClient() throws Exception {
+        Map<Integer, DiscountTiers> tiers = DiscountTiersFile.read(new StringReader(
+                "# contracts\nclient.1=10000:1,30000:2\nclient.7 = 500:1, 5000:2, 50000:3\nother=1\n"));
+        assertEquals(2, tiers.size());
+        assertEquals(DiscountTiers.of(1, 2), tiers.get(1));
+        assertEquals(3, tiers.get(7).size());
+        assertEquals(2, tiers.get(7).percentFor(5000));
+    }
+
+    @Test
+    void invalidClientId() {
+        assertThrows(IllegalArgumentException.class, () -> DiscountTiersFile.read(new StringReader("client.x=1:1\n")));
+    }
+}
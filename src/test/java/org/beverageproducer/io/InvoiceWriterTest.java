@@ -0,0 +1,173 @@
+package org.beverageproducer.io;
+
+import org.beverageproducer.models.PricedLine;
+import org.beverageproducer.models.PricedOrder;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvoiceWriterTest {
+
+    @Test
+    void writesTheInvoicesOfTheFormatterInOrder() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StringBuilder expected = new StringBuilder();
+        //a small batch size and queue make the renderer write many batches and the producer wait for space
+        try (InvoiceWriter writer = new InvoiceWriter(Channels.newChannel(bytes), 4, 100)) {
+            for (int clientId = 1; clientId <= 200; clientId++) {
+                PricedOrder order = order(clientId);
+                writer.submit(order);
+                expected.append(InvoiceFormatter.format(order));
+            }
+        }
+        assertEquals(expected.toString(), bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void flushWaitsForTheSubmittedInvoices() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InvoiceWriter writer = new InvoiceWriter(Channels.newChannel(bytes))) {
+            writer.submit(order(1));
+            writer.submit(order(2));
+            writer.flush();
+            assertEquals(2, writer.getWrittenOrders());
+            assertEquals(InvoiceFormatter.format(order(1)) + InvoiceFormatter.format(order(2)),
+                    bytes.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void failedChannelIsReportedToTheProducer() {
+        WritableByteChannel failing = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        InvoiceWriter writer = new InvoiceWriter(failing);
+        assertThrows(IOException.class, () -> {
+            writer.submit(order(1));
+            writer.flush();
+        });
+        assertThrows(IOException.class, writer::close);
+        assertThrows(IOException.class, () -> writer.submit(order(2)));
+    }
+
+    @Test
+    void interruptedRendererReleasesBlockedProducers() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> renderer = new AtomicReference<>();
+        WritableByteChannel blocking = new WritableByteChannel() {
+            //waits until released, an interrupt is kept for the renderer to find afterwards
+            @Override
+            public int write(ByteBuffer src) {
+                renderer.set(Thread.currentThread());
+                writing.countDown();
+                boolean interrupted = false;
+                while (true) {
+                    try {
+                        release.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                int written = src.remaining();
+                src.position(src.limit());
+                return written;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        InvoiceWriter writer = new InvoiceWriter(blocking, 1, 1);
+        writer.submit(order(1));
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        //the renderer is stuck in the channel, this fills the queue
+        writer.submit(order(2));
+        AtomicReference<Throwable> producerFailure = new AtomicReference<>();
+        Thread producer = new Thread(() -> {
+            try {
+                writer.submit(order(3));
+            } catch (Throwable e) {
+                producerFailure.set(e);
+            }
+        });
+        producer.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (producer.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, producer.getState());
+
+        renderer.get().interrupt();
+        release.countDown();
+        producer.join(10_000);
+        assertFalse(producer.isAlive());
+        assertTrue(producerFailure.get() instanceof IOException, String.valueOf(producerFailure.get()));
+        assertThrows(IOException.class, writer::flush);
+        assertThrows(IOException.class, () -> writer.submit(order(4)));
+        assertThrows(IOException.class, writer::close);
+        renderer.get().join(10_000);
+        assertFalse(renderer.get().isAlive());
+    }
+
+    @Test
+    void amountsAreWrittenLikeBigDecimal() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong() >> random.nextInt(64), random.nextInt(24) - 3);
+            StringBuilder builder = new StringBuilder();
+            InvoiceFormatter.appendCentsUp(builder, amount);
+            assertEquals(amount.setScale(2, RoundingMode.UP).toString(), builder.toString());
+
+            BigDecimal cents = amount.setScale(2, RoundingMode.HALF_EVEN);
+            builder.setLength(0);
+            InvoiceFormatter.appendAmount(builder, cents);
+            assertEquals(cents.toString(), builder.toString());
+        }
+    }
+
+    private static PricedOrder order(int clientId) {
+        BigDecimal unitCost = new BigDecimal("0.52");
+        BigDecimal pricePerItem = new BigDecimal("0.6552");
+        BigDecimal price = pricePerItem.multiply(BigDecimal.valueOf(clientId));
+        List<PricedLine> lines = List.of(new PricedLine('A', clientId, unitCost, false, pricePerItem, price),
+                new PricedLine('\u00DC', clientId, unitCost, true, pricePerItem, price));
+        BigDecimal sum = price.add(price).setScale(2, RoundingMode.HALF_EVEN);
+        return new PricedOrder(clientId, 1, lines, sum, sum, sum);
+    }
+}
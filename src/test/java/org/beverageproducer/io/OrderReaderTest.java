@@ -0,0 +1,87 @@
+package org.beverageproducer.io;
+
+import org.beverageproducer.enums.OrderFileFormat;
+import org.beverageproducer.models.Order;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderReaderTest {
+
+    @Test
+    void readCsvGroupsConsecutiveRowsOfAClient() {
+        List<Order> orders = read("clientId,product,quantity\n1,A,10\n1,\"B\",5\n\n2, C ,7\n1,A,1\n", OrderFileFormat.CSV);
+        assertEquals(3, orders.size());
+        assertEquals(1, orders.get(0).getClientId());
+        assertEquals(2, orders.get(0).getLineCount());
+        assertEquals('B', orders.get(0).getProductName(1));
+        assertEquals(5, orders.get(0).getQuantity(1));
+        assertEquals(2, orders.get(1).getClientId());
+        assertEquals('C', orders.get(1).getProductName(0));
+        assertEquals(1, orders.get(2).getClientId());
+        assertEquals(1, orders.get(2).getLineCount());
+    }
+
+    @Test
+    void longRunIsSplitIntoSeveralOrders() {
+        StringBuilder text = new StringBuilder();
+        int rows = OrderReader.MAX_LINES_PER_ORDER * 2 + 3;
+        for (int i = 0; i < rows; i++) {
+            text.append("7,A,").append(i + 1).append('\n');
+        }
+        text.append("8,B,1\n");
+        List<Order> orders = read(text.toString(), OrderFileFormat.CSV);
+        assertEquals(4, orders.size());
+        assertEquals(OrderReader.MAX_LINES_PER_ORDER, orders.get(0).getLineCount());
+        assertEquals(OrderReader.MAX_LINES_PER_ORDER, orders.get(1).getLineCount());
+        assertEquals(3, orders.get(2).getLineCount());
+        assertEquals(7, orders.get(2).getClientId());
+        assertEquals(OrderReader.MAX_LINES_PER_ORDER + 1, orders.get(1).getQuantity(0));
+        assertEquals(rows, orders.get(2).getQuantity(2));
+        assertEquals(8, orders.get(3).getClientId());
+    }
+
+    @Test
+    void headerAfterBlankLinesOrByteOrderMark() {
+        assertEquals(1, read("\n  \nclientId,product,quantity\n1,A,10\n", OrderFileFormat.CSV).size());
+        assertEquals(1, read("\uFEFFclientId,product,quantity\n1,A,10\n", OrderFileFormat.CSV).size());
+        assertEquals(1, read("\uFEFF1,A,10\n", OrderFileFormat.CSV).get(0).getClientId());
+        assertEquals(3, read("\uFEFF{\"clientId\":3,\"product\":\"A\",\"quantity\":1}\n", OrderFileFormat.JSON_LINES).get(0).getClientId());
+        assertThrows(IllegalArgumentException.class, () -> read("1,A,10\nclientId,product,quantity\n", OrderFileFormat.CSV));
+    }
+
+    @Test
+    void readJsonLines() {
+        List<Order> orders = read("{\"clientId\": 3, \"product\": \"D\", \"quantity\": 12}\n{\"clientId\":3,\"product\":\"A\",\"quantity\":1}\n", OrderFileFormat.JSON_LINES);
+        assertEquals(1, orders.size());
+        assertEquals(3, orders.get(0).getClientId());
+        assertEquals(12, orders.get(0).getQuantity(0));
+        assertEquals('A', orders.get(0).getProductName(1));
+    }
+
+    @Test
+    void invalidRowsReportTheLine() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> read("1,A,10\n1,AB,1\n", OrderFileFormat.CSV));
+        assertTrue(e.getMessage().startsWith("Line 2"));
+        assertThrows(IllegalArgumentException.class, () -> read("1,A\n", OrderFileFormat.CSV));
+        assertThrows(IllegalArgumentException.class, () -> read("1,A,x\n", OrderFileFormat.CSV));
+        assertThrows(IllegalArgumentException.class, () -> read("{\"clientId\":1,\"product\":\"A\"}\n", OrderFileFormat.JSON_LINES));
+        assertThrows(IllegalArgumentException.class, () -> read("{\"clientId\":1.5,\"product\":\"A\",\"quantity\":1}\n", OrderFileFormat.JSON_LINES));
+    }
+
+    @Test
+    void formatFromFileName() {
+        assertEquals(OrderFileFormat.CSV, OrderFileFormat.of("orders.csv"));
+        assertEquals(OrderFileFormat.JSON_LINES, OrderFileFormat.of("orders.JSONL"));
+        assertEquals(OrderFileFormat.JSON_LINES, OrderFileFormat.of("orders.ndjson"));
+    }
+
+    private static List<Order> read(String text, OrderFileFormat format) {
+        return new OrderReader(new BufferedReader(new StringReader(text)), format).stream().collect(Collectors.toList());
+    }
+}
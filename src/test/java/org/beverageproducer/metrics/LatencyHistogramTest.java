@@ -0,0 +1,53 @@
+package org.beverageproducer.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsCoverEveryValueWithinThePrecision() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 65, 100, 1000, 12345, 999_999, 1L << 30, (1L << 40) - 1};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long highest = LatencyHistogram.highestValueOf(bucket);
+            assertTrue(highest >= value, value + " in bucket up to " + highest);
+            assertTrue(highest - value <= value / LatencyHistogram.SUB_BUCKETS, value + " in bucket up to " + highest);
+            if (bucket > 0) {
+                assertTrue(LatencyHistogram.highestValueOf(bucket - 1) < value);
+            }
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void stripesAreAllocatedOnFirstRecord() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.allocatedStripes());
+        assertEquals(0, histogram.snapshot().getCount());
+        histogram.reset();
+        histogram.record(42);
+        histogram.record(43);
+        assertEquals(1, histogram.allocatedStripes());
+        assertEquals(2, histogram.snapshot().getCount());
+    }
+
+    @Test
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 10000; value++) {
+            histogram.record(value);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(10000, snapshot.getCount());
+        assertEquals(10000, snapshot.getMax());
+        assertEquals(5000.5, snapshot.getMean(), 0.001);
+        assertEquals(5000, snapshot.getValueAtPercentile(50), 5000 / 32);
+        assertEquals(9900, snapshot.getValueAtPercentile(99), 9900 / 32);
+        assertEquals(10000, snapshot.getValueAtPercentile(100));
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,56 @@
+package org.beverageproducer.metrics;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.enums.PricingCounter;
+import org.beverageproducer.enums.PricingOperation;
+import org.beverageproducer.exceptions.InvalidCountOfItemsException;
+import org.beverageproducer.exceptions.NegativeCountOfItemsException;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//the metrics are process wide, so only differences between two snapshots are checked
+class PricingMetricsTest {
+
+    @Test
+    void pricingIsRecorded() throws Exception {
+        assertTrue(PricingMetrics.ENABLED);
+        MetricsSnapshot before = PricingMetrics.snapshot();
+        Product product = new Product('A', new BigDecimal(1), MarkupType.PRICE_PER_UNIT, new BigDecimal(1));
+        Client client = new Client(1, 5, 1, 2);
+        client.addOrderedProduct(product, 10);
+        client.priceWithAdditionalDiscount();
+        client.sumOfOrders();
+        assertThrows(NegativeCountOfItemsException.class, () -> product.calculatedPrice(-1));
+        assertThrows(InvalidCountOfItemsException.class, () -> client.addOrderedProduct(product, 0));
+        MetricsSnapshot after = PricingMetrics.snapshot();
+
+        assertTrue(difference(before, after, PricingCounter.QUOTES_BUILT) >= 1);
+        assertTrue(difference(before, after, PricingCounter.LINES_PRICED) >= 1);
+        assertTrue(difference(before, after, PricingCounter.NEGATIVE_COUNT_OF_ITEMS_EXCEPTIONS) >= 1);
+        assertTrue(difference(before, after, PricingCounter.INVALID_COUNT_OF_ITEMS_EXCEPTIONS) >= 1);
+        assertTrue(after.getLatency(PricingOperation.CLIENT_SUM_OF_ORDERS).getCount()
+                > before.getLatency(PricingOperation.CLIENT_SUM_OF_ORDERS).getCount());
+        assertTrue(after.getLatency(PricingOperation.CLIENT_PRICE_WITH_ADDITIONAL_DISCOUNT).getCount()
+                > before.getLatency(PricingOperation.CLIENT_PRICE_WITH_ADDITIONAL_DISCOUNT).getCount());
+    }
+
+    @Test
+    void exportContainsEveryMetric() {
+        String text = PricingMetrics.snapshot().toText();
+        for (PricingOperation operation : PricingOperation.values()) {
+            assertTrue(text.contains("pricing_latency_nanos_count{operation=\"" + operation.name().toLowerCase() + "\"}"));
+        }
+        for (PricingCounter counter : PricingCounter.values()) {
+            assertTrue(text.contains("pricing_" + counter.name().toLowerCase() + "_total "));
+        }
+    }
+
+    private static long difference(MetricsSnapshot before, MetricsSnapshot after, PricingCounter counter) {
+        return after.getCounter(counter) - before.getCounter(counter);
+    }
+}
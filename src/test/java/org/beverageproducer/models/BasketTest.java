@@ -0,0 +1,78 @@
+package org.beverageproducer.models;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.exceptions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BasketTest {
+    private ProductCatalog catalog;
+    private Basket basket;
+    private Product productA;
+    private Product productB;
+
+    @BeforeEach
+    void unit() throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException {
+        productA = new Product('A', new BigDecimal("0.52"), MarkupType.PERCENT, new BigDecimal(80));
+        productB = new Product('B', new BigDecimal("0.38"), MarkupType.PERCENT, new BigDecimal(120));
+        productB.addPercentPromotion(30);
+        catalog = new ProductCatalog(List.of(productA, productB));
+        basket = new Basket(catalog);
+    }
+
+    @Test
+    void catalogIds() throws InvalidMarkupException, InvalidUnitCostException {
+        assertEquals(0, catalog.idOf('A'));
+        assertEquals(1, catalog.idOf('B'));
+        assertEquals(ProductCatalog.NO_ID, catalog.idOf('C'));
+        assertEquals(ProductCatalog.NO_ID, catalog.idOf(Character.MAX_VALUE));
+        assertSame(productB, catalog.get(1));
+        assertThrows(IllegalArgumentException.class, () -> catalog.get(2));
+
+        Product replacement = new Product('A', BigDecimal.ONE, MarkupType.PRICE_PER_UNIT, BigDecimal.ONE);
+        ProductCatalog copy = new ProductCatalog(catalog);
+        assertEquals(0, copy.register(replacement));
+        assertEquals(2, copy.register(new Product('Z', BigDecimal.ONE, MarkupType.PRICE_PER_UNIT, BigDecimal.ONE)));
+        assertSame(replacement, copy.get(0));
+        assertSame(productA, catalog.get(0));
+        assertEquals(2, catalog.size());
+    }
+
+    @Test
+    void setQuantity() throws InvalidCountOfItemsException {
+        assertThrows(InvalidCountOfItemsException.class, () -> basket.setQuantity(0, 0));
+        assertThrows(InvalidCountOfItemsException.class, () -> basket.setQuantity(0, -1));
+        assertThrows(IllegalArgumentException.class, () -> basket.setQuantity(2, 1));
+        basket.setQuantity(1, 5);
+        basket.setQuantity(0, 3);
+        basket.setQuantity(1, 7);
+        assertEquals(2, basket.getLineCount());
+        assertEquals(10, basket.getSumOfQuantities());
+        assertEquals(7, basket.getQuantity(1));
+        basket.removeLine(1);
+        assertEquals(1, basket.getLineCount());
+        assertEquals(0, basket.getLineId(0));
+        assertEquals(3, basket.getSumOfQuantities());
+        basket.clear();
+        assertEquals(0, basket.getLineCount());
+        assertEquals(0, basket.getQuantity(0));
+    }
+
+    @Test
+    void sumOfOrdersMatchesClient() throws InvalidCountOfItemsException, NegativeCountOfItemsException, InvalidPercentException {
+        Client client = new Client(1, 5, 2, 4);
+        basket.setQuantity(0, 12000);
+        basket.setQuantity(1, 333);
+        client.addOrderedProduct(productA, 12000);
+        client.addOrderedProduct(productB, 333);
+        assertEquals(client.sumOfOrders(), basket.sumOfOrders());
+        assertEquals(client.sumOfOrdersCents(), basket.sumOfOrdersCents());
+        assertEquals(client.priceWithAdditionalDiscount(),
+                client.priceWithAdditionalDiscount(basket.sumOfOrders(), basket.getSumOfQuantities()));
+    }
+}
@@ -0,0 +1,93 @@
+package org.beverageproducer.models;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.promotions.PercentRule;
+import org.beverageproducer.service.Controller;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogImageTest {
+    private Path image;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        image = Files.createTempFile("catalog", ".img");
+    }
+
+    @AfterEach
+    void deleteFile() throws IOException {
+        Files.deleteIfExists(image);
+    }
+
+    @Test
+    void sampleCatalogRoundTrip() throws Exception {
+        Controller sample = new Controller();
+        sample.createClientsAndProducts();
+        sample.getClients().get(2).setDiscountTiers(DiscountTiers.parse("100:1,1000:2,10000:3"));
+        sample.writeCatalogImage(image);
+
+        long modifications = Product.modificationCount();
+        Controller loaded = new Controller();
+        loaded.loadClientsAndProducts(image);
+        assertEquals(modifications, Product.modificationCount());
+        assertEquals(sample.getProducts().toString(), loaded.getProducts().toString());
+        assertEquals(sample.getClients().toString(), loaded.getClients().toString());
+        for (char name = 'A'; name <= 'D'; name++) {
+            for (int quantity : new int[]{1, 3, 10000, 29999}) {
+                assertEquals(sample.getProducts().get(name).calculatedPrice(quantity), loaded.getProducts().get(name).calculatedPrice(quantity));
+            }
+        }
+    }
+
+    @Test
+    void largeCatalogRoundTrip() throws Exception {
+        Random random = new Random(3);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 60_000; i++) {
+            BigDecimal unitCost = i % 1000 == 0 ? new BigDecimal("123456789012345678901234.5") : BigDecimal.valueOf(1 + random.nextInt(99_999), 3);
+            Product product = new Product((char) i, unitCost, i % 2 == 0 ? MarkupType.PERCENT : MarkupType.PRICE_PER_UNIT,
+                    BigDecimal.valueOf(1 + random.nextInt(500), 1));
+            if (i % 3 == 1) product.addPercentPromotion(1 + random.nextInt(90));
+            if (i % 3 == 2) product.addFreeItemsPromotion(1 + random.nextInt(5), 1 + random.nextInt(3));
+            products.add(product);
+        }
+        List<Client> clients = List.of(new Client(1, 5, 1, 2), new Client(7, 0, 0, 0));
+        CatalogImage.write(image, products, clients);
+        CatalogImage loaded = CatalogImage.read(image);
+        assertEquals(products.size(), loaded.getProducts().size());
+        for (Product product : products) {
+            Product copy = loaded.getProducts().get(product.getName());
+            assertEquals(product.toString(), copy.toString());
+            assertEquals(product.calculatedPrice(7), copy.calculatedPrice(7));
+        }
+        assertEquals(DiscountTiers.of(1, 2), loaded.getClients().get(1).getDiscountTiers());
+        assertEquals(DiscountTiers.of(0, 0), loaded.getClients().get(7).getDiscountTiers());
+    }
+
+    @Test
+    void corruptImageIsRejected() throws Exception {
+        CatalogImage.write(image, List.of(new Product('A', BigDecimal.ONE, MarkupType.PERCENT, BigDecimal.TEN)), List.of());
+        byte[] bytes = Files.readAllBytes(image);
+        bytes[bytes.length - 3] ^= 1;
+        Files.write(image, bytes);
+        assertThrows(IOException.class, () -> CatalogImage.read(image));
+    }
+
+    @Test
+    void productsWithPromotionRulesCantBeStored() throws Exception {
+        Product product = new Product('A', BigDecimal.ONE, MarkupType.PERCENT, BigDecimal.TEN);
+        product.addPromotionRule(new PercentRule(5));
+        assertThrows(IllegalArgumentException.class, () -> CatalogImage.write(image, List.of(product), List.of()));
+    }
+}
@@ -1,12 +1,17 @@
 package org.beverageproducer.models;
 
 import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.enums.PricingCounter;
+import org.beverageproducer.enums.ValidationError;
 import org.beverageproducer.exceptions.*;
+import org.beverageproducer.metrics.PricingMetrics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -118,4 +123,206 @@ class ClientTest {
         client.addOrderedProduct(new Product('B', new BigDecimal(1), MarkupType.PRICE_PER_UNIT, new BigDecimal(1)), 10000);
         assertEquals(new BigDecimal(64000).setScale(2, RoundingMode.UP), client.priceWithAdditionalDiscount());
     }
-}
\ No newline at end of file
+
+    @Test
+    void pricesFollowBasketAndProductChanges() throws NegativeCountOfItemsException, InvalidCountOfItemsException,
+            InvalidMarkupException, InvalidUnitCostException, InvalidPercentException {
+        Product product = new Product('A', new BigDecimal(1), MarkupType.PRICE_PER_UNIT, new BigDecimal(1));
+        client.addOrderedProduct(product, 10);
+        assertEquals(new BigDecimal(20).setScale(2, RoundingMode.UP), client.sumOfOrders());
+        assertEquals(new BigDecimal(16).setScale(2, RoundingMode.UP), client.priceWithAdditionalDiscount());
+        client.addOrderedProduct(product, 5);
+        assertEquals(new BigDecimal(10).setScale(2, RoundingMode.UP), client.sumOfOrders());
+        product.addPercentPromotion(50);
+        assertEquals(new BigDecimal(5).setScale(2, RoundingMode.UP), client.sumOfOrders());
+        client.setBasicClientDiscountPercent(0);
+        assertEquals(new BigDecimal(5).setScale(2, RoundingMode.UP), client.priceWithBasicDiscount());
+        client.setAbove10000Percent(10);
+        client.setAbove30000Percent(10);
+        client.addOrderedProduct(product, 10000);
+        assertEquals(new BigDecimal(9000).setScale(2, RoundingMode.UP), client.priceWithAdditionalDiscount());
+    }
+
+    @Test
+    void discountTiersReplaceTheFixedThresholds() throws Exception {
+        Product product = new Product('A', new BigDecimal("0.5"), MarkupType.PRICE_PER_UNIT, new BigDecimal("0.5"));
+        client2.addOrderedProduct(product, 1000);
+        assertEquals(new BigDecimal(1000).setScale(2, RoundingMode.UP), client2.priceWithAdditionalDiscount());
+        client2.setDiscountTiers(DiscountTiers.parse("500:1,1000:10,20000:20"));
+        assertEquals(new BigDecimal(900).setScale(2, RoundingMode.UP), client2.priceWithAdditionalDiscount());
+        assertEquals(90000, client2.priceWithAdditionalDiscountCents());
+        assertEquals(10, client2.getAbove10000Percent());
+        assertEquals(20, client2.getAbove30000Percent());
+        client2.setAbove10000Percent(5);
+        assertEquals(DiscountTiers.parse("500:1,1000:10,10000:5,20000:20"), client2.getDiscountTiers());
+        client2.setAbove30000Percent(25);
+        assertEquals(DiscountTiers.parse("500:1,1000:10,10000:5,20000:20,30000:25"), client2.getDiscountTiers());
+        client2.setAbove10000Percent(7);
+        assertEquals(DiscountTiers.parse("500:1,1000:10,10000:7,20000:20,30000:25"), client2.getDiscountTiers());
+        assertEquals(client2.getDiscountTiers(), new Client(client2).getDiscountTiers());
+    }
+
+    @Test
+    void deltaTotalsMatchFullRecompute() throws Exception {
+        Product[] products = new Product[26];
+        for (int i = 0; i < products.length; i++) {
+            products[i] = new Product((char) ('A' + i), new BigDecimal("0.37").add(new BigDecimal(i)),
+                    i % 2 == 0 ? MarkupType.PERCENT : MarkupType.PRICE_PER_UNIT, new BigDecimal("12.5"));
+            if (i % 3 == 0) products[i].addPercentPromotion(33);
+            if (i % 3 == 1) products[i].addFreeItemsPromotion(2, 1);
+        }
+        Client edited = new Client(2, 4, 1, 2);
+        Random random = new Random(42);
+        for (int edit = 0; edit < 2000; edit++) {
+            Product product = products[random.nextInt(products.length)];
+            if (random.nextInt(4) == 0) {
+                edited.removeOrderedProduct(product);
+            } else {
+                edited.addOrderedProduct(product, 1 + random.nextInt(3000));
+            }
+            if (edit == 1000) {
+                products[5].setUnitCost(new BigDecimal("2.5"));
+            }
+            if (edit % 50 == 25) {
+                products[random.nextInt(products.length)].addPercentPromotion(1 + random.nextInt(40));
+            }
+            if (edit % 7 == 0) {
+                Client recomputed = new Client(edited);
+                for (Map.Entry<Product, Integer> entry : edited.getOrderedProducts().entrySet()) {
+                    recomputed.addOrderedProduct(entry.getKey(), entry.getValue());
+                }
+                assertEquals(recomputed.sumOfOrders(), edited.sumOfOrders());
+                assertEquals(recomputed.priceWithAdditionalDiscount(), edited.priceWithAdditionalDiscount());
+                assertEquals(recomputed.getSumOfQuantities(), edited.getSumOfQuantities());
+            }
+        }
+    }
+
+    @Test
+    void productChangeRepricesOnlyItsLine() throws Exception {
+        Product changed = new Product('A', new BigDecimal(1), MarkupType.PRICE_PER_UNIT, new BigDecimal(1));
+        for (int i = 0; i < 10; i++) {
+            client.addOrderedProduct(new Product((char) ('B' + i), new BigDecimal(2), MarkupType.PERCENT, new BigDecimal(50)), 5);
+        }
+        client.addOrderedProduct(changed, 10);
+        BigDecimal before = client.sumOfOrders();
+
+        long linesPriced = PricingMetrics.snapshot().getCounter(PricingCounter.LINES_PRICED);
+        changed.addPercentPromotion(50);
+        assertEquals(before.subtract(new BigDecimal(10)), client.sumOfOrders());
+        if (PricingMetrics.ENABLED) {
+            assertEquals(linesPriced + 1, PricingMetrics.snapshot().getCounter(PricingCounter.LINES_PRICED));
+        }
+    }
+
+    @Test
+    void repeatedEditsOfOneLineRepriceOnlyThatLine() throws Exception {
+        Product edited = new Product('A', new BigDecimal(1), MarkupType.PRICE_PER_UNIT, new BigDecimal(1));
+        for (int i = 0; i < 10; i++) {
+            client.addOrderedProduct(new Product((char) ('B' + i), new BigDecimal(2), MarkupType.PERCENT, new BigDecimal(50)), 5);
+        }
+        client.addOrderedProduct(edited, 1);
+        client.sumOfOrders();
+
+        for (int i = 0; i < 20; i++) {
+            client.addOrderedProduct(new Product(edited), 1);
+        }
+        BigDecimal expected = recomputed(client).sumOfOrders();
+        long linesPriced = PricingMetrics.snapshot().getCounter(PricingCounter.LINES_PRICED);
+        assertEquals(expected, client.sumOfOrders());
+        if (PricingMetrics.ENABLED) {
+            assertEquals(linesPriced + 1, PricingMetrics.snapshot().getCounter(PricingCounter.LINES_PRICED));
+        }
+    }
+
+    @Test
+    void manyProductChangesMatchFullRecompute() throws Exception {
+        //enough changed lines for ParallelLinePricing, used when the common pool has more than one thread
+        int lines = ParallelLinePricing.THRESHOLD * 2 + 100;
+        Random random = new Random(3);
+        Product[] products = new Product[lines];
+        for (int i = 0; i < lines; i++) {
+            products[i] = new Product((char) i, BigDecimal.valueOf(1 + random.nextInt(999), 2),
+                    MarkupType.PERCENT, BigDecimal.valueOf(1 + random.nextInt(150)));
+            client.addOrderedProduct(products[i], 1 + random.nextInt(100));
+        }
+        client.sumOfOrders();
+        for (int i = 0; i < lines; i += 2) {
+            products[i].addPercentPromotion(1 + random.nextInt(50));
+        }
+        client.removeOrderedProduct(products[0]);
+        assertEquals(recomputed(client).sumOfOrders(), client.sumOfOrders());
+
+        for (Product product : products) {
+            product.addFreeItemsPromotion(2, 1);
+        }
+        assertEquals(recomputed(client).priceWithAdditionalDiscount(), client.priceWithAdditionalDiscount());
+    }
+
+    private static Client recomputed(Client client) throws InvalidCountOfItemsException {
+        Client recomputed = new Client(client);
+        for (Map.Entry<Product, Integer> entry : client.getOrderedProducts().entrySet()) {
+            recomputed.addOrderedProduct(entry.getKey(), entry.getValue());
+        }
+        return recomputed;
+    }
+
+    @Test
+    void basketListenerSeesLinesEnterAndLeave() throws Exception {
+        Product product = new Product('A', new BigDecimal(1), MarkupType.PRICE_PER_UNIT, new BigDecimal(1));
+        StringBuilder events = new StringBuilder();
+        client.setBasketListener(new BasketListener() {
+            @Override
+            public void lineAdded(Client client, Product product) {
+                events.append('+').append(product.getName());
+            }
+
+            @Override
+            public void lineRemoved(Client client, Product product) {
+                events.append('-').append(product.getName());
+            }
+        });
+        client.addOrderedProduct(product, 1);
+        client.addOrderedProduct(product, 2);
+        client.removeOrderedProduct(product);
+        client.removeOrderedProduct(product);
+        assertEquals("+A-A", events.toString());
+    }
+
+    @Test
+    void removeOrderedProduct() throws Exception {
+        Product product = new Product('A', new BigDecimal(1), MarkupType.PRICE_PER_UNIT, new BigDecimal(1));
+        assertFalse(client.removeOrderedProduct(product));
+        client.addOrderedProduct(product, 10);
+        assertEquals(new BigDecimal(20).setScale(2, RoundingMode.UP), client.sumOfOrders());
+        assertTrue(client.removeOrderedProduct(product));
+        assertEquals(new BigDecimal(0).setScale(2, RoundingMode.UP), client.sumOfOrders());
+        assertEquals(0, client.getSumOfQuantities());
+        assertTrue(client.getOrderedProducts().isEmpty());
+    }
+
+    @Test
+    void getOrderedProductsIsReadOnly() throws InvalidMarkupException, InvalidUnitCostException {
+        Product product = new Product('A', new BigDecimal(1), MarkupType.PRICE_PER_UNIT, new BigDecimal(1));
+        Map<Product, Integer> orderedProducts = client.getOrderedProducts();
+        assertThrows(UnsupportedOperationException.class, () -> orderedProducts.put(product, 1));
+    }
+
+    @Test
+    void addOrderedProductWithReport() throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException,
+            InvalidCountOfItemsException, NegativeCountOfItemsException {
+        Product product = new Product('A', new BigDecimal(10), MarkupType.PRICE_PER_UNIT, new BigDecimal(10));
+        ValidationReport report = new ValidationReport();
+        assertTrue(client.addOrderedProduct(product, 3, report, 0));
+        assertFalse(client.addOrderedProduct(product, 0, report, 1));
+        assertFalse(client.addOrderedProduct(product, -2, report, 2));
+        assertEquals(2, report.getErrorCount());
+        assertEquals(ValidationError.INVALID_COUNT_OF_ITEMS, report.getError(0));
+        assertEquals(1, report.getLine(0));
+        assertEquals(3, client.getSumOfQuantities());
+
+        Client throwing = new Client(1, 20, 0, 0);
+        throwing.addOrderedProduct(product, 3);
+        assertEquals(throwing.priceWithAdditionalDiscount(), client.priceWithAdditionalDiscount());
+    }
+}
@@ -0,0 +1,65 @@
+package org.beverageproducer.models;
+
+import org.beverageproducer.exceptions.InvalidCountOfItemsException;
+import org.beverageproducer.exceptions.InvalidPercentException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscountTiersTest {
+
+    @Test
+    void percentForUsesTheHighestReachedTier() throws Exception {
+        DiscountTiers tiers = DiscountTiers.of(new int[]{100, 1000, 10000}, new int[]{1, 3, 7});
+        assertEquals(0, tiers.percentFor(0));
+        assertEquals(0, tiers.percentFor(99));
+        assertEquals(1, tiers.percentFor(100));
+        assertEquals(1, tiers.percentFor(999));
+        assertEquals(3, tiers.percentFor(1000));
+        assertEquals(7, tiers.percentFor(10000));
+        assertEquals(7, tiers.percentFor(Long.MAX_VALUE));
+        assertEquals(0, DiscountTiers.NONE.percentFor(Long.MAX_VALUE));
+    }
+
+    @Test
+    void legacyTiersMatchTheFixedThresholds() throws Exception {
+        DiscountTiers tiers = DiscountTiers.of(3, 5);
+        assertEquals(0, tiers.percentFor(9999));
+        assertEquals(3, tiers.percentFor(10000));
+        assertEquals(3, tiers.percentFor(29999));
+        assertEquals(5, tiers.percentFor(30000));
+    }
+
+    @Test
+    void manyTiers() throws Exception {
+        int[] minQuantities = new int[50];
+        int[] percents = new int[50];
+        for (int i = 0; i < 50; i++) {
+            minQuantities[i] = (i + 1) * 1000;
+            percents[i] = i;
+        }
+        DiscountTiers tiers = DiscountTiers.of(minQuantities, percents);
+        for (int quantity = 0; quantity < 60000; quantity += 7) {
+            assertEquals(quantity < 1000 ? 0 : Math.min(quantity / 1000, 50) - 1, tiers.percentFor(quantity));
+        }
+    }
+
+    @Test
+    void parseSortsTiers() throws Exception {
+        DiscountTiers tiers = DiscountTiers.parse(" 30000:2, 10000 : 1,100000:4");
+        assertEquals(DiscountTiers.of(new int[]{10000, 30000, 100000}, new int[]{1, 2, 4}), tiers);
+        assertEquals("10000:1,30000:2,100000:4", tiers.toString());
+        assertEquals(DiscountTiers.NONE, DiscountTiers.parse(""));
+    }
+
+    @Test
+    void invalidTiers() {
+        assertThrows(IllegalArgumentException.class, () -> DiscountTiers.parse("10000"));
+        assertThrows(IllegalArgumentException.class, () -> DiscountTiers.parse("10000:x"));
+        assertThrows(InvalidCountOfItemsException.class, () -> DiscountTiers.parse("10000:1,10000:2"));
+        assertThrows(InvalidCountOfItemsException.class, () -> DiscountTiers.parse("0:1"));
+        assertThrows(InvalidPercentException.class, () -> DiscountTiers.parse("10:-1"));
+        assertThrows(InvalidCountOfItemsException.class, () -> DiscountTiers.of(new int[]{20, 10}, new int[]{1, 2}));
+        assertThrows(InvalidCountOfItemsException.class, () -> DiscountTiers.of(new int[]{10}, new int[]{1, 2}));
+    }
+}
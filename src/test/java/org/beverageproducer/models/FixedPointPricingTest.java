@@ -0,0 +1,125 @@
+package org.beverageproducer.models;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.enums.PromotionType;
+import org.beverageproducer.exceptions.*;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//differential test, the fixed-point path has to give exactly the BigDecimal results
+class FixedPointPricingTest {
+    private static final String[] UNIT_COSTS = {"0.01", "0.38", "0.41", "0.52", "0.6", "1", "9.99", "123.45"};
+    private static final String[] PERCENT_MARKUPS = {"1", "12.5", "80", "120", "0.35"};
+    private static final String[] PER_UNIT_MARKUPS = {"0.01", "0.9", "1", "2.75", "0.125"};
+    private static final int[] PERCENT_PROMOTIONS = {1, 30, 33, 50, 99};
+    private static final int[][] FREE_ITEMS_PROMOTIONS = {{1, 1}, {2, 1}, {2, 3}, {5, 2}};
+    private static final int[] QUANTITIES = {0, 1, 2, 3, 4, 5, 6, 7, 9, 10, 11, 13, 99, 100, 999, 9999, 10000, 12345, 29999, 30001};
+
+    @Test
+    void productMatchesBigDecimalForEveryMarkupAndPromotion() throws Exception {
+        int compared = 0;
+        for (Product product : allProducts()) {
+            for (int quantity : QUANTITIES) {
+                BigDecimal perItem = product.calculatedPricePerItem(quantity);
+                BigDecimal price = product.calculatedPrice(quantity);
+                if (perItem.stripTrailingZeros().scale() > FixedPoint.MICROS_SCALE) {
+                    assertThrows(ArithmeticException.class, () -> product.calculatedPricePerItemMicros(quantity));
+                    continue;
+                }
+                assertEquals(0, perItem.compareTo(FixedPoint.fromMicros(product.calculatedPricePerItemMicros(quantity))), product + " x" + quantity);
+                assertEquals(0, price.compareTo(FixedPoint.fromMicros(product.calculatedPriceMicros(quantity))), product + " x" + quantity);
+                compared++;
+            }
+        }
+        assertTrue(compared > 0);
+    }
+
+    @Test
+    void productCoversEveryPromotionType() throws Exception {
+        for (MarkupType markupType : MarkupType.values()) {
+            for (PromotionType promotionType : PromotionType.values()) {
+                assertTrue(allProducts().stream().anyMatch(p -> p.getMarkupType() == markupType && p.getPromotionType() == promotionType));
+            }
+        }
+    }
+
+    @Test
+    void clientMatchesBigDecimalInCents() throws Exception {
+        int[][] discounts = {{0, 0, 0}, {5, 0, 2}, {4, 1, 2}, {3, 1, 3}, {2, 3, 5}, {0, 5, 7}, {17, 9, 33}};
+        List<Product> products = representableProducts();
+        int[] quantities = {1, 7, 250, 3333, 10000, 20001};
+        for (int[] discount : discounts) {
+            for (int offset = 0; offset < products.size(); offset += 7) {
+                Client client = new Client(1, discount[0], discount[1], discount[2]);
+                for (int line = 0; line < 5; line++) {
+                    Product product = products.get((offset + line * 13) % products.size());
+                    client.addOrderedProduct(product, quantities[(offset + line) % quantities.length]);
+                    assertEquals(client.sumOfOrders(), FixedPoint.fromCents(client.sumOfOrdersCents()), client.toString());
+                    assertEquals(client.priceWithBasicDiscount(), FixedPoint.fromCents(client.priceWithBasicDiscountCents()), client.toString());
+                    assertEquals(client.priceWithAdditionalDiscount(), FixedPoint.fromCents(client.priceWithAdditionalDiscountCents()), client.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    void overflowThrows() throws Exception {
+        Product product = new Product('A', new BigDecimal("999999999999"), MarkupType.PRICE_PER_UNIT, BigDecimal.ONE);
+        assertThrows(ArithmeticException.class, () -> product.calculatedPriceMicros(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void divide() {
+        assertEquals(1, FixedPoint.divideUp(1, 100));
+        assertEquals(-1, FixedPoint.divideUp(-1, 100));
+        assertEquals(2, FixedPoint.divideUp(200, 100));
+        assertEquals(2, FixedPoint.divideHalfEven(25, 10));
+        assertEquals(4, FixedPoint.divideHalfEven(35, 10));
+        assertEquals(3, FixedPoint.divideHalfEven(26, 10));
+        assertEquals(-2, FixedPoint.divideHalfEven(-25, 10));
+        assertEquals(-3, FixedPoint.divideHalfEven(-26, 10));
+    }
+
+    private static List<Product> representableProducts() throws Exception {
+        List<Product> products = new ArrayList<>();
+        for (Product product : allProducts()) {
+            try {
+                for (int quantity : QUANTITIES) {
+                    product.calculatedPriceMicros(quantity);
+                }
+                products.add(product);
+            } catch (ArithmeticException e) {
+                //not representable in micro-euros, covered by the product test
+            }
+        }
+        return products;
+    }
+
+    private static List<Product> allProducts() throws Exception {
+        List<Product> products = new ArrayList<>();
+        char name = 'A';
+        for (String unitCost : UNIT_COSTS) {
+            for (MarkupType markupType : MarkupType.values()) {
+                for (String markup : markupType == MarkupType.PERCENT ? PERCENT_MARKUPS : PER_UNIT_MARKUPS) {
+                    products.add(new Product(name++, new BigDecimal(unitCost), markupType, new BigDecimal(markup)));
+                    for (int percent : PERCENT_PROMOTIONS) {
+                        Product product = new Product(name++, new BigDecimal(unitCost), markupType, new BigDecimal(markup));
+                        product.addPercentPromotion(percent);
+                        products.add(product);
+                    }
+                    for (int[] freeItems : FREE_ITEMS_PROMOTIONS) {
+                        Product product = new Product(name++, new BigDecimal(unitCost), markupType, new BigDecimal(markup));
+                        product.addFreeItemsPromotion(freeItems[0], freeItems[1]);
+                        products.add(product);
+                    }
+                }
+            }
+        }
+        return products;
+    }
+}
@@ -0,0 +1,119 @@
+package org.beverageproducer.models;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.exceptions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapBasketStoreTest {
+    private ProductCatalog catalog;
+    //small slabs so the tests go through several of them and the largest size class
+    private OffHeapBasketStore store;
+
+    @BeforeEach
+    void unit() throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException, InvalidCountOfItemsException {
+        Random random = new Random(7);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            Product product = new Product((char) ('A' + i), BigDecimal.valueOf(1 + random.nextInt(999), 2),
+                    i % 2 == 0 ? MarkupType.PERCENT : MarkupType.PRICE_PER_UNIT, BigDecimal.valueOf(1 + random.nextInt(150)));
+            if (i % 3 == 1) {
+                product.addPercentPromotion(1 + random.nextInt(50));
+            } else if (i % 3 == 2) {
+                product.addFreeItemsPromotion(1 + random.nextInt(4), 1 + random.nextInt(2));
+            }
+            products.add(product);
+        }
+        catalog = new ProductCatalog(products);
+        store = new OffHeapBasketStore(catalog, 4096);
+    }
+
+    @Test
+    void matchesBasketsUnderRandomEdits() throws InvalidCountOfItemsException, NegativeCountOfItemsException, InvalidPercentException {
+        Random random = new Random(42);
+        Map<Integer, Basket> baskets = new HashMap<>();
+        for (int edit = 0; edit < 200_000; edit++) {
+            int clientId = random.nextInt(3000) - 100;
+            //a few clients get large baskets that move through the size classes
+            int productId = random.nextInt(clientId % 500 == 0 ? 500 : 12);
+            int operation = random.nextInt(20);
+            Basket basket = baskets.computeIfAbsent(clientId, id -> new Basket(catalog));
+            if (operation == 0) {
+                assertEquals(baskets.remove(clientId) != null && store.hasBasket(clientId), store.removeBasket(clientId));
+            } else if (operation < 4) {
+                boolean removed = basket.getQuantity(productId) != 0;
+                basket.removeLine(productId);
+                assertEquals(removed, store.removeLine(clientId, productId));
+            } else {
+                int quantity = 1 + random.nextInt(20_000);
+                basket.setQuantity(productId, quantity);
+                store.setQuantity(clientId, productId, quantity);
+            }
+        }
+        Client terms = new Client(0, 3, 1, 2);
+        for (Map.Entry<Integer, Basket> entry : baskets.entrySet()) {
+            int clientId = entry.getKey();
+            Basket basket = entry.getValue();
+            assertEquals(basket.getLineCount(), store.getLineCount(clientId));
+            assertEquals(basket.getSumOfQuantities(), store.getSumOfQuantities(clientId));
+            assertEquals(basket.sumOfOrdersCents(), store.sumOfOrdersCents(clientId));
+            for (int productId = 0; productId < 12; productId++) {
+                assertEquals(basket.getQuantity(productId), store.getQuantity(clientId, productId));
+            }
+            Client client = new Client(clientId, 3, 1, 2);
+            assertEquals(terms.priceWithAdditionalDiscountCents(basket.sumOfOrdersCents(), basket.getSumOfQuantities()),
+                    store.priceWithAdditionalDiscountCents(client));
+        }
+        assertTrue(store.getOffHeapBytes() > 4096);
+    }
+
+    @Test
+    void emptyAndRemovedBaskets() throws InvalidCountOfItemsException, NegativeCountOfItemsException {
+        assertFalse(store.hasBasket(1));
+        assertEquals(0, store.sumOfOrdersCents(1));
+        assertFalse(store.removeLine(1, 0));
+        assertFalse(store.removeBasket(1));
+
+        store.setQuantity(1, 0, 5);
+        store.setQuantity(2, 0, 5);
+        assertEquals(2, store.getBasketCount());
+        assertTrue(store.removeBasket(1));
+        assertFalse(store.hasBasket(1));
+        assertEquals(5, store.getQuantity(2, 0));
+        assertEquals(1, store.getBasketCount());
+
+        //the freed block is used again
+        long bytes = store.getOffHeapBytes();
+        store.setQuantity(3, 1, 7);
+        assertEquals(bytes, store.getOffHeapBytes());
+        assertEquals(7, store.getQuantity(3, 1));
+    }
+
+    @Test
+    void invalidLinesAreRejected() {
+        assertThrows(InvalidCountOfItemsException.class, () -> store.setQuantity(1, 0, 0));
+        assertThrows(InvalidCountOfItemsException.class, () -> store.setQuantity(1, 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> store.setQuantity(1, 600, 1));
+        assertFalse(store.hasBasket(1));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapBasketStore(catalog, 1000));
+    }
+
+    @Test
+    void basketLargerThanASlabIsRejected() throws InvalidCountOfItemsException {
+        //a 4096 byte block holds 511 lines
+        for (int productId = 0; productId < 511; productId++) {
+            store.setQuantity(1, productId, 1);
+        }
+        assertThrows(IllegalArgumentException.class, () -> store.setQuantity(1, 511, 1));
+        assertEquals(511, store.getLineCount(1));
+    }
+}
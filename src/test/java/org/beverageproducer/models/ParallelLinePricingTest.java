@@ -0,0 +1,48 @@
+package org.beverageproducer.models;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.exceptions.NegativeCountOfItemsException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelLinePricingTest {
+
+    @Test
+    void parallelSumEqualsSequentialSum() throws Exception {
+        Random random = new Random(7);
+        int lines = 50_000;
+        Product[] products = new Product[lines];
+        int[] quantities = new int[lines];
+        BigDecimal sequential = BigDecimal.valueOf(0);
+        for (int i = 0; i < lines; i++) {
+            products[i] = new Product((char) i, BigDecimal.valueOf(1 + random.nextInt(999), 2),
+                    i % 2 == 0 ? MarkupType.PERCENT : MarkupType.PRICE_PER_UNIT, BigDecimal.valueOf(1 + random.nextInt(150), 1));
+            if (i % 3 == 1) products[i].addPercentPromotion(1 + random.nextInt(50));
+            if (i % 3 == 2) products[i].addFreeItemsPromotion(1 + random.nextInt(4), 1 + random.nextInt(2));
+            quantities[i] = 1 + random.nextInt(100);
+            sequential = sequential.add(products[i].calculatedPrice(quantities[i]));
+        }
+        BigDecimal[] linePrices = new BigDecimal[lines];
+        assertEquals(sequential, ParallelLinePricing.sum(products, quantities, linePrices));
+        for (int i = 0; i < lines; i += 997) {
+            assertEquals(products[i].calculatedPrice(quantities[i]), linePrices[i]);
+        }
+    }
+
+    @Test
+    void lineExceptionsReachTheCaller() throws Exception {
+        Product[] products = new Product[5000];
+        int[] quantities = new int[products.length];
+        for (int i = 0; i < products.length; i++) {
+            products[i] = new Product((char) i, BigDecimal.ONE, MarkupType.PRICE_PER_UNIT, BigDecimal.ONE);
+            quantities[i] = 1;
+        }
+        quantities[4321] = -1;
+        assertThrows(NegativeCountOfItemsException.class,
+                () -> ParallelLinePricing.sum(products, quantities, new BigDecimal[products.length]));
+    }
+}
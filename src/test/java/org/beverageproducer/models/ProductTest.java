@@ -2,6 +2,7 @@ package org.beverageproducer.models;
 
 import org.beverageproducer.enums.MarkupType;
 import org.beverageproducer.enums.PromotionType;
+import org.beverageproducer.enums.ValidationError;
 import org.beverageproducer.exceptions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -96,4 +97,53 @@ class ProductTest {
         product.addFreeItemsPromotion(2, 3);
         assertEquals(new BigDecimal("16.00"), product.calculatedPricePerItem(10));
     }
-}
\ No newline at end of file
+
+    @Test
+    void calculatedPricePerItemAfterMutation() throws NegativeCountOfItemsException, InvalidUnitCostException,
+            InvalidMarkupException, InvalidPercentException, InvalidCountOfItemsException, NoPromotionToRemoveException {
+        assertEquals(new BigDecimal(12), product2.calculatedPricePerItem(1));
+        product2.setUnitCost(new BigDecimal(20));
+        assertEquals(new BigDecimal(24), product2.calculatedPricePerItem(1));
+        product2.setMarkup(new BigDecimal(50));
+        assertEquals(new BigDecimal(30), product2.calculatedPricePerItem(1));
+        product2.setMarkupType(MarkupType.PRICE_PER_UNIT);
+        assertEquals(new BigDecimal(70), product2.calculatedPricePerItem(1));
+        product2.addPercentPromotion(10);
+        assertEquals(new BigDecimal("63.00"), product2.calculatedPricePerItem(1));
+        product2.addFreeItemsPromotion(1, 1);
+        assertEquals(new BigDecimal("35.00"), product2.calculatedPricePerItem(2));
+        product2.removePromotion();
+        assertEquals(new BigDecimal(70), product2.calculatedPricePerItem(2));
+        assertEquals(new BigDecimal(140), product2.calculatedPrice(2));
+    }
+
+    @Test
+    void calculatedPriceWithReport() throws NegativeCountOfItemsException, InvalidPercentException {
+        product2.addPercentPromotion(10);
+        ValidationReport report = new ValidationReport();
+        assertEquals(product2.calculatedPrice(7), product2.calculatedPrice(7, report, 0));
+        assertEquals(product2.calculatedPriceMicros(7), product2.calculatedPriceMicros(7, report, 1));
+        assertTrue(report.isValid());
+        assertNull(product2.calculatedPrice(-1, report, 2));
+        assertEquals(-1, product2.calculatedPriceMicros(-5, report, 3));
+        assertEquals(2, report.getErrorCount());
+        assertEquals(2, report.getLine(0));
+        assertEquals(ValidationError.NEGATIVE_COUNT_OF_ITEMS, report.getError(1));
+        assertEquals(3, report.getLine(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> report.getLine(2));
+        report.clear();
+        assertTrue(report.isValid());
+    }
+
+    @Test
+    void versionChangesWithEveryMutation() throws InvalidMarkupException, InvalidPercentException {
+        long version = product.getVersion();
+        assertEquals(version, new Product(product).getVersion());
+        assertNotEquals(version, product2.getVersion());
+        product.setMarkup(new BigDecimal(10));
+        assertNotEquals(version, product.getVersion());
+        version = product.getVersion();
+        product.addPercentPromotion(5);
+        assertTrue(product.getVersion() > version);
+    }
+}
@@ -0,0 +1,175 @@
+package org.beverageproducer.persistence;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.DiscountTiers;
+import org.beverageproducer.models.Product;
+import org.beverageproducer.promotions.BundleRule;
+import org.beverageproducer.promotions.TieredRule;
+import org.beverageproducer.service.Controller;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableControllerTest {
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("durable-controller");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void stateSurvivesARestart() throws Exception {
+        String before;
+        try (DurableController durable = DurableController.open(directory, false, 1000)) {
+            seedAndEdit(durable);
+            before = describe(durable.getController());
+        }
+        try (DurableController durable = DurableController.open(directory)) {
+            assertEquals(before, describe(durable.getController()));
+            durable.addOrderedProduct(2, 'C', 5);
+            before = describe(durable.getController());
+        }
+        try (DurableController durable = DurableController.open(directory)) {
+            assertEquals(before, describe(durable.getController()));
+        }
+    }
+
+    @Test
+    void snapshotsKeepTheLogShort() throws Exception {
+        String before;
+        long sequence;
+        try (DurableController durable = DurableController.open(directory, false, 7)) {
+            seedAndEdit(durable);
+            for (int i = 1; i <= 100; i++) {
+                durable.addOrderedProduct(1 + i % 5, (char) ('A' + i % 4), i);
+            }
+            before = describe(durable.getController());
+            sequence = durable.getLastSequence();
+        }
+        assertTrue(Files.exists(directory.resolve(SnapshotStore.FILE_NAME)));
+        assertTrue(Files.size(directory.resolve(DurableController.LOG_FILE_NAME)) < 7 * 64);
+        try (DurableController durable = DurableController.open(directory)) {
+            assertEquals(before, describe(durable.getController()));
+            assertEquals(sequence, durable.getLastSequence());
+        }
+    }
+
+    @Test
+    void recordsCoveredByTheSnapshotAreNotReplayed() throws Exception {
+        Path log = directory.resolve(DurableController.LOG_FILE_NAME);
+        Path oldLog = directory.resolve("old.log");
+        String before;
+        try (DurableController durable = DurableController.open(directory, false, 1000)) {
+            seedAndEdit(durable);
+            durable.sync();
+            Files.copy(log, oldLog);
+            durable.snapshot();
+            before = describe(durable.getController());
+        }
+        //a crash after the snapshot was renamed but before the log was cut
+        Files.move(oldLog, log, StandardCopyOption.REPLACE_EXISTING);
+        try (DurableController durable = DurableController.open(directory)) {
+            assertEquals(before, describe(durable.getController()));
+        }
+    }
+
+    @Test
+    void tornRecordAtTheEndIsCutOff() throws Exception {
+        String before;
+        try (DurableController durable = DurableController.open(directory)) {
+            seedAndEdit(durable);
+            before = describe(durable.getController());
+        }
+        try (OutputStream output = Files.newOutputStream(directory.resolve(DurableController.LOG_FILE_NAME), StandardOpenOption.APPEND)) {
+            output.write(new byte[]{0, 0, 0, 20, 1, 2, 3});
+        }
+        try (DurableController durable = DurableController.open(directory)) {
+            assertEquals(before, describe(durable.getController()));
+            durable.addOrderedProduct(3, 'A', 1);
+            before = describe(durable.getController());
+        }
+        try (DurableController durable = DurableController.open(directory)) {
+            assertEquals(before, describe(durable.getController()));
+        }
+    }
+
+    @Test
+    void rejectedChangesAreNotLogged() throws Exception {
+        try (DurableController durable = DurableController.open(directory)) {
+            seedAndEdit(durable);
+            long sequence = durable.getLastSequence();
+            assertThrows(IllegalArgumentException.class, () -> durable.addOrderedProduct(9, 'A', 1));
+            assertThrows(Exception.class, () -> durable.addPercentPromotion('A', 0));
+            assertThrows(Exception.class, () -> durable.setProductPrice('A', new BigDecimal(1), MarkupType.PERCENT, BigDecimal.ZERO));
+            assertEquals(sequence, durable.getLastSequence());
+            assertEquals(new BigDecimal("0.52"), durable.getController().getProducts().get('A').getUnitCost());
+        }
+    }
+
+    @Test
+    void failedLogWriteLeavesTheStateUntouched() throws Exception {
+        DurableController durable = DurableController.open(directory);
+        seedAndEdit(durable);
+        String before = describe(durable.getController());
+        //a closed log fails every write like a full disk
+        durable.close();
+        assertThrows(IOException.class, () -> durable.addOrderedProduct(2, 'A', 500));
+        assertThrows(IOException.class, () -> durable.addPercentPromotion('C', 10));
+        assertThrows(IOException.class, () -> durable.removeOrderedProduct(1, 'D'));
+        assertEquals(before, describe(durable.getController()));
+
+        try (DurableController reopened = DurableController.open(directory)) {
+            assertEquals(before, describe(reopened.getController()));
+        }
+    }
+
+    private static void seedAndEdit(DurableController durable) throws Exception {
+        Controller sample = new Controller();
+        sample.createClientsAndProducts();
+        for (Product product : sample.getProducts().values()) {
+            durable.addProduct(product);
+        }
+        for (Client client : sample.getClients().values()) {
+            durable.addClient(client);
+        }
+        durable.addOrderedProduct(1, 'A', 10000);
+        durable.addOrderedProduct(1, 'D', 15000);
+        durable.addOrderedProduct(4, 'B', 20000);
+        durable.removeOrderedProduct(1, 'A');
+        durable.addPromotionRule('C', new BundleRule(3, new BigDecimal("3.50")));
+        durable.addPromotionRule('A', new TieredRule(new int[]{100, 1000}, new int[]{2, 4}));
+        durable.removePromotion('B');
+        durable.addFreeItemsPromotion('B', 3, 1);
+        durable.setProductPrice('D', new BigDecimal("0.65"), MarkupType.PERCENT, new BigDecimal("75"));
+        durable.setClientDiscounts(4, 3, DiscountTiers.parse("5000:1,10000:3,30000:5"));
+    }
+
+    private static String describe(Controller controller) throws Exception {
+        StringBuilder description = new StringBuilder(controller.getProducts().toString());
+        for (Client client : controller.getClients().values()) {
+            description.append('\n').append(client).append(' ').append(client.priceWithAdditionalDiscount());
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,158 @@
+package org.beverageproducer.promotions;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.models.FixedPoint;
+import org.beverageproducer.models.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromotionRulesTest {
+    private static final int[] QUANTITIES = {1, 2, 3, 4, 5, 9, 10, 11, 99, 100, 101, 9999, 10000, 30001};
+    private Product product;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        //20 per item
+        product = new Product('A', new BigDecimal(10), MarkupType.PRICE_PER_UNIT, new BigDecimal(10));
+    }
+
+    @Test
+    void ruleGivesTheSamePricesAsLegacyPromotion() throws Exception {
+        Product legacyPercent = new Product('B', new BigDecimal("0.41"), MarkupType.PERCENT, new BigDecimal("12.5"));
+        Product rulePercent = new Product(legacyPercent);
+        legacyPercent.addPercentPromotion(33);
+        rulePercent.addPromotionRule(new PercentRule(33));
+        Product legacyFree = new Product(product);
+        Product ruleFree = new Product(product);
+        legacyFree.addFreeItemsPromotion(2, 1);
+        ruleFree.addPromotionRule(new BuyXGetYRule(2, 1));
+        for (int quantity : QUANTITIES) {
+            assertEquals(legacyPercent.calculatedPrice(quantity), rulePercent.calculatedPrice(quantity));
+            assertEquals(legacyFree.calculatedPrice(quantity), ruleFree.calculatedPrice(quantity));
+        }
+        assertEquals(legacyPercent.isPricePerItemConstant(), rulePercent.isPricePerItemConstant());
+        assertEquals(legacyFree.isPricePerItemConstant(), ruleFree.isPricePerItemConstant());
+    }
+
+    @Test
+    void rulesAreAppliedInOrder() throws Exception {
+        product.addPercentPromotion(50);
+        product.addPromotionRule(new BuyXGetYRule(1, 1));
+        assertEquals(new BigDecimal("10.00"), product.calculatedPricePerItem(1));
+        assertEquals(new BigDecimal("5.00"), product.calculatedPricePerItem(2));
+        assertEquals(new BigDecimal("6.67"), product.calculatedPricePerItem(3));
+        assertEquals(2, product.getPromotionRules().size());
+        assertTrue(product.getPromotionRules().get(0) instanceof PercentRule);
+    }
+
+    @Test
+    void bundleRule() throws Exception {
+        product.addPromotionRule(new BundleRule(3, new BigDecimal(45)));
+        assertEquals(new BigDecimal("20.00"), product.calculatedPricePerItem(2));
+        assertEquals(new BigDecimal("15.00"), product.calculatedPricePerItem(3));
+        assertEquals(new BigDecimal("16.25"), product.calculatedPricePerItem(4));
+        assertEquals(new BigDecimal("90.00"), product.calculatedPrice(6));
+        assertFalse(product.isPricePerItemConstant());
+    }
+
+    @Test
+    void tieredRule() throws Exception {
+        product.addPromotionRule(new TieredRule(new int[]{10, 100}, new int[]{10, 20}));
+        assertEquals(0, new BigDecimal(20).compareTo(product.calculatedPricePerItem(9)));
+        assertEquals(0, new BigDecimal(18).compareTo(product.calculatedPricePerItem(10)));
+        assertEquals(0, new BigDecimal(18).compareTo(product.calculatedPricePerItem(99)));
+        assertEquals(0, new BigDecimal(16).compareTo(product.calculatedPricePerItem(100)));
+        assertEquals(0, new BigDecimal(16).compareTo(product.calculatedPricePerItem(30001)));
+    }
+
+    @Test
+    void microsMatchBigDecimal() throws Exception {
+        List<List<PromotionRule>> stacks = List.of(
+                List.of(new PercentRule(30)),
+                List.of(new PercentRule(33), new PercentRule(7)),
+                List.of(new BuyXGetYRule(2, 1), new PercentRule(15)),
+                List.of(new BundleRule(4, new BigDecimal("9.99")), new TieredRule(new int[]{5, 50}, new int[]{3, 11})),
+                List.of(new TieredRule(new int[]{2, 10}, new int[]{25, 50}), new BuyXGetYRule(5, 2)));
+        String[] unitCosts = {"0.38", "0.41", "1", "9.99"};
+        for (List<PromotionRule> stack : stacks) {
+            for (String unitCost : unitCosts) {
+                Product stacked = new Product('C', new BigDecimal(unitCost), MarkupType.PERCENT, new BigDecimal(80));
+                for (PromotionRule rule : stack) {
+                    stacked.addPromotionRule(rule);
+                }
+                for (int quantity : QUANTITIES) {
+                    BigDecimal perItem = stacked.calculatedPricePerItem(quantity);
+                    if (perItem.stripTrailingZeros().scale() > FixedPoint.MICROS_SCALE) {
+                        assertThrows(ArithmeticException.class, () -> stacked.calculatedPricePerItemMicros(quantity));
+                    } else {
+                        assertEquals(0, perItem.compareTo(FixedPoint.fromMicros(stacked.calculatedPricePerItemMicros(quantity))), stacked + " x" + quantity);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void linePricesMatchCalculatedPrice() throws Exception {
+        List<List<PromotionRule>> stacks = List.of(
+                List.of(),
+                List.of(new PercentRule(30)),
+                List.of(new BuyXGetYRule(2, 1)),
+                List.of(new BuyXGetYRule(1, 3)),
+                List.of(new TieredRule(new int[]{1, 10, 100}, new int[]{5, 10, 20})),
+                List.of(new TieredRule(new int[]{20, 21}, new int[]{3, 11})),
+                List.of(new PercentRule(15), new BuyXGetYRule(3, 2)),
+                List.of(new BuyXGetYRule(2, 1), new TieredRule(new int[]{5}, new int[]{10})),
+                List.of(new BundleRule(4, new BigDecimal("9.99"))));
+        String[] unitCosts = {"0.38", "1", "9.99", "0.0101"};
+        int maxQuantity = 250;
+        for (List<PromotionRule> stack : stacks) {
+            for (String unitCost : unitCosts) {
+                Product stacked = new Product('C', new BigDecimal(unitCost), MarkupType.PERCENT, new BigDecimal(80));
+                for (PromotionRule rule : stack) {
+                    stacked.addPromotionRule(rule);
+                }
+                BigDecimal[] lines = stacked.calculatedLinePrices(maxQuantity);
+                long[] linesMicros;
+                try {
+                    linesMicros = stacked.calculatedLinePricesMicros(maxQuantity);
+                } catch (ArithmeticException e) {
+                    linesMicros = null;
+                }
+                for (int quantity = 0; quantity <= maxQuantity; quantity++) {
+                    assertEquals(stacked.calculatedPrice(quantity), lines[quantity], stacked + " x" + quantity);
+                    if (linesMicros != null) {
+                        assertEquals(stacked.calculatedPriceMicros(quantity), linesMicros[quantity], stacked + " x" + quantity);
+                    }
+                }
+            }
+        }
+        assertThrows(NegativeCountOfItemsException.class, () -> product.calculatedLinePrices(-1));
+    }
+
+    @Test
+    void removePromotionClearsRules() throws Exception {
+        assertThrows(NoPromotionToRemoveException.class, () -> product.removePromotion());
+        product.addPromotionRule(new PercentRule(10));
+        assertTrue(product.hasPromotion());
+        assertTrue(product.removePromotion());
+        assertFalse(product.hasPromotion());
+        assertEquals(0, new BigDecimal(20).compareTo(product.calculatedPricePerItem(3)));
+    }
+
+    @Test
+    void invalidRules() {
+        assertThrows(InvalidPercentException.class, () -> new PercentRule(0));
+        assertThrows(InvalidCountOfItemsException.class, () -> new BuyXGetYRule(0, 1));
+        assertThrows(InvalidCountOfItemsException.class, () -> new BundleRule(1, BigDecimal.ONE));
+        assertThrows(InvalidUnitCostException.class, () -> new BundleRule(2, BigDecimal.ZERO));
+        assertThrows(InvalidCountOfItemsException.class, () -> new TieredRule(new int[]{10, 10}, new int[]{1, 2}));
+        assertThrows(InvalidPercentException.class, () -> new TieredRule(new int[]{10}, new int[]{0}));
+    }
+}
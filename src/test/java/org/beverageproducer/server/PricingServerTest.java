@@ -0,0 +1,135 @@
+package org.beverageproducer.server;
+
+import org.beverageproducer.io.Json;
+import org.beverageproducer.models.Order;
+import org.beverageproducer.service.BatchPricingService;
+import org.beverageproducer.service.Controller;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingServerTest {
+    private BatchPricingService pricingService;
+    private PricingServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void start() throws Exception {
+        Controller controller = new Controller();
+        controller.createClientsAndProducts();
+        pricingService = new BatchPricingService(controller);
+        server = new PricingServer(pricingService, new InetSocketAddress("localhost", 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void quoteMatchesThePricingService() throws Exception {
+        HttpResponse<String> response = post("/quote", "{\"clientId\":4,\"products\":{\"A\":10000,\"B\":20000,\"D\":15000}}");
+        assertEquals(200, response.statusCode());
+        Order order = new Order(4, Map.of('A', 10000, 'B', 20000, 'D', 15000));
+        assertEquals(ServerRequests.toJson(pricingService.price(order)), response.body());
+        assertEquals(3, ((List<?>) Json.parseObject(response.body()).get("lines")).size());
+    }
+
+    @Test
+    void promotionUpdatesAreSeenByLaterQuotes() throws Exception {
+        String quote = "{\"clientId\":1,\"products\":{\"A\":10}}";
+        BigDecimal before = sumOfOrders(post("/quote", quote).body());
+        HttpResponse<String> update = post("/promotions", "{\"product\":\"A\",\"type\":\"PERCENT\",\"percent\":50}");
+        assertEquals(200, update.statusCode());
+        assertEquals(new BigDecimal(2), Json.parseObject(update.body()).get("catalogVersion"));
+        assertEquals(0, before.divide(new BigDecimal(2)).compareTo(sumOfOrders(post("/quote", quote).body())));
+        assertEquals(200, post("/promotions", "{\"product\":\"A\",\"type\":\"NONE\"}").statusCode());
+        assertEquals(0, before.compareTo(sumOfOrders(post("/quote", quote).body())));
+    }
+
+    @Test
+    void updateWithTheSameIdIsAppliedOnce() throws Exception {
+        String update = "{\"updateId\":\"u1\",\"product\":\"A\",\"type\":\"PERCENT\",\"percent\":50}";
+        HttpResponse<String> first = post("/promotions", update);
+        HttpResponse<String> retry = post("/promotions", update);
+        assertEquals(200, retry.statusCode());
+        assertEquals(first.body(), retry.body());
+        assertEquals(2, pricingService.getCatalog().current().getVersion());
+
+        String removal = "{\"updateId\":\"u2\",\"product\":\"A\",\"type\":\"NONE\"}";
+        assertEquals(200, post("/promotions", removal).statusCode());
+        HttpResponse<String> removalRetry = post("/promotions", removal);
+        assertEquals(200, removalRetry.statusCode());
+        assertEquals(new BigDecimal(3), Json.parseObject(removalRetry.body()).get("catalogVersion"));
+        assertEquals(400, post("/promotions", "{\"updateId\":\"u3\",\"product\":\"A\",\"type\":\"NONE\"}").statusCode());
+        assertEquals(400, post("/promotions", "{\"updateId\":7,\"product\":\"A\",\"type\":\"NONE\"}").statusCode());
+    }
+
+    @Test
+    void invalidRequestsAreRejected() throws Exception {
+        assertEquals(400, post("/quote", "{\"clientId\":9,\"products\":{\"A\":1}}").statusCode());
+        assertEquals(400, post("/quote", "{\"clientId\":1,\"products\":{\"A\":-1}}").statusCode());
+        assertEquals(400, post("/quote", "not json").statusCode());
+        assertEquals(400, post("/promotions", "{\"product\":\"A\",\"type\":\"PERCENT\",\"percent\":0}").statusCode());
+        assertEquals(400, post("/promotions", "{\"product\":\"C\",\"type\":\"NONE\"}").statusCode());
+        HttpResponse<String> get = client.send(HttpRequest.newBuilder(uri("/quote")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, get.statusCode());
+    }
+
+    @Test
+    void oversizedOrDeeplyNestedBodiesAreRejected() throws Exception {
+        String nested = "[".repeat(Json.MAX_DEPTH + 1) + "]".repeat(Json.MAX_DEPTH + 1);
+        HttpResponse<String> deep = post("/quote", "{\"clientId\":1,\"products\":{\"A\":1},\"extra\":" + nested + "}");
+        assertEquals(400, deep.statusCode());
+        assertTrue(deep.body().contains("Nested deeper"), deep.body());
+        String padding = " ".repeat(PricingServer.MAX_BODY_BYTES);
+        HttpResponse<String> large = post("/quote", "{\"clientId\":1,\"products\":{\"A\":1}}" + padding);
+        assertEquals(400, large.statusCode());
+        assertTrue(large.body().contains("Request body over"), large.body());
+        assertEquals(200, post("/quote", "{\"clientId\":1,\"products\":{\"A\":1},\"extra\":" + "[".repeat(10) + "]".repeat(10) + "}").statusCode());
+    }
+
+    @Test
+    void concurrentQuotes() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            HttpRequest request = HttpRequest.newBuilder(uri("/quote"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"clientId\":" + (i % 5 + 1) + ",\"products\":{\"C\":" + i + "}}"))
+                    .build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.get().statusCode());
+        }
+        HttpResponse<String> metrics = client.send(HttpRequest.newBuilder(uri("/metrics")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertTrue(metrics.body().contains("pricing_orders_priced_total"));
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private static BigDecimal sumOfOrders(String body) {
+        return (BigDecimal) Json.parseObject(body).get("sumOfOrders");
+    }
+}
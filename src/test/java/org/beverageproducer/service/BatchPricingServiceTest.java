@@ -0,0 +1,93 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.enums.ValidationError;
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.Order;
+import org.beverageproducer.models.PricedOrder;
+import org.beverageproducer.models.ValidationReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchPricingServiceTest {
+    private Controller controller;
+    private BatchPricingService service;
+
+    @BeforeEach
+    void unit() throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException, InvalidCountOfItemsException {
+        controller = new Controller();
+        controller.createClientsAndProducts();
+        service = new BatchPricingService(controller);
+    }
+
+    @Test
+    void priceMatchesClient() throws InvalidCountOfItemsException, NegativeCountOfItemsException {
+        PricedOrder priced = service.price(new Order(5, Map.of('A', 10000, 'B', 10000, 'C', 10000, 'D', 10000)));
+
+        Client client = controller.getClients().get(5);
+        client.addOrderedProduct(controller.getProducts().get('A'), 10000);
+        client.addOrderedProduct(controller.getProducts().get('B'), 10000);
+        client.addOrderedProduct(controller.getProducts().get('C'), 10000);
+        client.addOrderedProduct(controller.getProducts().get('D'), 10000);
+        assertEquals(client.sumOfOrders(), priced.getSumOfOrders());
+        assertEquals(client.priceWithBasicDiscount(), priced.getPriceWithBasicDiscount());
+        assertEquals(client.priceWithAdditionalDiscount(), priced.getPriceWithAdditionalDiscount());
+        assertEquals(4, priced.getLines().size());
+        assertFalse(priced.getLines().get(0).isPromoted());
+        assertTrue(priced.getLines().get(1).isPromoted());
+    }
+
+    @Test
+    void priceSkipsEmptyLines() {
+        PricedOrder priced = service.price(new Order(1, Map.of('A', 0, 'C', 3)));
+        assertEquals(1, priced.getLines().size());
+        assertEquals('C', priced.getLines().get(0).getProductName());
+        assertEquals(new BigDecimal("3.93"), priced.getSumOfOrders());
+    }
+
+    @Test
+    void priceStreamKeepsOrder() {
+        List<Order> orders = IntStream.range(0, 1000)
+                .mapToObj(i -> new Order(i % 5 + 1, Map.of('A', i + 1, 'D', 2 * i + 1)))
+                .collect(Collectors.toList());
+        List<PricedOrder> priced = service.price(orders.stream()).collect(Collectors.toList());
+        assertEquals(orders.size(), priced.size());
+        for (int i = 0; i < orders.size(); i++) {
+            assertEquals(orders.get(i).getClientId(), priced.get(i).getClientId());
+            assertEquals(service.price(orders.get(i)).getPriceWithAdditionalDiscount(), priced.get(i).getPriceWithAdditionalDiscount());
+        }
+    }
+
+    @Test
+    void priceRejectsUnknownClientOrProduct() {
+        assertThrows(IllegalArgumentException.class, () -> service.price(new Order(6, Map.of('A', 1))));
+        assertThrows(IllegalArgumentException.class, () -> service.price(new Order(1, Map.of('E', 1))));
+        assertThrows(RuntimeException.class, () -> service.price(new Order(1, Map.of('A', -1))));
+    }
+
+    @Test
+    void priceWithReportSkipsInvalidLines() {
+        ValidationReport report = new ValidationReport();
+        PricedOrder priced = service.price(new Order(1, new char[]{'A', 'E', 'C', 'B'}, new int[]{-1, 2, 3, 0}), report);
+        assertEquals(service.price(new Order(1, Map.of('C', 3))).getSumOfOrders(), priced.getSumOfOrders());
+        assertEquals(1, priced.getLines().size());
+        assertEquals(2, report.getErrorCount());
+        assertEquals(0, report.getLine(0));
+        assertEquals(ValidationError.INVALID_COUNT_OF_ITEMS, report.getError(0));
+        assertEquals(1, report.getLine(1));
+        assertEquals(ValidationError.UNKNOWN_PRODUCT, report.getError(1));
+
+        report.clear();
+        assertNull(service.price(new Order(6, Map.of('A', 1)), report));
+        assertEquals(ValidationError.UNKNOWN_CLIENT, report.getError(0));
+        assertEquals(-1, report.getLine(0));
+    }
+}
@@ -0,0 +1,115 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.io.BinaryOrderLogReader;
+import org.beverageproducer.io.BinaryOrderLogWriter;
+import org.beverageproducer.models.Order;
+import org.beverageproducer.models.PricedOrder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryOrderLogPricerTest {
+    private BatchPricingService service;
+    private List<Order> orders;
+
+    @BeforeEach
+    void unit() throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException, InvalidCountOfItemsException {
+        Controller controller = new Controller();
+        controller.createClientsAndProducts();
+        service = new BatchPricingService(controller);
+        orders = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            //neighbouring orders always belong to different clients
+            orders.add(new Order(i % 5 + 1, new char[]{'A', 'B', 'C', 'D'},
+                    new int[]{random.nextInt(20000), 1 + random.nextInt(100), random.nextInt(3), 1 + random.nextInt(15000)}));
+        }
+    }
+
+    @Test
+    void pricesEveryOrderLikeBatchPricing() throws IOException {
+        Path path = write(orders);
+        try {
+            List<String> expected = new ArrayList<>();
+            for (Order order : orders) {
+                expected.add(describe(service.price(order)));
+            }
+            Collections.sort(expected);
+            for (int threads : new int[]{1, 3, 8}) {
+                Queue<PricedOrder> priced = new ConcurrentLinkedQueue<>();
+                Set<Thread> pricingThreads = ConcurrentHashMap.newKeySet();
+                assertEquals(orders.size(), new BinaryOrderLogPricer(service).price(path, threads, order -> {
+                    pricingThreads.add(Thread.currentThread());
+                    priced.add(order);
+                }));
+                //regions run on a pool of the requested size, not on the common pool
+                assertTrue(pricingThreads.size() <= threads);
+                for (Thread thread : pricingThreads) {
+                    assertFalse(thread instanceof ForkJoinWorkerThread);
+                    assertNotSame(Thread.currentThread(), thread);
+                }
+                List<String> actual = new ArrayList<>();
+                for (PricedOrder order : priced) {
+                    actual.add(describe(order));
+                }
+                Collections.sort(actual);
+                assertEquals(expected, actual);
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void splitKeepsOrdersTogether() throws IOException {
+        Path path = write(List.of(new Order(1, Map.of('A', 1, 'B', 2, 'C', 3)), new Order(2, Map.of('A', 1)),
+                new Order(3, Map.of('A', 1, 'D', 2))));
+        try (BinaryOrderLogReader reader = BinaryOrderLogReader.open(path)) {
+            assertEquals(6, reader.getRecordCount());
+            List<BinaryOrderLogReader.Region> regions = reader.split(3);
+            assertEquals(3, regions.size());
+            assertEquals(3, regions.get(0).getEndRecord());
+            assertEquals(4, regions.get(1).getEndRecord());
+            assertEquals(6, regions.get(2).getEndRecord());
+            assertEquals(1, reader.split(1).size());
+            assertEquals(3, reader.split(20).size());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path path = Files.createTempFile("orders", ".bin");
+        try {
+            Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+            assertThrows(IOException.class, () -> BinaryOrderLogReader.open(path));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static Path write(List<Order> orders) throws IOException {
+        Path path = Files.createTempFile("orders", ".bin");
+        try (BinaryOrderLogWriter writer = BinaryOrderLogWriter.create(path)) {
+            for (Order order : orders) {
+                writer.append(order);
+            }
+        }
+        return path;
+    }
+
+    private static String describe(PricedOrder order) {
+        return order.getClientId() + " " + order.getLines().size() + " " + order.getSumOfOrders() + " " + order.getPriceWithAdditionalDiscount();
+    }
+}
@@ -0,0 +1,90 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.enums.PromotionType;
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.models.Order;
+import org.beverageproducer.models.PricedOrder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogTest {
+    private Controller controller;
+    private Catalog catalog;
+
+    @BeforeEach
+    void unit() throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException, InvalidCountOfItemsException {
+        controller = new Controller();
+        controller.createClientsAndProducts();
+        catalog = new Catalog(controller.getProducts());
+    }
+
+    @Test
+    void snapshotsAreCopies() throws InvalidPercentException {
+        CatalogSnapshot first = catalog.current();
+        assertEquals(1, first.getVersion());
+        assertNotSame(controller.getProducts().get('A'), first.getProduct('A'));
+        controller.getProducts().get('A').addPercentPromotion(10);
+        assertEquals(PromotionType.NONE, first.getProduct('A').getPromotionType());
+    }
+
+    @Test
+    void publishedSnapshotCantBeChanged() throws Exception {
+        CatalogSnapshot first = catalog.current();
+        assertThrows(IllegalStateException.class, () -> first.getProduct('A').addPercentPromotion(10));
+        assertThrows(IllegalStateException.class, () -> first.getProducts().get('B').removePromotion());
+        assertThrows(IllegalStateException.class, () -> first.getProduct('C').setMarkup(BigDecimal.ONE));
+        assertThrows(UnsupportedOperationException.class, () -> first.getProducts().remove('A'));
+        assertEquals(PromotionType.NONE, first.getProduct('A').getPromotionType());
+        assertEquals(PromotionType.PERCENT, first.getProduct('B').getPromotionType());
+
+        CatalogSnapshot second = catalog.addPercentPromotion('A', 10);
+        assertThrows(IllegalStateException.class, () -> second.getProduct('A').addPercentPromotion(20));
+        assertEquals(PromotionType.NONE, first.getProduct('A').getPromotionType());
+    }
+
+    @Test
+    void promotionChangesPublishNewVersion() throws Exception {
+        CatalogSnapshot first = catalog.current();
+        CatalogSnapshot second = catalog.addPercentPromotion('A', 50);
+        CatalogSnapshot third = catalog.removePromotion('B');
+        CatalogSnapshot fourth = catalog.addFreeItemsPromotion('C', 1, 1);
+
+        assertEquals(2, second.getVersion());
+        assertEquals(4, fourth.getVersion());
+        assertSame(fourth, catalog.current());
+        assertEquals(PromotionType.NONE, first.getProduct('A').getPromotionType());
+        assertEquals(PromotionType.PERCENT, second.getProduct('A').getPromotionType());
+        assertEquals(PromotionType.PERCENT, second.getProduct('B').getPromotionType());
+        assertEquals(PromotionType.NONE, third.getProduct('B').getPromotionType());
+        assertEquals(PromotionType.GET_FREE_ITEMS, fourth.getProduct('C').getPromotionType());
+        assertEquals(new BigDecimal("0.46800"), fourth.getProduct('A').calculatedPricePerItem(1));
+        assertSame(second.getProduct('D'), fourth.getProduct('D'));
+    }
+
+    @Test
+    void failedChangeKeepsVersion() {
+        assertThrows(NoPromotionToRemoveException.class, () -> catalog.removePromotion('A'));
+        assertThrows(InvalidPercentException.class, () -> catalog.addPercentPromotion('A', 0));
+        assertThrows(IllegalArgumentException.class, () -> catalog.addPercentPromotion('E', 1));
+        assertEquals(1, catalog.current().getVersion());
+    }
+
+    @Test
+    void pricedOrderRecordsVersion() throws InvalidPercentException {
+        BatchPricingService service = new BatchPricingService(controller);
+        Order order = new Order(1, Map.of('A', 10));
+        PricedOrder before = service.price(order);
+        service.getCatalog().addPercentPromotion('A', 50);
+        PricedOrder after = service.price(order);
+
+        assertEquals(1, before.getCatalogVersion());
+        assertEquals(2, after.getCatalogVersion());
+        assertEquals(new BigDecimal("8.89"), before.getPriceWithAdditionalDiscount());
+        assertEquals(new BigDecimal("4.44"), after.getPriceWithAdditionalDiscount());
+    }
+}
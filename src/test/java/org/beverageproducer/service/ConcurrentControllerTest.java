@@ -0,0 +1,121 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.TotalChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentControllerTest {
+    private Controller controller;
+    private ConcurrentController concurrentController;
+
+    @BeforeEach
+    void unit() throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException, InvalidCountOfItemsException {
+        controller = new Controller();
+        controller.createClientsAndProducts();
+        concurrentController = new ConcurrentController(controller, 3);
+    }
+
+    @Test
+    void unknownClientOrProduct() {
+        assertThrows(IllegalArgumentException.class, () -> concurrentController.addOrderedProduct(6, 'A', 1));
+        assertThrows(IllegalArgumentException.class, () -> concurrentController.addOrderedProduct(1, 'E', 1));
+        assertThrows(IllegalArgumentException.class, () -> concurrentController.quote(0));
+    }
+
+    @Test
+    void concurrentQuotesAndPromotionChanges() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int clientID = 1; clientID <= 5; clientID++) {
+                int id = clientID;
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= 2000; i++) {
+                        concurrentController.addOrderedProduct(id, "ABCD".charAt(i % 4), i);
+                        assertNotNull(concurrentController.priceWithAdditionalDiscount(id));
+                    }
+                    return null;
+                }));
+            }
+            futures.add(executor.submit(() -> {
+                for (int i = 1; i <= 2000; i++) {
+                    concurrentController.addPercentPromotion('A', 1 + i % 50);
+                    concurrentController.addFreeItemsPromotion('C', 1 + i % 3, 1);
+                    concurrentController.removePromotion('C');
+                }
+                return null;
+            }));
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int clientID = 1; clientID <= 5; clientID++) {
+            Client expected = new Client(controller.getClients().get(clientID));
+            expected.addOrderedProduct(controller.getProducts().get('A'), 2000);
+            expected.addOrderedProduct(controller.getProducts().get('B'), 1997);
+            expected.addOrderedProduct(controller.getProducts().get('C'), 1998);
+            expected.addOrderedProduct(controller.getProducts().get('D'), 1999);
+            assertEquals(expected.priceWithAdditionalDiscount(), concurrentController.priceWithAdditionalDiscount(clientID));
+            assertEquals(4, concurrentController.quote(clientID).getLines().size());
+        }
+    }
+
+    @Test
+    void promotionChangeRepricesOnlyTheBasketsWithTheProduct() throws Exception {
+        concurrentController.addOrderedProduct(1, 'A', 100);
+        concurrentController.addOrderedProduct(1, 'C', 10);
+        concurrentController.addOrderedProduct(2, 'A', 20000);
+        concurrentController.addOrderedProduct(3, 'C', 5);
+        BigDecimal oldTotal1 = concurrentController.priceWithAdditionalDiscount(1);
+        BigDecimal oldTotal2 = concurrentController.priceWithAdditionalDiscount(2);
+        List<TotalChange> changes = new ArrayList<>();
+        concurrentController.addTotalChangeListener(changes::add);
+
+        concurrentController.addPercentPromotion('A', 10);
+        assertEquals(2, changes.size());
+        changes.sort(Comparator.comparingInt(TotalChange::getClientId));
+        assertEquals(1, changes.get(0).getClientId());
+        assertEquals('A', changes.get(0).getProductName());
+        assertEquals(oldTotal1, changes.get(0).getOldTotal());
+        assertEquals(concurrentController.priceWithAdditionalDiscount(1), changes.get(0).getNewTotal());
+        assertEquals(oldTotal2, changes.get(1).getOldTotal());
+        assertEquals(concurrentController.priceWithAdditionalDiscount(2), changes.get(1).getNewTotal());
+        assertTrue(changes.get(1).getNewTotal().compareTo(oldTotal2) < 0);
+
+        changes.clear();
+        concurrentController.removeOrderedProduct(2, 'A');
+        concurrentController.removePromotion('A');
+        assertEquals(1, changes.size());
+        assertEquals(1, changes.get(0).getClientId());
+        assertEquals(oldTotal1, changes.get(0).getNewTotal());
+    }
+
+    @Test
+    void basketIndexFollowsTheBaskets() throws Exception {
+        concurrentController.addOrderedProduct(4, 'D', 1);
+        concurrentController.addOrderedProduct(4, 'D', 2);
+        concurrentController.addOrderedProduct(5, 'D', 3);
+        assertEquals(2, concurrentController.getBasketIndex().getClients('D').size());
+        concurrentController.removeOrderedProduct(4, 'D');
+        assertEquals(Set.of(concurrentController.getClient(5)), concurrentController.getBasketIndex().getClients('D'));
+
+        //a replaced client leaves the index with its basket
+        concurrentController.addClient(new Client(controller.getClients().get(5)));
+        assertTrue(concurrentController.getBasketIndex().getClients('D').isEmpty());
+        assertTrue(concurrentController.getBasketIndex().getClients('E').isEmpty());
+    }
+}
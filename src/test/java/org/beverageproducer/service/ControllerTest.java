@@ -0,0 +1,23 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.exceptions.NegativeCountOfItemsException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ControllerTest {
+
+    @Test
+    void negativeQuantityThrowsNegativeCountOfItems() {
+        PrintStream out = System.out;
+        try (PrintStream capture = new PrintStream(new ByteArrayOutputStream())) {
+            System.setOut(capture);
+            assertThrows(NegativeCountOfItemsException.class, () -> new Controller().startApplication(1, 10, -1, 0, 5));
+        } finally {
+            System.setOut(out);
+        }
+    }
+}
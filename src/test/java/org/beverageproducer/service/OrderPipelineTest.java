@@ -0,0 +1,63 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.enums.OrderFileFormat;
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.io.OrderReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderPipelineTest {
+
+    @Test
+    void invoicesMatchStartApplication() throws Exception {
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int clientID = 1; clientID <= 5; clientID++) {
+            int quantity = clientID * 3000;
+            input.append(clientID).append(",A,").append(quantity).append('\n');
+            input.append(clientID).append(",B,").append(quantity + 1).append('\n');
+            input.append(clientID).append(",D,").append(quantity + 2).append('\n');
+            expected.append(startApplication(clientID, quantity, quantity + 1, 0, quantity + 2));
+        }
+        Controller controller = new Controller();
+        controller.createClientsAndProducts();
+        StringWriter output = new StringWriter();
+        long count = new OrderPipeline(new BatchPricingService(controller), 2)
+                .run(new OrderReader(new BufferedReader(new StringReader(input.toString())), OrderFileFormat.CSV), output);
+
+        assertEquals(5, count);
+        assertEquals(expected.toString(), output.toString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        count = new OrderPipeline(new BatchPricingService(controller), 2)
+                .run(new OrderReader(new BufferedReader(new StringReader(input.toString())), OrderFileFormat.CSV),
+                        Channels.newChannel(bytes));
+
+        assertEquals(5, count);
+        assertEquals(expected.toString(), bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    private static String startApplication(int clientID, int quantityA, int quantityB, int quantityC, int quantityD)
+            throws InvalidMarkupException, InvalidPercentException, InvalidUnitCostException, InvalidCountOfItemsException,
+            NegativeCountOfItemsException, IOException {
+        PrintStream out = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream capture = new PrintStream(bytes)) {
+            System.setOut(capture);
+            new Controller().startApplication(clientID, quantityA, quantityB, quantityC, quantityD);
+        } finally {
+            System.setOut(out);
+        }
+        return bytes.toString();
+    }
+}
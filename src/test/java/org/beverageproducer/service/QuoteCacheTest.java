@@ -0,0 +1,104 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.DiscountTiers;
+import org.beverageproducer.models.Order;
+import org.beverageproducer.models.PricedOrder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteCacheTest {
+    private BatchPricingService uncached;
+    private BatchPricingService service;
+    private QuoteCache cache;
+
+    @BeforeEach
+    void unit() throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException, InvalidCountOfItemsException {
+        Controller controller = new Controller();
+        controller.createClientsAndProducts();
+        uncached = new BatchPricingService(controller);
+        cache = new QuoteCache(100);
+        service = new BatchPricingService(controller, cache);
+    }
+
+    @Test
+    void repeatedOrdersAreAnsweredFromTheCache() {
+        Order order = new Order(3, Map.of('A', 10000, 'B', 25000));
+        PricedOrder first = service.price(order);
+        assertSame(first, service.price(new Order(3, Map.of('A', 10000, 'B', 25000))));
+        assertEquals(uncached.price(order).toString(), first.toString());
+        service.price(new Order(3, Map.of('A', 10000, 'B', 25001)));
+        service.price(new Order(4, Map.of('A', 10000, 'B', 25000)));
+
+        QuoteCacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(3, stats.getMisses());
+        assertEquals(3, stats.getSize());
+        assertEquals(0.25, stats.getHitRate());
+    }
+
+    @Test
+    void productChangesOnlyInvalidateQuotesWithTheProduct() throws InvalidPercentException, NoPromotionToRemoveException {
+        Order withB = new Order(1, Map.of('B', 300));
+        Order withoutB = new Order(1, Map.of('A', 300, 'C', 5));
+        PricedOrder pricedWithB = service.price(withB);
+        PricedOrder pricedWithoutB = service.price(withoutB);
+
+        service.getCatalog().removePromotion('B');
+        uncached.getCatalog().removePromotion('B');
+        PricedOrder repricedWithB = service.price(withB);
+        assertNotEquals(pricedWithB.getSumOfOrders(), repricedWithB.getSumOfOrders());
+        assertEquals(uncached.price(withB).toString(), repricedWithB.toString());
+        assertEquals(1, cache.getStats().getInvalidations());
+
+        //still valid, answered with the version of the current catalog
+        PricedOrder cachedWithoutB = service.price(withoutB);
+        assertEquals(2, cachedWithoutB.getCatalogVersion());
+        assertEquals(pricedWithoutB.getPriceWithAdditionalDiscount(), cachedWithoutB.getPriceWithAdditionalDiscount());
+        assertEquals(1, cache.getStats().getHits());
+
+        service.getCatalog().addPercentPromotion('A', 10);
+        uncached.getCatalog().addPercentPromotion('A', 10);
+        assertEquals(uncached.price(withoutB).toString(), service.price(withoutB).toString());
+        assertEquals(2, cache.getStats().getInvalidations());
+    }
+
+    @Test
+    void discountChangesInvalidateTheQuotesOfTheClient() throws InvalidCountOfItemsException, InvalidPercentException {
+        Order order = new Order(2, Map.of('A', 20000));
+        PricedOrder before = service.price(order);
+        service.setDiscountTiers(2, DiscountTiers.of(new int[]{100}, new int[]{50}));
+        PricedOrder after = service.price(order);
+        assertNotEquals(before.getPriceWithAdditionalDiscount(), after.getPriceWithAdditionalDiscount());
+        assertEquals(1, cache.getStats().getInvalidations());
+        assertSame(after, service.price(order));
+    }
+
+    @Test
+    void leastRecentlyUsedQuotesAreEvicted() throws InvalidPercentException {
+        QuoteCache single = new QuoteCache(1);
+        Client terms = new Client(1, 5, 0, 2);
+        CatalogSnapshot snapshot = service.getCatalog().current();
+        Order first = new Order(1, Map.of('A', 1));
+        Order second = new Order(1, Map.of('A', 2));
+        PricedOrder pricedFirst = uncached.price(first);
+        assertSame(pricedFirst, single.get(terms, first, snapshot, () -> pricedFirst));
+        assertSame(pricedFirst, single.get(terms, first, snapshot, () -> uncached.price(first)));
+        single.get(terms, second, snapshot, () -> uncached.price(second));
+        assertNotSame(pricedFirst, single.get(terms, first, snapshot, () -> uncached.price(first)));
+        assertEquals(2, single.getStats().getEvictions());
+        assertEquals(1, single.size());
+
+        for (int quantity = 1; quantity <= 1000; quantity++) {
+            service.price(new Order(5, Map.of('D', quantity)));
+        }
+        assertTrue(cache.size() <= 100);
+        assertEquals(1000 - cache.size(), cache.getStats().getEvictions());
+        assertThrows(IllegalArgumentException.class, () -> new QuoteCache(0));
+    }
+}
@@ -0,0 +1,83 @@
+package org.beverageproducer.service;
+
+import org.beverageproducer.enums.MarkupType;
+import org.beverageproducer.exceptions.*;
+import org.beverageproducer.models.Client;
+import org.beverageproducer.models.Product;
+import org.beverageproducer.promotions.TieredRule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteCurveTest {
+    private Controller controller;
+
+    @BeforeEach
+    void unit() throws InvalidMarkupException, InvalidUnitCostException, InvalidPercentException, InvalidCountOfItemsException {
+        controller = new Controller();
+        controller.createClientsAndProducts();
+    }
+
+    @Test
+    void matchesClientForEveryQuantity() throws Exception {
+        for (Client client : controller.getClients().values()) {
+            //9000 + 21000 units already ordered, so the curves cross both volume tiers
+            client.addOrderedProduct(controller.getProducts().get('A'), 9000);
+            client.addOrderedProduct(controller.getProducts().get('B'), 7);
+            for (Product product : controller.getProducts().values()) {
+                assertCurve(client, product, 21000);
+            }
+        }
+    }
+
+    @Test
+    void freeItemsAndTieredPromotionsAreSteppedThrough() throws Exception {
+        Product free = new Product('E', new BigDecimal("0.38"), MarkupType.PERCENT, new BigDecimal(80));
+        free.addFreeItemsPromotion(2, 1);
+        Product tiered = new Product('F', new BigDecimal("0.38"), MarkupType.PERCENT, new BigDecimal(80));
+        tiered.addPromotionRule(new TieredRule(new int[]{10, 1000}, new int[]{10, 20}));
+        Client client = controller.getClients().get(1);
+        client.addOrderedProduct(controller.getProducts().get('A'), 9990);
+        assertCurve(client, free, 2000);
+        assertCurve(client, tiered, 2000);
+        free.addPromotionRule(new TieredRule(new int[]{25}, new int[]{5}));
+        assertCurve(client, free, 100);
+    }
+
+    @Test
+    void fallsBackToBigDecimal() throws Exception {
+        Product product = new Product('E', new BigDecimal("0.0101"), MarkupType.PERCENT, new BigDecimal("33.3"));
+        product.addPercentPromotion(7);
+        assertThrows(ArithmeticException.class, () -> product.calculatedPriceMicros(1));
+        Client client = controller.getClients().get(2);
+        client.addOrderedProduct(controller.getProducts().get('C'), 9990);
+        assertCurve(client, product, 40);
+        assertCurve(client, controller.getProducts().get('C'), 20);
+    }
+
+    @Test
+    void rejectsNegativeQuantity() {
+        assertThrows(NegativeCountOfItemsException.class, () -> QuoteCurve.of(controller.getClients().get(1), controller.getProducts().get('A'), -1));
+    }
+
+    private static void assertCurve(Client client, Product product, int maxQuantity) throws Exception {
+        QuoteCurve curve = QuoteCurve.of(client, product, maxQuantity);
+        assertEquals(maxQuantity, curve.getMaxQuantity());
+        for (int quantity = 0; quantity <= maxQuantity; quantity += quantity < 50 ? 1 : 997) {
+            Client expected = new Client(client);
+            for (Map.Entry<Product, Integer> entry : client.getOrderedProducts().entrySet()) {
+                if (entry.getKey().getName() != product.getName()) {
+                    expected.addOrderedProduct(entry.getKey(), entry.getValue());
+                }
+            }
+            if (quantity > 0) {
+                expected.addOrderedProduct(product, quantity);
+            }
+            assertEquals(expected.priceWithAdditionalDiscount(), curve.priceAt(quantity), product.getName() + " x" + quantity);
+        }
+    }
+}